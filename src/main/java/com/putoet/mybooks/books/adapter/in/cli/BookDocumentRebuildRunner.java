@@ -0,0 +1,61 @@
+package com.putoet.mybooks.books.adapter.in.cli;
+
+import com.putoet.mybooks.books.adapter.out.persistence.jdbc.H2BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+/**
+ * Class BookDocumentRebuildRunner
+ * <p>
+ * Regenerates the documents of all books (see H2BookRepository) from the normalized tables at startup, in one
+ * transaction, when the documents are enabled and there isn't a document for every book, e.g. after enabling the
+ * documents on an existing database. Documents of books whose authors changed while the documents were disabled
+ * are only regenerated when the property mybooks.book-documents.rebuild is true:
+ * <pre>
+ * java -jar mybooks.jar --mybooks.book-documents.enabled=true --mybooks.book-documents.rebuild=true
+ * </pre>
+ * </p>
+ */
+@Component
+@Profile("jdbc")
+@ConditionalOnProperty(name = "mybooks.book-documents.enabled", havingValue = "true")
+public class BookDocumentRebuildRunner implements ApplicationRunner {
+    public static final Logger log = LoggerFactory.getLogger(BookDocumentRebuildRunner.class);
+
+    private final H2BookRepository repository;
+    private final TransactionTemplate transaction;
+    private final boolean rebuild;
+
+    public BookDocumentRebuildRunner(H2BookRepository repository, PlatformTransactionManager transactionManager,
+                                     @Value("${mybooks.book-documents.rebuild:false}") boolean rebuild) {
+        log.debug("BookDocumentRebuildRunner('{}', '{}', {})", repository, transactionManager, rebuild);
+
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.rebuild = rebuild;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!rebuild && repository.bookDocumentsComplete()) {
+            log.debug("The book documents are complete");
+            return;
+        }
+
+        log.info("Rebuild the book documents");
+
+        final long start = System.currentTimeMillis();
+        final int count = Objects.requireNonNull(transaction.execute(status -> repository.rebuildBookDocuments()));
+        log.info("Rebuilt {} book documents in {} ms", count, System.currentTimeMillis() - start);
+    }
+}
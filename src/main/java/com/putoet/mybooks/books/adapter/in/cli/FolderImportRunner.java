@@ -0,0 +1,75 @@
+package com.putoet.mybooks.books.adapter.in.cli;
+
+import com.putoet.mybooks.books.adapter.out.persistence.folder.FolderBookRepository;
+import com.putoet.mybooks.books.adapter.out.persistence.jdbc.H2BookImporter;
+import com.putoet.mybooks.books.domain.BookCursor;
+import com.putoet.mybooks.books.domain.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+/**
+ * Class FolderImportRunner
+ * <p>
+ * Imports all books from a folder with EPUB files into the database at startup, when the property
+ * mybooks.import.folder is set, e.g.:
+ * <pre>
+ * java -jar mybooks.jar --mybooks.import.folder=/path/to/books --spring.main.web-application-type=none
+ * </pre>
+ * The books are loaded with a FolderBookRepository, and streamed a page at a time to an H2BookImporter, which writes
+ * them with JDBC batch inserts, in one transaction per chunk of mybooks.import.chunk-size books. Books that are
+ * already in the database are skipped, so a failed import can be resumed by running it again. When
+ * mybooks.import.replace is true, all books and authors are deleted from the database, and the books are imported,
+ * in a single transaction. The book documents are written as well, when mybooks.book-documents.enabled is true.
+ * </p>
+ */
+@Component
+@Profile("jdbc")
+@ConditionalOnProperty(name = "mybooks.import.folder")
+public class FolderImportRunner implements ApplicationRunner {
+    public static final Logger log = LoggerFactory.getLogger(FolderImportRunner.class);
+
+    private final JdbcTemplate template;
+    private final PlatformTransactionManager transactionManager;
+    private final Path folder;
+    private final int chunkSize;
+    private final boolean replace;
+    private final boolean documents;
+
+    public FolderImportRunner(JdbcTemplate template,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${mybooks.import.folder}") Path folder,
+                              @Value("${mybooks.import.chunk-size:" + H2BookImporter.DEFAULT_CHUNK_SIZE + "}") int chunkSize,
+                              @Value("${mybooks.import.replace:false}") boolean replace,
+                              @Value("${mybooks.book-documents.enabled:false}") boolean documents) {
+        this.template = template;
+        this.transactionManager = transactionManager;
+        this.folder = folder;
+        this.chunkSize = chunkSize;
+        this.replace = replace;
+        this.documents = documents;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Import books from folder '{}' (chunk size {}, replace {})", folder, chunkSize, replace);
+
+        final var importer = new H2BookImporter(template, transactionManager, chunkSize, documents);
+        try (var folderBooks = new FolderBookRepository(folder)) {
+            final var books = Page.stream(next -> folderBooks.findBooks(BookCursor.decode(next), chunkSize));
+            final var result = replace ? importer.replaceBooks(books) : importer.importBooks(books);
+            log.info("Imported {} books and {} authors ({} rows, {} books skipped) in {} ms, {} rows/s",
+                    result.books(), result.authors(), result.rows(), result.skipped(), result.duration().toMillis(),
+                    Math.round(result.rowsPerSecond()));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.putoet.mybooks.books.adapter.in.graphql;
 
 import com.putoet.mybooks.books.application.port.in.BookManagementInquiryPort;
+import com.putoet.mybooks.books.domain.AuthorCursor;
 import com.putoet.mybooks.books.domain.AuthorId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +30,14 @@ public class GraphqlAuthorController {
         return GraphqlAuthorResponse.from(authors);
     }
 
+    @QueryMapping
+    public GraphqlConnection<GraphqlAuthorResponse> authorsPage(@Argument Integer first, @Argument String after) {
+        log.debug("authorsPage({}, '{}')", first, after);
+        final var authors = bookManagementInquiryPort.authors(AuthorCursor.decode(after), first);
+        log.debug("authors page returns {} authors", authors.items().size());
+        return GraphqlConnection.from(authors, after != null, AuthorCursor::encode, GraphqlAuthorResponse::from);
+    }
+
     @QueryMapping
     public GraphqlAuthorResponse authorById(@Argument String id) {
         log.debug("authorById('{}')", id);
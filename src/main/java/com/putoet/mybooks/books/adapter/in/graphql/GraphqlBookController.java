@@ -1,7 +1,9 @@
 package com.putoet.mybooks.books.adapter.in.graphql;
 
 import com.putoet.mybooks.books.application.port.in.BookManagementInquiryPort;
+import com.putoet.mybooks.books.domain.BookCursor;
 import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -9,6 +11,7 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.Collection;
+import java.util.List;
 
 @Controller
 public class GraphqlBookController {
@@ -22,12 +25,26 @@ public class GraphqlBookController {
         this.bookManagementInquiryPort = bookManagementInquiryPort;
     }
 
+    /*
+     * A GraphQL result is always complete before it is written, so the books are read page by page and mapped to
+     * responses directly, instead of first collecting all books.
+     */
     @QueryMapping
     public Collection<GraphqlBookResponse> books() {
         log.debug("books()");
-        final var books = bookManagementInquiryPort.books();
-        log.debug("books returns: {}", books);
-        return GraphqlBookResponse.from(books);
+        final var books = Page.stream(after -> bookManagementInquiryPort.books(BookCursor.decode(after), Page.MAX_SIZE))
+                .map(GraphqlBookResponse::from)
+                .toList();
+        log.debug("books returns {} books", books.size());
+        return books;
+    }
+
+    @QueryMapping
+    public GraphqlConnection<GraphqlBookResponse> booksPage(@Argument Integer first, @Argument String after) {
+        log.debug("booksPage({}, '{}')", first, after);
+        final var books = bookManagementInquiryPort.books(BookCursor.decode(after), first);
+        log.debug("books page returns {} books", books.items().size());
+        return GraphqlConnection.from(books, after != null, BookCursor::encode, GraphqlBookResponse::from);
     }
 
     @QueryMapping
@@ -38,6 +55,14 @@ public class GraphqlBookController {
         return GraphqlBookResponse.from(books);
     }
 
+    @QueryMapping
+    public List<GraphqlBookSearchResponse> searchBooks(@Argument String query, @Argument Integer first) {
+        log.debug("searchBooks('{}', {})", query, first);
+        final var books = bookManagementInquiryPort.searchBooks(query, first);
+        log.debug("search books returns {} books", books.size());
+        return GraphqlBookSearchResponse.from(books);
+    }
+
     @QueryMapping
     public Collection<GraphqlBookResponse> booksByAuthorName(@Argument String name) {
         log.debug("booksByAuthorName('{}')", name);
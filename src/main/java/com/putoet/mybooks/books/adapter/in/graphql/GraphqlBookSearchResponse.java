@@ -0,0 +1,17 @@
+package com.putoet.mybooks.books.adapter.in.graphql;
+
+import com.putoet.mybooks.books.domain.BookSearchResult;
+
+import java.util.List;
+
+public record GraphqlBookSearchResponse(GraphqlBookResponse book, double score) {
+    public static GraphqlBookSearchResponse from(BookSearchResult result) {
+        return new GraphqlBookSearchResponse(GraphqlBookResponse.from(result.book()), result.score());
+    }
+
+    public static List<GraphqlBookSearchResponse> from(List<BookSearchResult> results) {
+        return results.stream()
+                .map(GraphqlBookSearchResponse::from)
+                .toList();
+    }
+}
@@ -0,0 +1,31 @@
+package com.putoet.mybooks.books.adapter.in.graphql;
+
+import com.putoet.mybooks.books.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * GraphQL connection (as in the GraphQL cursor connections specification) for a page of items.
+ * @param edges List of edges, with the item as node and its cursor
+ * @param pageInfo GraphqlPageInfo
+ * @param <T> response type
+ */
+public record GraphqlConnection<T>(List<GraphqlEdge<T>> edges, GraphqlPageInfo pageInfo) {
+    public record GraphqlEdge<T>(String cursor, T node) {}
+
+    public record GraphqlPageInfo(boolean hasPreviousPage, boolean hasNextPage, String startCursor, String endCursor) {}
+
+    public static <D, T> GraphqlConnection<T> from(Page<D> page, boolean hasPrevious, Function<D, String> cursor, Function<D, T> mapper) {
+        final var edges = page.items().stream()
+                .map(item -> new GraphqlEdge<>(cursor.apply(item), mapper.apply(item)))
+                .toList();
+        final var pageInfo = new GraphqlPageInfo(
+                hasPrevious,
+                page.hasNext(),
+                edges.isEmpty() ? null : edges.get(0).cursor(),
+                edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor());
+
+        return new GraphqlConnection<>(edges, pageInfo);
+    }
+}
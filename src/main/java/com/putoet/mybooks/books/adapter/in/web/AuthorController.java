@@ -2,7 +2,9 @@ package com.putoet.mybooks.books.adapter.in.web;
 
 import com.putoet.mybooks.books.application.port.in.BookManagementInquiryPort;
 import com.putoet.mybooks.books.application.port.in.BookManagementUpdatePort;
+import com.putoet.mybooks.books.domain.AuthorCursor;
 import com.putoet.mybooks.books.domain.AuthorId;
+import com.putoet.mybooks.books.domain.Page;
 import com.putoet.mybooks.books.domain.validation.ObjectIDConstraint;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -10,9 +12,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
 import java.util.Set;
 
@@ -23,10 +28,14 @@ public class AuthorController {
 
     private final BookManagementInquiryPort bookManagementInquiryPort;
     private final BookManagementUpdatePort bookManagementUpdatePort;
+    private final ObjectMapper objectMapper;
 
-    public AuthorController(BookManagementInquiryPort bookManagementInquiryPort, BookManagementUpdatePort bookManagementUpdatePort) {
+    public AuthorController(BookManagementInquiryPort bookManagementInquiryPort,
+                            BookManagementUpdatePort bookManagementUpdatePort,
+                            ObjectMapper objectMapper) {
         this.bookManagementInquiryPort = bookManagementInquiryPort;
         this.bookManagementUpdatePort = bookManagementUpdatePort;
+        this.objectMapper = objectMapper;
         log.debug("AuthorController('{}', '{}')", bookManagementInquiryPort, bookManagementUpdatePort);
     }
 
@@ -46,6 +55,40 @@ public class AuthorController {
         }
     }
 
+    /**
+     * All authors as NDJSON (one author per line), in order of name, streamed page by page from the inquiry service.
+     * @return ResponseEntity with a streaming body
+     */
+    @GetMapping(
+            path = "/api/v{version}/authors",
+            version = "1.0",
+            produces = NdjsonResponse.MEDIA_TYPE
+    )
+    public ResponseEntity<StreamingResponseBody> streamAuthors() {
+        log.debug("streamAuthors()");
+
+        final var authors = Page.stream(after -> bookManagementInquiryPort.authors(AuthorCursor.decode(after), NdjsonResponse.PAGE_SIZE))
+                .map(AuthorResponse::from);
+        return NdjsonResponse.of(authors, objectMapper);
+    }
+
+    @GetMapping(
+            path = "/api/v{version}/paged/authors",
+            version = "1.0",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public PageResponse<AuthorResponse> getAuthorsPage(@RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        log.debug("getAuthorsPage('{}', {})", after, limit);
+        try {
+            final var authors = PageResponse.from(bookManagementInquiryPort.authors(AuthorCursor.decode(after), limit), AuthorResponse::from);
+            log.debug("get authors page returns {} authors", authors.items().size());
+            return authors;
+        } catch (RuntimeException exc) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
+        }
+    }
+
     @GetMapping(
             path = "/api/v{version}/author/{id}",
             version = "1.0",
@@ -4,7 +4,9 @@ import com.putoet.mybooks.books.application.port.in.BookManagementInquiryPort;
 import com.putoet.mybooks.books.application.port.in.BookManagementUpdatePort;
 import com.putoet.mybooks.books.domain.Author;
 import com.putoet.mybooks.books.domain.AuthorId;
+import com.putoet.mybooks.books.domain.BookCursor;
 import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.Page;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import org.slf4j.Logger;
@@ -12,14 +14,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.SmartValidator;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Validated
@@ -30,13 +36,16 @@ public class BookController {
     private final BookManagementInquiryPort bookManagementInquiryPort;
     private final BookManagementUpdatePort bookManagementUpdatePort;
     private final SmartValidator validator;
+    private final ObjectMapper objectMapper;
 
     public BookController(BookManagementInquiryPort bookManagementInquiryPort,
                           BookManagementUpdatePort bookManagementUpdatePort,
-                          SmartValidator validator) {
+                          SmartValidator validator,
+                          ObjectMapper objectMapper) {
         this.bookManagementInquiryPort = bookManagementInquiryPort;
         this.bookManagementUpdatePort = bookManagementUpdatePort;
         this.validator = validator;
+        this.objectMapper = objectMapper;
         log.debug("BookController('{}','{}','{}')", bookManagementInquiryPort, bookManagementUpdatePort, validator);
     }
 
@@ -56,6 +65,58 @@ public class BookController {
         }
     }
 
+    /**
+     * All books as NDJSON (one book per line), in order of title, streamed page by page from the inquiry service.
+     * Unlike getBooks, the catalogue is never held in memory as a whole.
+     * @return ResponseEntity with a streaming body
+     */
+    @GetMapping(
+            path = "/api/v{version}/books",
+            version = "1.0",
+            produces = NdjsonResponse.MEDIA_TYPE
+    )
+    public ResponseEntity<StreamingResponseBody> streamBooks() {
+        log.debug("streamBooks()");
+
+        final var books = Page.stream(after -> bookManagementInquiryPort.books(BookCursor.decode(after), NdjsonResponse.PAGE_SIZE))
+                .map(BookResponse::from);
+        return NdjsonResponse.of(books, objectMapper);
+    }
+
+    @GetMapping(
+            path = "/api/v{version}/paged/books",
+            version = "1.0",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public PageResponse<BookResponse> getBooksPage(@RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        log.debug("getBooksPage('{}', {})", after, limit);
+        try {
+            final var books = PageResponse.from(bookManagementInquiryPort.books(BookCursor.decode(after), limit), BookResponse::from);
+            log.debug("get books page returns {} books", books.items().size());
+            return books;
+        } catch (RuntimeException exc) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
+        }
+    }
+
+    @GetMapping(
+            path = "/api/v{version}/search/books",
+            version = "1.0",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public List<BookSearchResponse> searchBooks(@RequestParam @NotBlank String q,
+                                                @RequestParam(defaultValue = "20") int limit) {
+        log.debug("searchBooks('{}', {})", q, limit);
+        try {
+            final var books = BookSearchResponse.from(bookManagementInquiryPort.searchBooks(q, limit));
+            log.debug("search books returns {} books", books.size());
+            return books;
+        } catch (RuntimeException exc) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exc.getMessage());
+        }
+    }
+
     @GetMapping(
             path = "/api/v{version}/books/author/{name}",
             version = "1.0",
@@ -0,0 +1,22 @@
+package com.putoet.mybooks.books.adapter.in.web;
+
+import com.putoet.mybooks.books.domain.BookSearchResult;
+
+import java.util.List;
+
+/**
+ * A book found by a search, with its relevance score. Search results are returned in order of relevance.
+ * @param book BookResponse
+ * @param score double - relevance of the book, higher is better
+ */
+public record BookSearchResponse(BookResponse book, double score) {
+    public static List<BookSearchResponse> from(List<BookSearchResult> results) {
+        return results.stream()
+                .map(BookSearchResponse::from)
+                .toList();
+    }
+
+    public static BookSearchResponse from(BookSearchResult result) {
+        return new BookSearchResponse(BookResponse.from(result.book()), result.score());
+    }
+}
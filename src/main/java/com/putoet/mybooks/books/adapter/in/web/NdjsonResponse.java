@@ -0,0 +1,60 @@
+package com.putoet.mybooks.books.adapter.in.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Class NdjsonResponse
+ * A response body with one JSON document per line (application/x-ndjson), written while the items are read from
+ * the stream. The output is flushed after every FLUSH_SIZE items, so the client gets the first items before the
+ * last ones are read, and the memory used doesn't depend on the number of items.
+ */
+public final class NdjsonResponse {
+    public static final Logger log = LoggerFactory.getLogger(NdjsonResponse.class);
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+    public static final int PAGE_SIZE = 500;
+    public static final int FLUSH_SIZE = 100;
+
+    private NdjsonResponse() {}
+
+    /**
+     * @param items Stream of responses, closed when the body is written (or failed)
+     * @param mapper ObjectMapper to write the responses with
+     * @return ResponseEntity with a streaming body
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> of(Stream<T> items, ObjectMapper mapper) {
+        Objects.requireNonNull(items);
+        Objects.requireNonNull(mapper);
+
+        final StreamingResponseBody body = output -> {
+            long count = 0;
+            try (items) {
+                final var buffered = new BufferedOutputStream(output);
+                for (var iterator = items.iterator(); iterator.hasNext(); ) {
+                    buffered.write(mapper.writeValueAsBytes(iterator.next()));
+                    buffered.write('\n');
+                    if (++count % FLUSH_SIZE == 0)
+                        buffered.flush();
+                }
+                buffered.flush();
+            } catch (RuntimeException exc) {
+                log.error("Streaming response failed after {} items", count, exc);
+                throw exc;
+            }
+            log.debug("streamed {} items", count);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE))
+                .body(body);
+    }
+}
@@ -0,0 +1,19 @@
+package com.putoet.mybooks.books.adapter.in.web;
+
+import com.putoet.mybooks.books.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of responses, with the cursor to pass as 'after' parameter to get the next page. The cursor is null on the
+ * last page.
+ * @param items List of responses, in order
+ * @param next String - cursor of the next page, or null
+ * @param <T> response type
+ */
+public record PageResponse<T>(List<T> items, String next) {
+    public static <D, T> PageResponse<T> from(Page<D> page, Function<D, T> mapper) {
+        return new PageResponse<>(page.items().stream().map(mapper).toList(), page.next());
+    }
+}
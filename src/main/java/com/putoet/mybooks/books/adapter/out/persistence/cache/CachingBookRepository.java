@@ -0,0 +1,270 @@
+package com.putoet.mybooks.books.adapter.out.persistence.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
+import com.putoet.mybooks.books.domain.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.activation.MimeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.putoet.mybooks.books.adapter.out.persistence.replica.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Class CachingBookRepository
+ * <p>
+ * Read-through cache in front of the book repository of the active profile, for the lookups of books and authors by
+ * id. Looking up a book by id takes several queries in the JDBC repository (for the book, its authors and their
+ * sites, its formats and its keywords), while the same popular books and authors are requested again and again.
+ * All other operations are passed on to the repository.
+ * </p>
+ * <p>
+ * Both caches are bounded in size (mybooks.cache.maximum-size, 10000 by default), and entries expire after
+ * mybooks.cache.expire-after-write (10 minutes by default, zero to never expire). Lookups of unknown ids are cached
+ * too. Entries are invalidated by the writes that change them:
+ * <ul>
+ *     <li>registerBook and registerBooks - the registered books</li>
+ *     <li>updateAuthor, setAuthorSite and forgetAuthor - the author, and all cached books of the author</li>
+ * </ul>
+ * Within a transaction, the entries are invalidated again when the transaction completes, so a lookup running
+ * concurrently with the transaction doesn't keep the old state in the cache.
+ * </p>
+ * <p>
+ * With a read replica (see ReplicaRoutingDataSource), lookups that read from the replica use the cached entries, but
+ * don't add entries to the caches. The replica may not have the changes of a write yet, and that old state would
+ * otherwise stay in the cache until it expires.
+ * </p>
+ * <p>
+ * The hits, misses, evictions and size of the caches are exported as the cache.* metrics, tagged with cache=books or
+ * cache=authors. Set mybooks.cache.enabled to false to use the repository without cache.
+ * </p>
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "mybooks.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingBookRepository implements BookPersistenceUpdatePort {
+    public static final Logger log = LoggerFactory.getLogger(CachingBookRepository.class);
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final String BOOKS_CACHE = "books";
+    public static final String AUTHORS_CACHE = "authors";
+
+    private final BookPersistenceUpdatePort delegate;
+    private final Cache<BookId, Optional<Book>> books;
+    private final Cache<AuthorId, Optional<Author>> authors;
+    private final BooleanSupplier readsFromReplica;
+
+    @Autowired
+    public CachingBookRepository(BookPersistenceUpdatePort delegate,
+                                 MeterRegistry registry,
+                                 @Value("${mybooks.cache.maximum-size:" + DEFAULT_MAXIMUM_SIZE + "}") long maximumSize,
+                                 @Value("${mybooks.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                 @Qualifier("routingDataSource") ObjectProvider<ReplicaRoutingDataSource> routing) {
+        this(delegate, registry, maximumSize, expireAfterWrite, Ticker.systemTicker(), readsFromReplica(routing.getIfAvailable()));
+    }
+
+    CachingBookRepository(BookPersistenceUpdatePort delegate, MeterRegistry registry, long maximumSize,
+                          Duration expireAfterWrite, Ticker ticker, BooleanSupplier readsFromReplica) {
+        log.debug("CachingBookRepository('{}', {}, {})", delegate, maximumSize, expireAfterWrite);
+
+        Objects.requireNonNull(delegate, "Book repository must be provided");
+        Objects.requireNonNull(registry, "Meter registry must be provided");
+        Objects.requireNonNull(readsFromReplica, "Replica reads must be provided");
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Maximum cache size must not be negative, but was " + maximumSize);
+
+        this.delegate = delegate;
+        this.readsFromReplica = readsFromReplica;
+        this.books = GuavaCacheMetrics.monitor(registry, cache(maximumSize, expireAfterWrite, ticker), BOOKS_CACHE);
+        this.authors = GuavaCacheMetrics.monitor(registry, cache(maximumSize, expireAfterWrite, ticker), AUTHORS_CACHE);
+    }
+
+    private static BooleanSupplier readsFromReplica(ReplicaRoutingDataSource routing) {
+        return routing == null ? () -> false : routing::readsFromReplica;
+    }
+
+    private static <K, V> Cache<K, V> cache(long maximumSize, Duration expireAfterWrite, Ticker ticker) {
+        final var builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .recordStats();
+        if (expireAfterWrite != null && !expireAfterWrite.isZero() && !expireAfterWrite.isNegative())
+            builder.expireAfterWrite(expireAfterWrite);
+        return builder.build();
+    }
+
+    private <K, V> V get(Cache<K, Optional<V>> cache, K key, Supplier<V> loader) {
+        if (readsFromReplica.getAsBoolean()) {
+            final var cached = cache.getIfPresent(key);
+            return cached != null ? cached.orElse(null) : loader.get();
+        }
+
+        try {
+            return cache.get(key, () -> Optional.ofNullable(loader.get())).orElse(null);
+        } catch (UncheckedExecutionException | ExecutionException exc) {
+            if (exc.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException(exc.getCause());
+        }
+    }
+
+    /*
+     * Invalidates the entries now, and again when the current transaction (if any) completes.
+     */
+    private static void invalidate(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private void invalidateAuthor(AuthorId authorId) {
+        invalidate(() -> {
+            authors.invalidate(authorId);
+            books.asMap().values().removeIf(book -> book
+                    .map(found -> found.authors().stream().anyMatch(author -> author.id().equals(authorId)))
+                    .orElse(false));
+        });
+    }
+
+    private void invalidateBooks(Collection<BookId> bookIds) {
+        invalidate(() -> books.invalidateAll(bookIds));
+    }
+
+    @Override
+    public Author findAuthorById(AuthorId authorId) {
+        log.debug("findAuthorById('{}')", authorId);
+
+        return get(authors, authorId, () -> delegate.findAuthorById(authorId));
+    }
+
+    @Override
+    public Book findBookById(BookId bookId) {
+        log.debug("findBookById('{}')", bookId);
+
+        return get(books, bookId, () -> delegate.findBookById(bookId));
+    }
+
+    @Override
+    public Set<Author> findAuthors() {
+        return delegate.findAuthors();
+    }
+
+    @Override
+    public Page<Author> findAuthors(AuthorCursor after, int limit) {
+        return delegate.findAuthors(after, limit);
+    }
+
+    @Override
+    public Set<Author> findAuthorsByName(String name) {
+        return delegate.findAuthorsByName(name);
+    }
+
+    @Override
+    public Set<Book> findBooks() {
+        return delegate.findBooks();
+    }
+
+    @Override
+    public Page<Book> findBooks(BookCursor after, int limit) {
+        return delegate.findBooks(after, limit);
+    }
+
+    @Override
+    public Set<Book> findBooksByTitle(String title) {
+        return delegate.findBooksByTitle(title);
+    }
+
+    @Override
+    public Set<Book> findBooksByAuthorId(AuthorId authorId) {
+        return delegate.findBooksByAuthorId(authorId);
+    }
+
+    @Override
+    public Set<Book> findBooksByAuthorIds(Collection<AuthorId> authorIds) {
+        return delegate.findBooksByAuthorIds(authorIds);
+    }
+
+    @Override
+    public Author registerAuthor(String name, Map<SiteType, URL> sites) {
+        return delegate.registerAuthor(name, sites);
+    }
+
+    @Override
+    public Author updateAuthor(AuthorId authorId, Instant version, String name) {
+        log.debug("updateAuthor('{}', '{}', '{}')", authorId, version, name);
+
+        final var author = delegate.updateAuthor(authorId, version, name);
+        invalidateAuthor(authorId);
+        return author;
+    }
+
+    @Override
+    public void forgetAuthor(AuthorId authorId) {
+        log.debug("forgetAuthor('{}')", authorId);
+
+        delegate.forgetAuthor(authorId);
+        invalidateAuthor(authorId);
+    }
+
+    @Override
+    public Author setAuthorSite(AuthorId authorId, SiteType type, URL url) {
+        log.debug("setAuthorSite('{}', '{}', '{}')", authorId, type, url);
+
+        final var author = delegate.setAuthorSite(authorId, type, url);
+        invalidateAuthor(authorId);
+        return author;
+    }
+
+    @Override
+    public Book registerBook(BookId bookId, String title, Set<Author> authors, Set<MimeType> formats, Set<String> keywords) {
+        log.debug("registerBook('{}', '{}')", bookId, title);
+
+        final var book = delegate.registerBook(bookId, title, authors, formats, keywords);
+        invalidateBooks(List.of(bookId));
+        return book;
+    }
+
+    @Override
+    public Set<Book> registerBooks(Collection<Book> books) {
+        log.debug("registerBooks({} books)", books.size());
+
+        final var registered = delegate.registerBooks(books);
+        invalidateBooks(books.stream().map(Book::id).toList());
+        return registered;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingBookRepository{" +
+               "delegate=" + delegate +
+               ", books=" + books.size() +
+               ", authors=" + authors.size() +
+               '}';
+    }
+}
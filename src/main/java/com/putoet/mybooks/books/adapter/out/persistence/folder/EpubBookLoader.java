@@ -1,13 +1,18 @@
 package com.putoet.mybooks.books.adapter.out.persistence.folder;
 
 import com.putoet.mybooks.books.domain.*;
-import org.ahocorasick.trie.Emit;
-import org.ahocorasick.trie.Trie;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.apache.tika.Tika;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -16,24 +21,85 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.time.Instant;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Class EpubBookLoader
  * Loads data from an EPUB file using Apache Tika and returns a Book entity. In case book data cannot be properly
- * extracted, the epub file could be 'repackaged' (unzipped and zipped again) which can do miracles ;-)
+ * extracted, the epub file could be 'repackaged' (rezipped) which can do miracles ;-) The repackaged archive is
+ * parsed directly, without writing it to the book folder.
  */
 public final class EpubBookLoader {
     public static final Logger log  = LoggerFactory.getLogger(EpubBookLoader.class);
     public static final int MAX_EPUB_LOAD_SIZE = 10_000_000;
 
+    private static final Timer keywordTimer = Timer.builder("mybooks.ingestion.keywords")
+            .description("Time spent matching keywords in the content of books")
+            .register(Metrics.globalRegistry);
+
     private EpubBookLoader() {}
 
+    /**
+     * Load the book from the file. When keywords are not needed, only the OPF metadata is read by the
+     * EpubMetadataReader. A full Tika parse is done when keywords are needed, or when the metadata could not be read.
+     * @param fileName String
+     * @param repair boolean - repackage the file when it cannot be parsed
+     * @param keywords boolean - extract keywords from the content of the book
+     * @return Book
+     */
+    public static Book bookForFile(String fileName, boolean repair, boolean keywords) {
+        return bookForFile(fileName, repair, keywords, new AuthorIndex());
+    }
+
+    /**
+     * Load the book from the file, with the canonical authors from the author index.
+     * @param fileName String
+     * @param repair boolean - repackage the file when it cannot be parsed
+     * @param keywords boolean - extract keywords from the content of the book
+     * @param authorIndex AuthorIndex - index of known authors, to which new authors are added
+     * @return Book
+     */
+    public static Book bookForFile(String fileName, boolean repair, boolean keywords, AuthorIndex authorIndex) {
+        if (keywords)
+            return bookForFile(fileName, repair, authorIndex);
+
+        return bookForMetadata(fileName, authorIndex).orElseGet(() -> {
+            log.info("Could not read metadata from '{}', parsing the book", fileName);
+            final var book = bookForFile(fileName, repair, authorIndex);
+            return new Book(book.id(), book.title(), book.authors(), Set.of(), book.formats());
+        });
+    }
+
+    public static Optional<Book> bookForMetadata(String fileName) {
+        return bookForMetadata(fileName, new AuthorIndex());
+    }
+
+    private static Optional<Book> bookForMetadata(String fileName, AuthorIndex authorIndex) {
+        try {
+            return EpubMetadataReader.read(Path.of(fileName))
+                    .filter(metadata -> metadata.title() != null)
+                    .map(metadata -> new Book(
+                            extractBookId(fileName, metadata.identifier()),
+                            metadata.title(),
+                            extractAuthors(metadata.creator(), authorIndex),
+                            Set.of(),
+                            Set.of(MimeTypes.EPUB)));
+        } catch (IOException exc) {
+            log.warn("Could not open '{}' as zip archive", fileName, exc);
+            return Optional.empty();
+        }
+    }
+
     public static Book bookForFile(String fileName, boolean repair) {
+        return bookForFile(fileName, repair, new AuthorIndex());
+    }
+
+    private static Book bookForFile(String fileName, boolean repair, AuthorIndex authorIndex) {
         try {
-            return bookForFile(fileName);
+            return bookForFile(fileName, authorIndex);
         } catch (IOException | NullPointerException exc) {
             if (!repair) {
                 log.error("Could not load book {}", fileName, exc);
@@ -41,35 +107,56 @@ public final class EpubBookLoader {
             }
         }
 
-        final Optional<String> temp = Rezipper.repackage(fileName);
-        if (temp.isEmpty())
-            throw new IllegalStateException("Could not repackage file " + fileName);
+        final var repackaged = Rezipper.repair(fileName)
+                .orElseThrow(() -> new IllegalStateException("Could not repackage file " + fileName));
 
-        log.warn("Repackaged '{}' into '{}'", fileName, temp.get());
-        return bookForFile(temp.get(), false);
+        try (repackaged; var is = repackaged.open()) {
+            log.warn("Repackaged '{}' ({} bytes {})", fileName, repackaged.size(), repackaged.inMemory() ? "in memory" : "in temp file");
+            return bookForStream(new Tika(), fileName, is, authorIndex, MAX_EPUB_LOAD_SIZE);
+        } catch (IOException | NullPointerException exc) {
+            log.error("Could not load repackaged book {}", fileName, exc);
+            throw new IllegalStateException(exc);
+        }
     }
 
     public static Book bookForFile(String fileName) throws IOException {
-        final var tika = new Tika();
-        final var mimeType = tika.detect(fileName);
+        return bookForFile(fileName, new AuthorIndex());
+    }
+
+    private static Book bookForFile(String fileName, AuthorIndex authorIndex) throws IOException {
+        return bookForFile(fileName, authorIndex, MAX_EPUB_LOAD_SIZE);
+    }
 
+    /*
+     * Load the book from the file, scanning at most maxLength characters of its content for keywords.
+     */
+    static Book bookForFile(String fileName, AuthorIndex authorIndex, long maxLength) throws IOException {
+        final var tika = new Tika();
         try (var is = new FileInputStream(fileName)) {
-            final var metadata = new org.apache.tika.metadata.Metadata();
-            final var data = loadData(tika, is, metadata);
+            return bookForStream(tika, fileName, is, authorIndex, maxLength);
+        }
+    }
+
+    private static Book bookForStream(Tika tika, String fileName, InputStream is, AuthorIndex authorIndex, long maxLength) {
+        final var mimeType = tika.detect(fileName);
+        final var metadata = new org.apache.tika.metadata.Metadata();
+        final var handler = new KeywordContentHandler(KeywordMatcher.instance().scanner(), maxLength);
+        final var keywords = loadKeywords(tika, is, metadata, handler);
 
-            checkForError(fileName, metadata);
+        checkForError(fileName, metadata);
 
-            final var bookId = extractBookId(fileName, metadata.get("dc:identifier"));
-            final var title = metadata.get("dc:title");
-            final var authors = extractAuthors(metadata.get("dc:creator"));
-            final var formats = Set.of(MimeTypes.toMimeType(mimeType));
-            final var keywords = data.isPresent() ? findKeywords(data.get()) : Set.<String>of();
+        final var bookId = extractBookId(fileName, metadata.get("dc:identifier"));
+        final var title = metadata.get("dc:title");
+        final var authors = extractAuthors(metadata.get("dc:creator"), authorIndex);
+        final var formats = Set.of(MimeTypes.toMimeType(mimeType));
 
-            return new Book(bookId, title, authors, keywords, formats);
-        }
+        return new Book(bookId, title, authors, keywords, formats);
     }
 
-    private static void checkForError(String fileName, Metadata metadata) {
+    /*
+     * Logs the exceptions recorded by Tika. The stop of the keyword scan is never recorded, as the parse ends on it.
+     */
+    static void checkForError(String fileName, Metadata metadata) {
         for (var key : metadata.names()) {
             if (key.startsWith("X-TIKA")) {
                 final var names = key.split(":");
@@ -85,27 +172,28 @@ public final class EpubBookLoader {
         }
     }
 
-    private static Optional<String> loadData(Tika tika, InputStream is, org.apache.tika.metadata.Metadata metadata) {
+    /*
+     * Streams the book content through the keyword matcher while parsing, so the text of the book is never held in
+     * memory as a whole. Metadata is collected by Tika into the provided metadata object along the way.
+     */
+    private static Set<String> loadKeywords(Tika tika, InputStream is, org.apache.tika.metadata.Metadata metadata,
+                                            KeywordContentHandler handler) {
+        final var parser = tika.getParser();
+        final var context = new ParseContext();
+        context.set(Parser.class, parser);
+
         try {
-            return Optional.of(tika.parseToString(is, metadata, MAX_EPUB_LOAD_SIZE));
-        } catch (TikaException | IOException e) {
-            log.error(e.getMessage(), e);
+            parser.parse(is, new BodyContentHandler(handler), metadata, context);
+        } catch (TikaException | SAXException | IOException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                log.error(e.getMessage(), e);
+                return Set.of();
+            }
         }
-        return Optional.empty();
-    }
-
-    private static Set<String> findKeywords(String data) {
-        return keywordTrie().parseText(data).stream()
-                .map(Emit::getKeyword)
-                .collect(Collectors.toSet());
-    }
 
-    private static Trie keywordTrie() {
-        final Trie.TrieBuilder builder = Trie.builder()
-                .onlyWholeWords()
-                .ignoreCase();
-        KeywordLoader.KEYWORD_SET.forEach(builder::addKeyword);
-        return builder.build();
+        final var keywords = handler.finish().keySet();
+        keywordTimer.record(handler.scanNanos(), TimeUnit.NANOSECONDS);
+        return keywords;
     }
 
     private static BookId extractBookId(String fileName, String identifier) {
@@ -145,7 +233,7 @@ public final class EpubBookLoader {
         return new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString());
     }
 
-    private static Set<Author> extractAuthors(String authors) {
+    private static Set<Author> extractAuthors(String authors, AuthorIndex authorIndex) {
         if (authors == null || authors.isBlank())
             return Set.of();
 
@@ -159,7 +247,7 @@ public final class EpubBookLoader {
         return Arrays.stream(authors.split(", "))
                 .filter(name -> !name.isBlank())
                 .map(EpubBookLoader::splitName)
-                .map(name -> new Author(AuthorId.withoutId(), Instant.now(), name, new HashMap<>()))
+                .map(authorIndex::canonical)
                 .collect(Collectors.toSet());
     }
 
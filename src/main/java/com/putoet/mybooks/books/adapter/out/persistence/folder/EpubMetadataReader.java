@@ -0,0 +1,144 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.ZipFile;
+
+/**
+ * Class EpubMetadataReader
+ * <p>
+ * Lightweight reader for the Dublin Core metadata of an EPUB file, without a full Tika parse of the book. The ZIP
+ * central directory is opened with random access, 'META-INF/container.xml' points to the OPF package document, and
+ * only the &lt;metadata&gt; block of the OPF is stream-parsed with StAX. Parsing stops at the end of the metadata
+ * block, so the manifest, spine and content of the book are never read.
+ * </p>
+ * <p>
+ * Like Tika, the first dc:title, dc:creator and dc:identifier found are returned.
+ * </p>
+ */
+public final class EpubMetadataReader {
+    public static final Logger log = LoggerFactory.getLogger(EpubMetadataReader.class);
+
+    private static final String CONTAINER = "META-INF/container.xml";
+    private static final String DC_NAMESPACE = "http://purl.org/dc/elements/1.1/";
+
+    private static final XMLInputFactory factory = xmlInputFactory();
+
+    /**
+     * Record EpubMetadata
+     * @param identifier String dc:identifier, or null
+     * @param title String dc:title, or null
+     * @param creator String dc:creator, or null
+     */
+    public record EpubMetadata(String identifier, String title, String creator) {}
+
+    private EpubMetadataReader() {}
+
+    private static XMLInputFactory xmlInputFactory() {
+        final var xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return xmlInputFactory;
+    }
+
+    /**
+     * Read the metadata of the EPUB file.
+     * @param file Path
+     * @return Optional of EpubMetadata, empty when the file has no container or OPF package document
+     * @throws IOException when the file is not a readable ZIP archive
+     */
+    public static Optional<EpubMetadata> read(Path file) throws IOException {
+        try (var zip = new ZipFile(file.toFile())) {
+            final var container = zip.getEntry(CONTAINER);
+            if (container == null) {
+                log.warn("No {} in '{}'", CONTAINER, file);
+                return Optional.empty();
+            }
+
+            final String opfPath;
+            try (var is = zip.getInputStream(container)) {
+                opfPath = rootFile(is);
+            }
+            if (opfPath == null) {
+                log.warn("No rootfile in {} of '{}'", CONTAINER, file);
+                return Optional.empty();
+            }
+
+            final var opf = zip.getEntry(opfPath);
+            if (opf == null) {
+                log.warn("OPF package document '{}' not found in '{}'", opfPath, file);
+                return Optional.empty();
+            }
+
+            try (var is = zip.getInputStream(opf)) {
+                return Optional.of(metadata(is));
+            }
+        } catch (XMLStreamException exc) {
+            log.warn("Could not read metadata from '{}'", file, exc);
+            return Optional.empty();
+        }
+    }
+
+    private static String rootFile(InputStream is) throws XMLStreamException {
+        final var reader = factory.createXMLStreamReader(is);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "rootfile".equals(reader.getLocalName()))
+                    return reader.getAttributeValue(null, "full-path");
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static EpubMetadata metadata(InputStream is) throws XMLStreamException {
+        final var reader = factory.createXMLStreamReader(is);
+        String identifier = null, title = null, creator = null;
+        var inMetadata = false;
+
+        try {
+            while (reader.hasNext()) {
+                final var event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final var name = reader.getLocalName();
+                    if ("metadata".equals(name)) {
+                        inMetadata = true;
+                    } else if (inMetadata && isDublinCore(reader)) {
+                        switch (name) {
+                            case "identifier" -> identifier = first(identifier, reader);
+                            case "title" -> title = first(title, reader);
+                            case "creator" -> creator = first(creator, reader);
+                            default -> { }
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "metadata".equals(reader.getLocalName())) {
+                    break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return new EpubMetadata(identifier, title, creator);
+    }
+
+    private static boolean isDublinCore(XMLStreamReader reader) {
+        return DC_NAMESPACE.equals(reader.getNamespaceURI()) || "dc".equals(reader.getPrefix());
+    }
+
+    private static String first(String current, XMLStreamReader reader) throws XMLStreamException {
+        final var text = reader.getElementText().trim();
+        return current != null || text.isEmpty() ? current : text;
+    }
+}
@@ -1,18 +1,18 @@
 package com.putoet.mybooks.books.adapter.out.persistence.folder;
 
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceQueryPort;
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
 import com.putoet.mybooks.books.domain.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.toMap;
-
 /**
  * class FolderRepository
  * <p>
@@ -22,71 +22,80 @@ import static java.util.stream.Collectors.toMap;
  * </p>
  * <p>
  * On startup the constructor recursively loads all books from root folder and its sub folders, and creates a hash map
- * with books (key = BookId) and authors (key = AuthorId) for search optimization only.
- * The root folder is 'walked' to search for all EPUB books using a parallel stream. After all EPUB file names have
- * been collected, the list is processed (again as parallel stream) to load all data from the books.
+ * with books (key = BookId) and authors (key = AuthorId) for search optimization only, and an index of the
+ * (sorted) books of each author, so books by author are found without scanning all books. Titles and author names
+ * are searched through a trigram index.
+ * The books are loaded by an IngestionPipeline, which discovers, reads and parses the EPUB files in stages on a
+ * bounded number of threads. The loaded books are merged into the maps by a single thread, in order of file name,
+ * so duplicate book ids are resolved the same way on every load.
+ * </p>
+ * <p>
+ * When a manifest file is provided in the options, books from files that did not change since the previous load are
+ * taken from the manifest, and only new or changed files are parsed. The manifest is saved after loading.
+ * When keywords are disabled in the options, only the metadata of the books is read, which avoids a full parse of
+ * every book.
+ * </p>
+ * <p>
+ * When a watch debounce period is provided in the options, the folder is watched for changes after loading. Each
+ * batch of changes only loads the affected files, and results in a new immutable snapshot of books, authors and
+ * files, which replaces the current one. Readers never block, and always see either the old or the new snapshot.
+ * Authors of new books are matched with the known authors in the AuthorIndex, so authors are not duplicated. Close
+ * the repository to stop watching.
+ * </p>
+ * <p>
+ * When a search index is provided in the options, all loaded books are indexed, and each batch of changes updates
+ * the index with the added, changed and removed books.
  * </p>
  */
-public class FolderBookRepository implements BookPersistenceQueryPort {
+public class FolderBookRepository implements BookPersistenceQueryPort, AutoCloseable {
     public static final Logger log = LoggerFactory.getLogger(FolderBookRepository.class);
 
     private final Path folder;
-    private final Map<AuthorId, Author> authors;
-    private final Map<BookId, Book> books;
+    private final FolderManifest manifest;
+    private final IngestionMetrics metrics;
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final IngestionPipeline pipeline;
+    private final FolderWatcher watcher;
+    private final BookSearchPort search;
+    private volatile FolderSnapshot snapshot;
 
     public FolderBookRepository(Path folder) {
-        log.info("FolderRepository({})", folder);
+        this(folder, FolderRepositoryOptions.defaults());
+    }
+
+    public FolderBookRepository(Path folder, FolderRepositoryOptions options) {
+        log.info("FolderRepository({}, {})", folder, options);
 
         Objects.requireNonNull(folder, "Book folder must be provided");
-        final var files = listEpubFiles(folder);
+        Objects.requireNonNull(options, "Folder repository options must be provided");
+        KeywordMatcher.reload();
 
+        final long start = System.currentTimeMillis();
         this.folder = folder;
-        this.books = booksForFiles(files);
-        this.authors = authorsForBooks(books);
-
-        deduplicateAuthors(books, authors);
-    }
-
-    private void deduplicateAuthors(Map<BookId, Book> books, Map<AuthorId, Author> authors) {
-        // Group authors by name
-        final var names = authors.values().stream()
-                .collect(Collectors.groupingBy(Author::name));
-
-        // For each book, check if the author is already in the group and if so,
-        // replace the author with the first author in the group.
-        // Use a separate list to go through, so the map can be updated along the way.
-        final var bookIds = new ArrayList<>(books.keySet());
-        for (final var id : bookIds) {
-            var book = books.get(id);
-            final var bookAuthors = book.authors();
-            for (var author : bookAuthors) {
-                final var authorGroup = names.get(author.name());
-
-                // If the author isn't the same as the first in the list, it's a duplicate
-                if (!author.id().equals(authorGroup.get(0).id())) {
-                    // create a new list of authors with the current one, replaced with the first in the group
-                    final var newAuthors = new HashSet<>(book.authors());
-                    newAuthors.remove(author);
-                    newAuthors.add(authorGroup.get(0));
-
-                    // put a new book in the map with the new authors
-                    book = new Book(book.id(), book.title(), newAuthors, book.keywords(), book.formats());
-                    books.put(book.id(), book);
-
-                    // remove the replaced author from the author map
-                    authors.remove(author.id());
-                }
-            }
-        }
-
-        for (var book : books.values()) {
-            for (var author : book.authors()) {
-                if (!authors.containsKey(author.id())) {
-                    System.out.printf("Author %s not found in authors, for book %s%n", author, book);
-                    System.out.printf("names: %s%n", names.get(author.name()));
-                }
-            }
-        }
+        this.manifest = options.manifestFile()
+                .map(file -> FolderManifest.load(file, options.keywords()))
+                .orElseGet(FolderManifest::none);
+        this.metrics = new IngestionMetrics(options.registry(), folder.toString());
+        this.pipeline = new IngestionPipeline(manifest, metrics, authorIndex, options.keywords(), options.concurrency());
+
+        final var loaded = pipeline.load(folder);
+        final var books = new HashMap<BookId, Book>();
+        final var files = new HashMap<String, BookId>();
+        metrics.merge(() -> merge(loaded, books, files, authorIndex, new HashSet<>()));
+        this.snapshot = FolderSnapshot.of(books, files);
+        this.search = options.searchIndex().orElse(null);
+        if (search != null)
+            search.index(books.values());
+
+        manifest.retain(files.keySet());
+        manifest.save();
+        log.info("Loaded {} books from {} files in {} ms ({} from manifest, {} parsed, {} failed)",
+                books.size(), loaded.size() + pipeline.failed(), System.currentTimeMillis() - start,
+                manifest.reused(), manifest.parsed(), pipeline.failed());
+
+        this.watcher = options.watchDebounce()
+                .map(debounce -> FolderWatcher.start(folder, debounce, this::apply))
+                .orElse(null);
     }
 
     public static Set<String> listEpubFiles(Path folder) {
@@ -102,99 +111,190 @@ public class FolderBookRepository implements BookPersistenceQueryPort {
         }
     }
 
-    protected static Map<BookId, Book> booksForFiles(Set<String> files) {
-        return files.parallelStream()
-                .map(filename -> EpubBookLoader.bookForFile(filename, true))
-                .reduce(new HashMap<>(),
-                        FolderBookRepository::addBookWithoutDuplicateIds,
-                        FolderBookRepository::addBookWithoutDuplicateIds
-                );
+    /*
+     * Merges the loaded books, in order of file name, into the books and files maps. This is only done by a single
+     * thread at a time (the constructor, or the synchronized apply). When two files contain the same book id, the
+     * book that owns the id first keeps it, and the loaded book gets a new id. So a book that was already in the files
+     * map (served before this merge) keeps its id, and ids held by clients keep resolving. Between loaded files, as on
+     * the initial load, the file with the (lexicographically) smallest name keeps the id. Books are loaded with
+     * canonical authors from the author index, which is checked again here for books from any source.
+     * The ids of all added and replaced books are added to touched.
+     */
+    private static void merge(SortedMap<String, Book> loaded, Map<BookId, Book> books, Map<String, BookId> files,
+                              AuthorIndex authorIndex, Set<BookId> touched) {
+        final var owners = new HashMap<BookId, String>();
+        files.forEach((file, id) -> owners.put(id, file));
+
+        loaded.forEach((file, loadedBook) -> {
+            var book = authorIndex.canonical(loadedBook);
+
+            final var owner = owners.get(book.id());
+            if (owner != null) {
+                log.warn("Duplicate id {} in '{}' and '{}', generated new book id for {}", book.id(), owner, file, book.title());
+                book = withNewId(book);
+            }
+
+            books.put(book.id(), book);
+            touched.add(book.id());
+            files.put(file, book.id());
+            owners.put(book.id(), file);
+        });
     }
 
-    private static HashMap<BookId, Book> addBookWithoutDuplicateIds(HashMap<BookId, Book> hashMap1, HashMap<BookId, Book> hashMap2) {
-        if (hashMap1 == hashMap2)
-            return hashMap1;
+    private static Book withNewId(Book book) {
+        return new Book(new BookId(), book.title(), book.authors(), book.keywords(), book.formats());
+    }
 
-        hashMap2.values().forEach(book -> addBookWithoutDuplicateIds(hashMap1, book));
+    /**
+     * Applies a batch of changes from the folder watcher. The new state is built on copies of the current maps, and
+     * published as a new snapshot when complete. Only the index entries of the authors of touched books are rebuilt.
+     * Batches are applied one at a time.
+     * @param changes FolderChanges
+     */
+    synchronized void apply(FolderChanges changes) {
+        log.debug("apply({})", changes);
+
+        final long start = System.currentTimeMillis();
+        final var current = snapshot;
+        final var books = new HashMap<>(current.books());
+        final var files = new HashMap<>(current.files());
+
+        final Set<String> changed;
+        final Set<String> deleted;
+        if (changes.overflow()) {
+            changed = listEpubFiles(folder);
+            deleted = new HashSet<>(files.keySet());
+            deleted.removeAll(changed);
+        } else {
+            changed = changes.changed();
+            deleted = changes.deleted();
+        }
 
-        return hashMap1;
-    }
+        final var touched = new HashSet<BookId>();
+        deleted.forEach(name -> removeFiles(name, books, files, touched));
+        changed.forEach(name -> removeFiles(name, books, files, touched));
 
-    private static HashMap<BookId, Book> addBookWithoutDuplicateIds(HashMap<BookId, Book> hashMap, Book book) {
-        if (hashMap.containsKey(book.id())) {
-            log.warn("Duplicate id {}, generated new book id for {}", book.id(), book.title());
-            book = new Book(new BookId(), book.title(), book.authors(), book.keywords(), book.formats());
+        final var loaded = pipeline.load(changed.stream()
+                .filter(name -> Files.isRegularFile(Path.of(name)))
+                .toList());
+        metrics.merge(() -> merge(loaded, books, files, authorIndex, touched));
+
+        snapshot = current.update(books, files, touched);
+        if (search != null) {
+            search.remove(touched.stream().filter(id -> !books.containsKey(id)).toList());
+            search.index(touched.stream().map(books::get).filter(Objects::nonNull).toList());
         }
-        hashMap.put(book.id(), book);
-        return hashMap;
+
+        manifest.retain(files.keySet());
+        manifest.save();
+        log.info("Applied changes to {} files and {} deletions in {} ms, loaded {} books",
+                changed.size(), deleted.size(), System.currentTimeMillis() - start, loaded.size());
     }
 
-    private Map<AuthorId, Author> authorsForBooks(Map<BookId, Book> books) {
+    private static void removeFiles(String name, Map<BookId, Book> books, Map<String, BookId> files,
+                                    Set<BookId> touched) {
+        final var id = files.remove(name);
+        if (id != null) {
+            books.remove(id);
+            touched.add(id);
+            return;
+        }
 
-        return books.values().parallelStream()
-                .flatMap(book -> book.authors().stream())
-                .collect(toMap(Author::id, author -> author));
+        // Not a known file, so it might be a deleted folder
+        final var prefix = name + File.separator;
+        final var removed = files.keySet().stream()
+                .filter(file -> file.startsWith(prefix))
+                .toList();
+        removed.forEach(file -> {
+            final var removedId = files.remove(file);
+            books.remove(removedId);
+            touched.add(removedId);
+        });
+    }
+
+    @Override
+    public void close() {
+        if (watcher != null)
+            watcher.close();
     }
 
     @Override
     public Set<Author> findAuthors() {
         log.info("findAuthors()");
 
-        return Authors.ordered(authors.values());
+        return Authors.ordered(snapshot.authors().values());
+    }
+
+    @Override
+    public Page<Author> findAuthors(AuthorCursor after, int limit) {
+        log.info("findAuthors('{}', {})", after, limit);
+
+        return snapshot.authorsAfter(after, limit);
     }
 
     @Override
     public Set<Author> findAuthorsByName(String name) {
         log.info("findAuthorsByName('{}')", name);
 
-        return Authors.ordered(
-                authors.values().parallelStream()
-                        .filter(author -> author.name().toLowerCase().contains(name.toLowerCase()))
-                        .collect(Collectors.toSet())
-        );
+        final var current = snapshot;
+        return Authors.ordered(current.names().search(name).stream()
+                .map(current.authors()::get)
+                .toList());
     }
 
     @Override
     public Author findAuthorById(AuthorId authorId) {
         log.info("findAuthorById('{}')", authorId);
 
-        return authors.get(authorId);
+        return snapshot.authors().get(authorId);
     }
 
     @Override
     public Set<Book> findBooks() {
         log.info("findBooks()");
 
-        return Books.ordered(books.values());
+        return Books.ordered(snapshot.books().values());
+    }
+
+    @Override
+    public Page<Book> findBooks(BookCursor after, int limit) {
+        log.info("findBooks('{}', {})", after, limit);
+
+        return snapshot.booksAfter(after, limit);
     }
 
     @Override
     public Set<Book> findBooksByTitle(String title) {
         log.info("findBooksByTitle('{}')", title);
 
-        return Books.ordered(
-                books.values().parallelStream()
-                        .filter(book -> book.title().toLowerCase().contains(title.toLowerCase()))
-                        .collect(Collectors.toSet())
-        );
+        final var current = snapshot;
+        return Books.ordered(current.titles().search(title).stream()
+                .map(current.books()::get)
+                .toList());
     }
 
     @Override
     public Book findBookById(BookId bookId) {
         log.info("findBookById('{}')", bookId);
 
-        return books.get(bookId);
+        return snapshot.books().get(bookId);
     }
 
     @Override
     public Set<Book> findBooksByAuthorId(AuthorId authorId) {
         log.info("findBooksByAuthorId('{}')", authorId);
 
-        return Books.ordered(
-                books.values().parallelStream()
-                        .filter(book -> book.authors().stream().anyMatch(author -> author.id().equals(authorId)))
-                        .collect(Collectors.toSet())
-        );
+        return snapshot.booksByAuthor().getOrDefault(authorId, Set.of());
+    }
+
+    @Override
+    public Set<Book> findBooksByAuthorIds(Collection<AuthorId> authorIds) {
+        log.info("findBooksByAuthorIds({} authors)", authorIds.size());
+
+        final var booksByAuthor = snapshot.booksByAuthor();
+        return Books.ordered(authorIds.stream()
+                .flatMap(authorId -> booksByAuthor.getOrDefault(authorId, Set.of()).stream())
+                .toList());
     }
 
     @Override
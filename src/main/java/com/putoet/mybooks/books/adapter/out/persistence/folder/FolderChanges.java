@@ -0,0 +1,21 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import java.util.Set;
+
+/**
+ * Record FolderChanges
+ * A batch of changes detected in a watched folder.
+ * @param changed Set of names of EPUB files that were created or modified
+ * @param deleted Set of names of deleted files or folders
+ * @param overflow boolean - events were lost, so the whole folder must be checked
+ */
+record FolderChanges(Set<String> changed, Set<String> deleted, boolean overflow) {
+    FolderChanges {
+        changed = Set.copyOf(changed);
+        deleted = Set.copyOf(deleted);
+    }
+
+    boolean isEmpty() {
+        return changed.isEmpty() && deleted.isEmpty() && !overflow;
+    }
+}
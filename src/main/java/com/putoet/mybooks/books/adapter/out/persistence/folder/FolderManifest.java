@@ -0,0 +1,280 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.domain.*;
+import jakarta.activation.MimeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class FolderManifest
+ * <p>
+ * On-disk manifest of the books loaded from a folder. For every EPUB file it stores the file size, modification time
+ * and a SHA-256 hash of the content, together with the Book extracted from the file. When the folder is loaded again,
+ * files that did not change are rehydrated from the manifest instead of being parsed by Tika.
+ * </p>
+ * <p>
+ * A file is considered unchanged when size and modification time are equal to the manifest entry. When only the
+ * modification time differs, the content hash decides. The manifest is read in one sequential pass, and written to a
+ * temporary file which replaces the manifest when complete, so a crash never leaves a corrupt manifest behind.
+ * </p>
+ */
+public final class FolderManifest {
+    public static final Logger log = LoggerFactory.getLogger(FolderManifest.class);
+
+    private static final int MAGIC = 0x4d424d46;
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final boolean keywords;
+    private final Map<String, Entry> entries;
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger parsed = new AtomicInteger();
+
+    record Entry(String path, long size, long modified, String hash, Book book) {}
+
+    private FolderManifest(Path file, boolean keywords, Map<String, Entry> entries) {
+        this.file = file;
+        this.keywords = keywords;
+        this.entries = entries;
+    }
+
+    /**
+     * A manifest that is never read from or written to disk, so all files will be parsed.
+     * @return FolderManifest
+     */
+    public static FolderManifest none() {
+        return new FolderManifest(null, true, new ConcurrentHashMap<>());
+    }
+
+    public static FolderManifest load(Path file) {
+        return load(file, true);
+    }
+
+    /**
+     * Load the manifest from file. Books in a manifest stored with a different keywords setting are not reused.
+     * @param file Path
+     * @param keywords boolean - books in the manifest must contain the keywords extracted from their content
+     * @return FolderManifest
+     */
+    public static FolderManifest load(Path file, boolean keywords) {
+        Objects.requireNonNull(file, "Manifest file must be provided");
+
+        final var entries = new ConcurrentHashMap<String, Entry>();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Manifest '{}' has an unknown format, and will be rebuilt", file);
+                return new FolderManifest(file, keywords, entries);
+            }
+            if (in.readBoolean() != keywords) {
+                log.info("Manifest '{}' was stored with keywords {}, and will be rebuilt", file, !keywords);
+                return new FolderManifest(file, keywords, entries);
+            }
+
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final var entry = readEntry(in);
+                entries.put(entry.path(), entry);
+            }
+        } catch (NoSuchFileException exc) {
+            log.info("No manifest '{}' found, all books will be parsed", file);
+        } catch (IOException | RuntimeException exc) {
+            log.warn("Could not read manifest '{}', all books will be parsed", file, exc);
+            entries.clear();
+        }
+
+        return new FolderManifest(file, keywords, entries);
+    }
+
+    /**
+     * Returns the book stored for the file, if the file did not change since it was stored.
+     * @param fileName String
+     * @return Optional of Book
+     */
+    public Optional<Book> book(String fileName) {
+        final var entry = entries.get(fileName);
+        if (entry == null)
+            return Optional.empty();
+
+        try {
+            final var path = Path.of(fileName);
+            final var size = Files.size(path);
+            final var modified = Files.getLastModifiedTime(path).toMillis();
+            if (entry.size() != size)
+                return Optional.empty();
+
+            if (entry.modified() != modified) {
+                final var hash = hash(path);
+                if (!entry.hash().equals(hash))
+                    return Optional.empty();
+
+                entries.put(fileName, new Entry(fileName, size, modified, hash, entry.book()));
+            }
+
+            reused.incrementAndGet();
+            return Optional.of(entry.book());
+        } catch (IOException exc) {
+            log.warn("Could not check manifest entry for '{}'", fileName, exc);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the book loaded from the file into the manifest.
+     * @param fileName String
+     * @param book Book
+     * @return Book the stored book
+     */
+    public Book put(String fileName, Book book) {
+        parsed.incrementAndGet();
+
+        if (file == null)
+            return book;
+
+        try {
+            final var path = Path.of(fileName);
+            entries.put(fileName, new Entry(fileName, Files.size(path), Files.getLastModifiedTime(path).toMillis(), hash(path), book));
+        } catch (IOException exc) {
+            log.warn("Could not add '{}' to the manifest", fileName, exc);
+        }
+        return book;
+    }
+
+    public void remove(String fileName) {
+        entries.remove(fileName);
+    }
+
+    /**
+     * Drops the entries for files that are no longer available.
+     * @param fileNames Set of file names still available
+     */
+    public void retain(Set<String> fileNames) {
+        entries.keySet().retainAll(fileNames);
+    }
+
+    public void save() {
+        if (file == null)
+            return;
+
+        try {
+            final var parent = file.toAbsolutePath().getParent();
+            if (parent != null)
+                Files.createDirectories(parent);
+
+            final var temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                final var snapshot = List.copyOf(entries.values());
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeBoolean(keywords);
+                out.writeInt(snapshot.size());
+                for (var entry : snapshot)
+                    writeEntry(out, entry);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved manifest '{}' with {} entries", file, entries.size());
+        } catch (IOException exc) {
+            log.error("Could not save manifest '{}'", file, exc);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return int number of books rehydrated from the manifest
+     */
+    public int reused() {
+        return reused.get();
+    }
+
+    /**
+     * @return int number of books parsed from file
+     */
+    public int parsed() {
+        return parsed.get();
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        out.writeUTF(entry.path());
+        out.writeLong(entry.size());
+        out.writeLong(entry.modified());
+        out.writeUTF(entry.hash());
+
+        final var book = entry.book();
+        out.writeUTF(book.id().schema().name());
+        out.writeUTF(book.id().id());
+        out.writeUTF(book.title());
+
+        out.writeInt(book.authors().size());
+        for (var author : book.authors()) {
+            out.writeUTF(author.id().uuid().toString());
+            out.writeLong(author.version().toEpochMilli());
+            out.writeUTF(author.name());
+        }
+
+        out.writeInt(book.keywords().size());
+        for (var keyword : book.keywords())
+            out.writeUTF(keyword);
+
+        out.writeInt(book.formats().size());
+        for (var format : book.formats())
+            out.writeUTF(format.toString());
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        final var path = in.readUTF();
+        final var size = in.readLong();
+        final var modified = in.readLong();
+        final var hash = in.readUTF();
+
+        final var bookId = new BookId(BookId.BookIdSchema.valueOf(in.readUTF()), in.readUTF());
+        final var title = in.readUTF();
+
+        final int authorCount = in.readInt();
+        final var authors = new HashSet<Author>(authorCount);
+        for (int i = 0; i < authorCount; i++)
+            authors.add(new Author(AuthorId.withId(in.readUTF()), Instant.ofEpochMilli(in.readLong()), in.readUTF(), Map.of()));
+
+        final int keywordCount = in.readInt();
+        final var keywords = new HashSet<String>(keywordCount);
+        for (int i = 0; i < keywordCount; i++)
+            keywords.add(in.readUTF());
+
+        final int formatCount = in.readInt();
+        final var formats = new HashSet<MimeType>(formatCount);
+        for (int i = 0; i < formatCount; i++)
+            formats.add(MimeTypes.toMimeType(in.readUTF()));
+
+        final var book = new Book(bookId, title, Set.copyOf(authors), Set.copyOf(keywords), Set.copyOf(formats));
+        return new Entry(path, size, modified, hash, book);
+    }
+
+    static String hash(Path path) throws IOException {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            final var buffer = new byte[BUFFER_SIZE];
+            try (var in = Files.newInputStream(path)) {
+                int length;
+                while ((length = in.read(buffer)) > 0)
+                    digest.update(buffer, 0, length);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException("SHA-256 not available", exc);
+        }
+    }
+}
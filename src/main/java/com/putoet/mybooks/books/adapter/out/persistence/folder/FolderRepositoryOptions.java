@@ -0,0 +1,69 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Record FolderRepositoryOptions
+ * Options on how the FolderBookRepository loads the books from its folder.
+ * @param manifest Path - file to store the ingestion manifest, or null to parse all books on every start
+ * @param watch Duration - debounce period to watch the folder for changes, or null to load the folder only once
+ * @param keywords boolean - extract keywords from the content of the books, which requires a full parse of each book
+ * @param concurrency int - maximum number of books parsed at the same time
+ * @param registry MeterRegistry - registry for the ingestion metrics, the global registry by default
+ * @param search BookSearchPort - search index to feed with the loaded (and changed) books, or null for no search index
+ */
+public record FolderRepositoryOptions(Path manifest, Duration watch, boolean keywords, int concurrency, MeterRegistry registry,
+                                      BookSearchPort search) {
+    public FolderRepositoryOptions {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be at least 1, but was " + concurrency);
+        Objects.requireNonNull(registry, "Meter registry must be provided");
+    }
+
+    public static FolderRepositoryOptions defaults() {
+        return new FolderRepositoryOptions(null, null, true, Runtime.getRuntime().availableProcessors(), Metrics.globalRegistry, null);
+    }
+
+    public FolderRepositoryOptions withManifest(Path manifest) {
+        return new FolderRepositoryOptions(manifest, watch, keywords, concurrency, registry, search);
+    }
+
+    public FolderRepositoryOptions withWatch(Duration debounce) {
+        return new FolderRepositoryOptions(manifest, debounce, keywords, concurrency, registry, search);
+    }
+
+    public FolderRepositoryOptions withKeywords(boolean keywords) {
+        return new FolderRepositoryOptions(manifest, watch, keywords, concurrency, registry, search);
+    }
+
+    public FolderRepositoryOptions withConcurrency(int concurrency) {
+        return new FolderRepositoryOptions(manifest, watch, keywords, concurrency, registry, search);
+    }
+
+    public FolderRepositoryOptions withRegistry(MeterRegistry registry) {
+        return new FolderRepositoryOptions(manifest, watch, keywords, concurrency, registry, search);
+    }
+
+    public FolderRepositoryOptions withSearchIndex(BookSearchPort search) {
+        return new FolderRepositoryOptions(manifest, watch, keywords, concurrency, registry, search);
+    }
+
+    public Optional<Path> manifestFile() {
+        return Optional.ofNullable(manifest);
+    }
+
+    public Optional<Duration> watchDebounce() {
+        return Optional.ofNullable(watch);
+    }
+
+    public Optional<BookSearchPort> searchIndex() {
+        return Optional.ofNullable(search);
+    }
+}
@@ -0,0 +1,194 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.domain.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Record FolderSnapshot
+ * Immutable state of the FolderBookRepository. Changes to the folder result in a new snapshot, which replaces the
+ * current one in a single write, so readers always see a consistent state without any locking.
+ * <p>
+ * The snapshot contains an inverted index of books by author. The books of each author are sorted (in the order of
+ * Books.ORDER) when the snapshot is created, so finding the books of an author takes no more than a map lookup.
+ * Book titles and author names are indexed in a TrigramIndex for substring search. All books and authors are also
+ * kept in lists, in the order of Books.ORDER and Authors.ORDER, for keyset pagination.
+ * </p>
+ * @param books Map of Book by BookId
+ * @param authors Map of Author by AuthorId
+ * @param booksByAuthor Map of the ordered Set of Book by AuthorId
+ * @param files Map of BookId by the name of the file the book was loaded from
+ * @param titles TrigramIndex of book titles
+ * @param names TrigramIndex of author names
+ * @param orderedBooks List of all books, in order
+ * @param orderedAuthors List of all authors, in order
+ */
+record FolderSnapshot(Map<BookId, Book> books, Map<AuthorId, Author> authors,
+                      Map<AuthorId, Set<Book>> booksByAuthor, Map<String, BookId> files,
+                      TrigramIndex<BookId> titles, TrigramIndex<AuthorId> names,
+                      List<Book> orderedBooks, List<Author> orderedAuthors) {
+    FolderSnapshot {
+        orderedBooks = Collections.unmodifiableList(orderedBooks);
+        orderedAuthors = Collections.unmodifiableList(orderedAuthors);
+        books = Collections.unmodifiableMap(books);
+        authors = Collections.unmodifiableMap(authors);
+        booksByAuthor = Collections.unmodifiableMap(booksByAuthor);
+        files = Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Create a snapshot for the books, with the authors and the index of books by author built in a single pass.
+     * @param books Map of Book by BookId
+     * @param files Map of BookId by file name
+     * @return FolderSnapshot
+     */
+    static FolderSnapshot of(Map<BookId, Book> books, Map<String, BookId> files) {
+        final var authors = new HashMap<AuthorId, Author>();
+        final var grouped = new HashMap<AuthorId, List<Book>>();
+        books.values().forEach(book -> book.authors().forEach(author -> {
+            authors.putIfAbsent(author.id(), author);
+            grouped.computeIfAbsent(author.id(), id -> new ArrayList<>()).add(book);
+        }));
+
+        final var booksByAuthor = new HashMap<AuthorId, Set<Book>>(grouped.size() * 2);
+        grouped.forEach((id, list) -> booksByAuthor.put(id, sorted(list)));
+
+        final var titles = new HashMap<BookId, String>(books.size() * 2);
+        books.forEach((id, book) -> titles.put(id, book.title()));
+        final var names = new HashMap<AuthorId, String>(authors.size() * 2);
+        authors.forEach((id, author) -> names.put(id, author.name()));
+
+        final var orderedBooks = new ArrayList<>(books.values());
+        orderedBooks.sort(Books.ORDER);
+        final var orderedAuthors = new ArrayList<>(authors.values());
+        orderedAuthors.sort(Authors.ORDER);
+
+        return new FolderSnapshot(books, authors, booksByAuthor, files, TrigramIndex.of(titles), TrigramIndex.of(names),
+                orderedBooks, orderedAuthors);
+    }
+
+    /**
+     * Create the next snapshot, for the books after a change. Only the authors of the touched books (before and
+     * after the change) are updated, the index entries of all other authors are shared with this snapshot. The same
+     * goes for the title and name indexes, which only update the touched books and the added or removed authors.
+     * @param books Map of Book by BookId, after the change
+     * @param files Map of BookId by file name, after the change
+     * @param touched Set of BookId of the books that were added, removed or replaced
+     * @return FolderSnapshot
+     */
+    FolderSnapshot update(Map<BookId, Book> books, Map<String, BookId> files, Set<BookId> touched) {
+        final var grouped = new HashMap<AuthorId, List<Book>>();
+        touched.forEach(id -> {
+            addAuthors(this.books.get(id), grouped);
+            addAuthors(books.get(id), grouped);
+        });
+        grouped.forEach((authorId, list) -> booksByAuthor.getOrDefault(authorId, Set.of()).stream()
+                .filter(book -> !touched.contains(book.id()))
+                .forEach(list::add));
+        touched.forEach(id -> {
+            final var book = books.get(id);
+            if (book != null)
+                book.authors().forEach(author -> grouped.get(author.id()).add(book));
+        });
+
+        final var nextAuthors = new HashMap<>(this.authors);
+        final var nextBooksByAuthor = new HashMap<>(this.booksByAuthor);
+        final var removedNames = new HashSet<AuthorId>();
+        final var addedNames = new HashMap<AuthorId, String>();
+        grouped.forEach((authorId, list) -> {
+            if (list.isEmpty()) {
+                if (nextAuthors.remove(authorId) != null)
+                    removedNames.add(authorId);
+                nextBooksByAuthor.remove(authorId);
+            } else {
+                if (!nextAuthors.containsKey(authorId)) {
+                    final var author = author(list.get(0), authorId);
+                    nextAuthors.put(authorId, author);
+                    addedNames.put(authorId, author.name());
+                }
+                nextBooksByAuthor.put(authorId, sorted(list));
+            }
+        });
+
+        final var addedBooks = new HashMap<BookId, Book>();
+        final var addedTitles = new HashMap<BookId, String>();
+        touched.forEach(id -> {
+            final var book = books.get(id);
+            if (book != null) {
+                addedBooks.put(id, book);
+                addedTitles.put(id, book.title());
+            }
+        });
+
+        // The lists are nearly sorted after removing and appending the changes, which is a linear sort
+        final var nextOrderedBooks = new ArrayList<Book>(books.size());
+        orderedBooks.stream().filter(book -> !touched.contains(book.id())).forEach(nextOrderedBooks::add);
+        nextOrderedBooks.addAll(addedBooks.values());
+        nextOrderedBooks.sort(Books.ORDER);
+
+        final var nextOrderedAuthors = new ArrayList<Author>(nextAuthors.size());
+        orderedAuthors.stream().filter(author -> !removedNames.contains(author.id())).forEach(nextOrderedAuthors::add);
+        addedNames.keySet().forEach(id -> nextOrderedAuthors.add(nextAuthors.get(id)));
+        nextOrderedAuthors.sort(Authors.ORDER);
+
+        return new FolderSnapshot(books, nextAuthors, nextBooksByAuthor, files,
+                titles.update(touched, addedTitles), names.update(removedNames, addedNames),
+                nextOrderedBooks, nextOrderedAuthors);
+    }
+
+    /**
+     * Page of books, starting after the cursor.
+     * @param after BookCursor, or null for the first page
+     * @param limit int - maximum number of books
+     * @return Page of Book
+     */
+    Page<Book> booksAfter(BookCursor after, int limit) {
+        return page(orderedBooks, after == null ? book -> true : after::isBefore, limit, BookCursor::encode);
+    }
+
+    /**
+     * Page of authors, starting after the cursor.
+     * @param after AuthorCursor, or null for the first page
+     * @param limit int - maximum number of authors
+     * @return Page of Author
+     */
+    Page<Author> authorsAfter(AuthorCursor after, int limit) {
+        return page(orderedAuthors, after == null ? author -> true : after::isBefore, limit, AuthorCursor::encode);
+    }
+
+    /*
+     * Page from an ordered list, starting at the first item after the cursor, which is found with a binary search.
+     */
+    private static <T> Page<T> page(List<T> ordered, Predicate<T> afterCursor, int limit, Function<T, String> cursor) {
+        int low = 0;
+        int high = ordered.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (afterCursor.test(ordered.get(middle)))
+                high = middle;
+            else
+                low = middle + 1;
+        }
+
+        return Page.of(ordered.subList(low, Math.min(ordered.size(), low + limit + 1)), limit, cursor);
+    }
+
+    private static void addAuthors(Book book, Map<AuthorId, List<Book>> grouped) {
+        if (book != null)
+            book.authors().forEach(author -> grouped.computeIfAbsent(author.id(), id -> new ArrayList<>()));
+    }
+
+    private static Author author(Book book, AuthorId authorId) {
+        return book.authors().stream()
+                .filter(author -> author.id().equals(authorId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Set<Book> sorted(List<Book> books) {
+        books.sort(Books.ORDER);
+        return Collections.unmodifiableSet(new LinkedHashSet<>(books));
+    }
+}
@@ -0,0 +1,186 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Class FolderWatcher
+ * <p>
+ * Watches a folder and its sub folders for created, modified and deleted files, using a WatchService. Events are
+ * collected until the folder has been quiet for the debounce period (or for at most ten times that period while
+ * events keep coming in), and are then passed as a single FolderChanges batch to the listener. Multiple events on
+ * the same file within a batch are merged, so a file that is copied in several writes is only reported once.
+ * </p>
+ * <p>
+ * The listener is called from the watcher thread, one batch at a time.
+ * </p>
+ */
+public final class FolderWatcher implements AutoCloseable {
+    public static final Logger log = LoggerFactory.getLogger(FolderWatcher.class);
+
+    private static final int MAX_DELAY_FACTOR = 10;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Path folder;
+    private final Duration debounce;
+    private final Consumer<FolderChanges> listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private final Thread thread;
+
+    private FolderWatcher(Path folder, Duration debounce, Consumer<FolderChanges> listener) throws IOException {
+        this.folder = folder;
+        this.debounce = debounce;
+        this.listener = listener;
+        this.watchService = folder.getFileSystem().newWatchService();
+        this.thread = new Thread(this::run, "folder-watcher-" + folder.getFileName());
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start watching the folder and its sub folders.
+     * @param folder Path
+     * @param debounce Duration - quiet period before a batch of changes is passed to the listener
+     * @param listener Consumer of FolderChanges
+     * @return FolderWatcher - close to stop watching
+     */
+    public static FolderWatcher start(Path folder, Duration debounce, Consumer<FolderChanges> listener) {
+        Objects.requireNonNull(folder, "Watch folder must be provided");
+        Objects.requireNonNull(debounce, "Debounce period must be provided");
+        Objects.requireNonNull(listener, "Change listener must be provided");
+
+        try {
+            final var watcher = new FolderWatcher(folder, debounce, listener);
+            watcher.registerAll(folder);
+            watcher.thread.start();
+            log.info("Watching folder '{}' with a debounce of {} ms", folder, debounce.toMillis());
+            return watcher;
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Could not watch folder " + folder, exc);
+        }
+    }
+
+    private Set<Path> registerAll(Path start) throws IOException {
+        final var files = new HashSet<Path>();
+        try (var stream = Files.walk(start)) {
+            for (var path : (Iterable<Path>) stream::iterator) {
+                if (Files.isDirectory(path))
+                    keys.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+                else
+                    files.add(path);
+            }
+        }
+        return files;
+    }
+
+    private void run() {
+        final var pending = new HashMap<Path, Boolean>();
+        var overflow = false;
+        var firstEvent = 0L;
+
+        while (true) {
+            final WatchKey key;
+            try {
+                if (pending.isEmpty() && !overflow) {
+                    key = watchService.take();
+                    firstEvent = System.nanoTime();
+                } else {
+                    key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException exc) {
+                log.info("Stopped watching folder '{}'", folder);
+                return;
+            }
+
+            if (key != null) {
+                overflow |= collect(key, pending);
+                if (System.nanoTime() - firstEvent < debounce.toNanos() * MAX_DELAY_FACTOR)
+                    continue;
+            }
+
+            dispatch(pending, overflow);
+            pending.clear();
+            overflow = false;
+        }
+    }
+
+    private boolean collect(WatchKey key, Map<Path, Boolean> pending) {
+        var overflow = false;
+        final var dir = keys.get(key);
+
+        for (var event : key.pollEvents()) {
+            final var kind = event.kind();
+            if (kind == OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+
+            final var path = dir.resolve((Path) event.context());
+            if (kind == ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerAll(path).forEach(file -> pending.put(file, false));
+                } catch (IOException exc) {
+                    log.warn("Could not watch new folder '{}'", path, exc);
+                    overflow = true;
+                }
+            } else {
+                pending.put(path, kind == ENTRY_DELETE);
+            }
+        }
+
+        if (!key.reset())
+            keys.remove(key);
+
+        return overflow;
+    }
+
+    private void dispatch(Map<Path, Boolean> pending, boolean overflow) {
+        final var changed = pending.entrySet().stream()
+                .filter(entry -> !entry.getValue())
+                .map(entry -> entry.getKey().toString())
+                .filter(name -> name.toLowerCase().endsWith(".epub"))
+                .collect(Collectors.toSet());
+        final var deleted = pending.entrySet().stream()
+                .filter(Map.Entry::getValue)
+                .map(entry -> entry.getKey().toString())
+                .collect(Collectors.toSet());
+
+        final var changes = new FolderChanges(changed, deleted, overflow);
+        if (changes.isEmpty())
+            return;
+
+        log.debug("dispatch({})", changes);
+        try {
+            listener.accept(changes);
+        } catch (RuntimeException exc) {
+            log.error("Failed to process changes in folder '{}'", folder, exc);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException exc) {
+            log.warn("Could not close watch service for folder '{}'", folder, exc);
+        }
+
+        try {
+            thread.join(CLOSE_TIMEOUT.toMillis());
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import io.micrometer.core.instrument.*;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Class IngestionMetrics
+ * <p>
+ * Micrometer metrics on loading books from a folder, per ingestion stage:
+ * <ul>
+ *     <li>mybooks.ingestion.import - long task timer, active while a folder (or a batch of changes) is loaded</li>
+ *     <li>mybooks.ingestion.discover - timer on walking the folder, and counter of discovered files</li>
+ *     <li>mybooks.ingestion.read - timer on the manifest lookup, with counter of manifest hits and misses</li>
+ *     <li>mybooks.ingestion.parse - timer per parsed book, tagged with the outcome (success or failure)</li>
+ *     <li>mybooks.ingestion.bytes - distribution summary of the size of parsed files</li>
+ *     <li>mybooks.ingestion.failures - counter of failed files, tagged with the cause</li>
+ *     <li>mybooks.ingestion.merge - timer on merging loaded books into the repository, including author matching</li>
+ *     <li>mybooks.ingestion.files / mybooks.ingestion.progress - gauges on the number of discovered and completed
+ *     files, and the completed ratio, tagged with the folder</li>
+ * </ul>
+ * Keyword matching and repair of damaged files are measured by the (static) EpubBookLoader and Rezipper, as
+ * mybooks.ingestion.keywords and mybooks.ingestion.repairs on the global registry.
+ * </p>
+ * <p>
+ * With Spring Boot actuator, the metrics on the global registry are available through the metrics endpoint.
+ * </p>
+ */
+public final class IngestionMetrics {
+    private static final String PREFIX = "mybooks.ingestion.";
+
+    private final MeterRegistry registry;
+    private final LongTaskTimer importTimer;
+    private final Timer discoverTimer;
+    private final Counter discovered;
+    private final Timer readTimer;
+    private final Counter manifestHits;
+    private final Counter manifestMisses;
+    private final DistributionSummary bytes;
+    private final Timer mergeTimer;
+
+    private final AtomicLong filesDiscovered = new AtomicLong();
+    private final AtomicLong filesCompleted = new AtomicLong();
+
+    public IngestionMetrics(MeterRegistry registry, String folder) {
+        Objects.requireNonNull(registry, "Meter registry must be provided");
+        Objects.requireNonNull(folder, "Folder must be provided");
+
+        this.registry = registry;
+        this.importTimer = LongTaskTimer.builder(PREFIX + "import")
+                .description("Active folder imports")
+                .register(registry);
+        this.discoverTimer = Timer.builder(PREFIX + "discover")
+                .description("Time to walk the folder for EPUB files")
+                .register(registry);
+        this.discovered = Counter.builder(PREFIX + "discovered")
+                .description("EPUB files discovered")
+                .register(registry);
+        this.readTimer = Timer.builder(PREFIX + "read")
+                .description("Time to look up files in the manifest")
+                .register(registry);
+        this.manifestHits = Counter.builder(PREFIX + "manifest")
+                .description("Manifest lookups")
+                .tag("result", "hit")
+                .register(registry);
+        this.manifestMisses = Counter.builder(PREFIX + "manifest")
+                .description("Manifest lookups")
+                .tag("result", "miss")
+                .register(registry);
+        this.bytes = DistributionSummary.builder(PREFIX + "bytes")
+                .description("Size of parsed EPUB files")
+                .baseUnit("bytes")
+                .register(registry);
+        this.mergeTimer = Timer.builder(PREFIX + "merge")
+                .description("Time to merge loaded books, and match their authors")
+                .register(registry);
+
+        // Gauges of a previous repository on the same folder would keep reporting its (stale) progress
+        registry.find(PREFIX + "files").tag("folder", folder).meters().forEach(registry::remove);
+        registry.find(PREFIX + "progress").tag("folder", folder).meters().forEach(registry::remove);
+
+        Gauge.builder(PREFIX + "files", filesDiscovered, AtomicLong::get)
+                .description("Files discovered in the current import")
+                .tags("folder", folder, "state", "discovered")
+                .register(registry);
+        Gauge.builder(PREFIX + "files", filesCompleted, AtomicLong::get)
+                .description("Files completed in the current import")
+                .tags("folder", folder, "state", "completed")
+                .register(registry);
+        Gauge.builder(PREFIX + "progress", this, IngestionMetrics::progress)
+                .description("Ratio of completed to discovered files in the current import")
+                .tag("folder", folder)
+                .register(registry);
+    }
+
+    public static IngestionMetrics global(String folder) {
+        return new IngestionMetrics(Metrics.globalRegistry, folder);
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Start an import, which resets the progress.
+     * @return LongTaskTimer.Sample - stop when the import is done
+     */
+    LongTaskTimer.Sample startImport() {
+        filesDiscovered.set(0);
+        filesCompleted.set(0);
+        return importTimer.start();
+    }
+
+    void discovered() {
+        discovered.increment();
+        filesDiscovered.incrementAndGet();
+    }
+
+    void discoverTime(Duration duration) {
+        discoverTimer.record(duration);
+    }
+
+    <T> T read(Supplier<T> lookup) {
+        return readTimer.record(lookup);
+    }
+
+    void manifestHit() {
+        manifestHits.increment();
+        filesCompleted.incrementAndGet();
+    }
+
+    void manifestMiss() {
+        manifestMisses.increment();
+    }
+
+    Timer.Sample startParse(long fileSize) {
+        bytes.record(fileSize);
+        return Timer.start(registry);
+    }
+
+    void parsed(Timer.Sample sample) {
+        sample.stop(parseTimer("success"));
+        filesCompleted.incrementAndGet();
+    }
+
+    void failed(Timer.Sample sample, Throwable cause) {
+        sample.stop(parseTimer("failure"));
+        failed(cause);
+    }
+
+    /**
+     * A file that failed before it was parsed, such as a book from the manifest that could not be used.
+     * @param cause Throwable
+     */
+    void failed(Throwable cause) {
+        filesCompleted.incrementAndGet();
+
+        var root = cause;
+        while (root.getCause() != null && root.getCause() != root)
+            root = root.getCause();
+
+        Counter.builder(PREFIX + "failures")
+                .description("Files that could not be loaded")
+                .tag("cause", root.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    void merge(Runnable merge) {
+        mergeTimer.record(merge);
+    }
+
+    /**
+     * @return double ratio of completed files to discovered files, 1.0 when nothing was discovered
+     */
+    public double progress() {
+        final var total = filesDiscovered.get();
+        return total == 0 ? 1.0 : (double) filesCompleted.get() / total;
+    }
+
+    private Timer parseTimer(String outcome) {
+        return Timer.builder(PREFIX + "parse")
+                .description("Time to parse an EPUB file, including keyword matching and repair")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
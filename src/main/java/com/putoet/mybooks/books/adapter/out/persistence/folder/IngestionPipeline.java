@@ -0,0 +1,254 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.domain.AuthorIndex;
+import com.putoet.mybooks.books.domain.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Class IngestionPipeline
+ * <p>
+ * Loads books from EPUB files in explicit stages, connected by bounded queues:
+ * <ol>
+ *     <li>discover - walks the folder (or the given list of files) for EPUB files</li>
+ *     <li>read - takes books of unchanged files from the manifest, and passes the other files on to be parsed</li>
+ *     <li>parse - parses the files and matches keywords in their content (both in a single streaming pass)</li>
+ *     <li>merge - collects the loaded books on the calling thread, which is the only writer of the result</li>
+ * </ol>
+ * When a stage can't keep up, the queue in front of it fills up, and the stages before it block until there is room
+ * again, so memory use is bounded however large the folder is. The number of threads for the CPU-bound parse stage
+ * is limited by the concurrency provided at construction. Files that fail to load are logged and skipped.
+ * Authors are looked up in the shared AuthorIndex while loading, so every book is built with its canonical authors.
+ * </p>
+ * <p>
+ * The result is sorted by file name, so the merge of the result into the repository is deterministic, independent
+ * of the order in which the books were loaded.
+ * </p>
+ */
+final class IngestionPipeline {
+    public static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    private static final int QUEUE_CAPACITY_FACTOR = 4;
+
+    // Markers for the end of a queue, compared by identity
+    private static final String END = new String("END");
+    private static final Loaded DONE = new Loaded(null, null);
+
+    private record Loaded(String file, Book book) {}
+
+    @FunctionalInterface
+    private interface FileSource {
+        void forEach(Consumer<String> consumer) throws IOException;
+    }
+
+    private final FolderManifest manifest;
+    private final IngestionMetrics metrics;
+    private final AuthorIndex authorIndex;
+    private final boolean keywords;
+    private final int concurrency;
+    private final int capacity;
+    private final AtomicInteger failed = new AtomicInteger();
+
+    IngestionPipeline(FolderManifest manifest, IngestionMetrics metrics, AuthorIndex authorIndex, boolean keywords, int concurrency) {
+        Objects.requireNonNull(manifest, "Manifest must be provided");
+        Objects.requireNonNull(metrics, "Ingestion metrics must be provided");
+        Objects.requireNonNull(authorIndex, "Author index must be provided");
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be at least 1, but was " + concurrency);
+
+        this.manifest = manifest;
+        this.metrics = metrics;
+        this.authorIndex = authorIndex;
+        this.keywords = keywords;
+        this.concurrency = concurrency;
+        this.capacity = concurrency * QUEUE_CAPACITY_FACTOR;
+    }
+
+    /**
+     * Load all books from EPUB files in the folder and its sub folders.
+     * @param folder Path
+     * @return SortedMap of Book by file name
+     */
+    SortedMap<String, Book> load(Path folder) {
+        return run(consumer -> {
+            try (var stream = Files.walk(folder)) {
+                stream.filter(Files::isRegularFile)
+                        .map(Path::toString)
+                        .filter(name -> name.toLowerCase().endsWith(".epub"))
+                        .forEach(consumer);
+            } catch (IOException | RuntimeException exc) {
+                throw new IllegalArgumentException("Could not list books from " + folder.getFileName(), exc);
+            }
+        });
+    }
+
+    /**
+     * Load the books from the given files.
+     * @param files Collection of file names
+     * @return SortedMap of Book by file name
+     */
+    SortedMap<String, Book> load(Collection<String> files) {
+        return run(files::forEach);
+    }
+
+    /**
+     * @return int number of files that could not be loaded
+     */
+    int failed() {
+        return failed.get();
+    }
+
+    private SortedMap<String, Book> run(FileSource source) {
+        final var discovered = new ArrayBlockingQueue<String>(capacity);
+        final var toParse = new ArrayBlockingQueue<String>(capacity);
+        final var merged = new ArrayBlockingQueue<Loaded>(capacity);
+        final var failure = new AtomicReference<RuntimeException>();
+
+        final var executor = Executors.newFixedThreadPool(concurrency + 2, threadFactory());
+        final var sample = metrics.startImport();
+        try {
+            executor.execute(() -> discover(source, discovered, failure));
+            executor.execute(() -> read(discovered, toParse, merged));
+            for (int i = 0; i < concurrency; i++)
+                executor.execute(() -> parse(toParse, merged));
+
+            final var result = merge(merged);
+            if (failure.get() != null)
+                throw failure.get();
+
+            return result;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading books", exc);
+        } finally {
+            executor.shutdownNow();
+            sample.stop();
+        }
+    }
+
+    private void discover(FileSource source, BlockingQueue<String> discovered, AtomicReference<RuntimeException> failure) {
+        final long start = System.nanoTime();
+        try {
+            source.forEach(file -> {
+                metrics.discovered();
+                put(discovered, file);
+            });
+        } catch (IOException | RuntimeException exc) {
+            failure.set(exc instanceof RuntimeException runtime ? runtime : new IllegalArgumentException(exc));
+        } finally {
+            metrics.discoverTime(Duration.ofNanos(System.nanoTime() - start));
+            put(discovered, END);
+        }
+    }
+
+    private void read(BlockingQueue<String> discovered, BlockingQueue<String> toParse, BlockingQueue<Loaded> merged) {
+        try {
+            for (var file = take(discovered); file != END; file = take(discovered)) {
+                final var name = file;
+                final Optional<Book> book;
+                try {
+                    book = metrics.read(() -> manifest.book(name)).map(authorIndex::canonical);
+                } catch (RuntimeException exc) {
+                    failed.incrementAndGet();
+                    metrics.failed(exc);
+                    log.error("Could not load book from '{}'", name, exc);
+                    continue;
+                }
+
+                if (book.isPresent()) {
+                    metrics.manifestHit();
+                    put(merged, new Loaded(name, book.get()));
+                } else {
+                    metrics.manifestMiss();
+                    put(toParse, name);
+                }
+            }
+        } finally {
+            for (int i = 0; i < concurrency; i++)
+                put(toParse, END);
+            put(merged, DONE);
+        }
+    }
+
+    private void parse(BlockingQueue<String> toParse, BlockingQueue<Loaded> merged) {
+        try {
+            for (var file = take(toParse); file != END; file = take(toParse)) {
+                final var sample = metrics.startParse(fileSize(file));
+                final Book book;
+                try {
+                    book = manifest.put(file, EpubBookLoader.bookForFile(file, true, keywords, authorIndex));
+                    metrics.parsed(sample);
+                } catch (RuntimeException exc) {
+                    failed.incrementAndGet();
+                    metrics.failed(sample, exc);
+                    log.error("Could not load book from '{}'", file, exc);
+                    continue;
+                }
+                put(merged, new Loaded(file, book));
+            }
+        } finally {
+            put(merged, DONE);
+        }
+    }
+
+    private SortedMap<String, Book> merge(BlockingQueue<Loaded> merged) throws InterruptedException {
+        final var result = new TreeMap<String, Book>();
+
+        // One DONE from the read stage, and one from every parse thread
+        var done = 0;
+        while (done < concurrency + 1) {
+            final var loaded = merged.take();
+            if (loaded == DONE)
+                done++;
+            else
+                result.put(loaded.file(), loaded.book());
+        }
+
+        return result;
+    }
+
+    private static long fileSize(String file) {
+        try {
+            return Files.size(Path.of(file));
+        } catch (IOException exc) {
+            return 0;
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Book loading was cancelled");
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Book loading was cancelled");
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        final var count = new AtomicInteger();
+        return runnable -> {
+            final var thread = new Thread(runnable, "book-ingestion-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class KeywordContentHandler
+ * SAX content handler that feeds the text of a document straight into a keyword scanner, instead of collecting the
+ * full text into a String first. Parsing is stopped as soon as all keywords have been found, or when the maximum
+ * number of characters has been read. The stop is thrown as a WriteLimitReachedException, as that is the only
+ * exception the EPUB parser of Tika passes on, instead of recording it and going on with the next content document.
+ */
+final class KeywordContentHandler extends DefaultHandler {
+    private final KeywordMatcher.Scanner scanner;
+    private final long maxLength;
+    private long length;
+    private long scanNanos;
+    private boolean stopped;
+
+    KeywordContentHandler(KeywordMatcher.Scanner scanner, long maxLength) {
+        this.scanner = Objects.requireNonNull(scanner, "Keyword scanner must be provided");
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        scan(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        scan(ch, start, length);
+    }
+
+    /**
+     * Parsing was stopped by this handler, so an exception thrown by the parser is not an error.
+     * @return boolean
+     */
+    boolean stopped() {
+        return stopped;
+    }
+
+    Map<String, Integer> finish() {
+        final long start = System.nanoTime();
+        final var found = scanner.finish();
+        scanNanos += System.nanoTime() - start;
+        return found;
+    }
+
+    /**
+     * @return long time spent in keyword matching, in nanoseconds
+     */
+    long scanNanos() {
+        return scanNanos;
+    }
+
+    private void scan(char[] ch, int start, int length) throws SAXException {
+        if (stopped)
+            throw new ScanCompleteException(maxLength);
+
+        final int count = (int) Math.min(length, maxLength - this.length);
+        final long scanStart = System.nanoTime();
+        scanner.append(ch, start, count);
+        scanNanos += System.nanoTime() - scanStart;
+        this.length += count;
+
+        if (this.length >= maxLength || scanner.allFound()) {
+            stopped = true;
+            throw new ScanCompleteException(maxLength);
+        }
+    }
+
+    static final class ScanCompleteException extends WriteLimitReachedException {
+        ScanCompleteException(long maxLength) {
+            super((int) Math.min(maxLength, Integer.MAX_VALUE));
+        }
+
+        @Override
+        public String getMessage() {
+            return "Keyword scan complete";
+        }
+    }
+}
@@ -19,6 +19,14 @@ public final class KeywordLoader {
 
     private KeywordLoader() {}
 
+    /**
+     * Reads the keyword resource again, which enables picking up a changed keyword list without a restart.
+     * @return Set of keywords as currently available in the keyword resource
+     */
+    public static Set<String> loadKeywords() {
+        return loadKeywords(KEYWORD);
+    }
+
     private static Set<String> loadKeywords(String keyword) {
         final Path path;
         try {
@@ -0,0 +1,176 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.ahocorasick.trie.Emit;
+import org.ahocorasick.trie.Trie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Class KeywordMatcher
+ * Compiled Aho-Corasick automaton for the keyword dictionary. The automaton is built once and never modified after
+ * construction, so a single instance can be shared by all threads loading books.
+ * <p>
+ * The active matcher can be swapped at runtime (e.g. after the keywords resource has changed). Books already being
+ * scanned finish with the matcher they started with, new scans pick up the new one.
+ * </p>
+ */
+public final class KeywordMatcher {
+    public static final Logger log = LoggerFactory.getLogger(KeywordMatcher.class);
+
+    private static final int SCAN_CHUNK_SIZE = 64 * 1024;
+    private static final AtomicReference<KeywordMatcher> active = new AtomicReference<>(new KeywordMatcher(KeywordLoader.KEYWORD_SET));
+
+    private final Set<String> keywords;
+    private final int maxKeywordLength;
+    private final Trie trie;
+
+    KeywordMatcher(Collection<String> keywords) {
+        Objects.requireNonNull(keywords, "Keywords must be provided");
+
+        // the trie ignores case, and reports matches on the lower case version of the keyword
+        this.keywords = keywords.stream()
+                .filter(keyword -> !keyword.isBlank())
+                .map(keyword -> keyword.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxKeywordLength = this.keywords.stream().mapToInt(String::length).max().orElse(0);
+
+        final Trie.TrieBuilder builder = Trie.builder()
+                .onlyWholeWords()
+                .ignoreCase();
+        this.keywords.forEach(builder::addKeyword);
+        this.trie = builder.build();
+    }
+
+    public static KeywordMatcher instance() {
+        return active.get();
+    }
+
+    /**
+     * Compiles a matcher for the given keywords and makes it the active matcher.
+     * @param keywords Collection of keywords
+     * @return KeywordMatcher the new active matcher
+     */
+    public static KeywordMatcher swap(Collection<String> keywords) {
+        final var matcher = new KeywordMatcher(keywords);
+        active.set(matcher);
+        log.info("Activated keyword matcher with {} keywords", matcher.keywords.size());
+        return matcher;
+    }
+
+    /**
+     * Reloads the keywords resource and swaps in a new matcher, but only when the keyword list actually changed.
+     * @return boolean true if a new matcher was activated
+     */
+    public static boolean reload() {
+        final var current = active.get();
+        final var candidate = new KeywordMatcher(KeywordLoader.loadKeywords());
+        if (current.keywords.equals(candidate.keywords))
+            return false;
+
+        active.set(candidate);
+        log.info("Keywords changed, activated keyword matcher with {} keywords", candidate.keywords.size());
+        return true;
+    }
+
+    public Set<String> keywords() {
+        return keywords;
+    }
+
+    public Set<String> findKeywords(String text) {
+        return trie.parseText(text).stream()
+                .map(Emit::getKeyword)
+                .collect(Collectors.toSet());
+    }
+
+    public Map<String, Integer> countMatches(String text) {
+        final var counts = new HashMap<String, Integer>();
+        for (var emit : trie.parseText(text))
+            counts.merge(emit.getKeyword(), 1, Integer::sum);
+
+        return counts;
+    }
+
+    public Scanner scanner() {
+        return new Scanner();
+    }
+
+    /**
+     * Class Scanner
+     * Incremental scan of a text that is delivered in pieces, e.g. by SAX character events. Only a bounded window of
+     * the text is kept in memory. The window is scanned whenever it grows beyond the chunk size, cut at a whitespace
+     * so no word is split, and a tail of at least the longest keyword is kept to find keywords crossing the cut.
+     * A Scanner is not thread-safe, use one scanner per text.
+     */
+    public final class Scanner {
+        private final StringBuilder window = new StringBuilder();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private long windowStart;
+        private long scannedUpTo;
+
+        private Scanner() {}
+
+        public void append(char[] chars, int start, int length) {
+            window.append(chars, start, length);
+            if (window.length() >= SCAN_CHUNK_SIZE)
+                scan(false);
+        }
+
+        public void append(String text) {
+            window.append(text);
+            if (window.length() >= SCAN_CHUNK_SIZE)
+                scan(false);
+        }
+
+        /**
+         * All keywords of the dictionary have been found, so scanning the rest of the text will not add any keyword.
+         * @return boolean
+         */
+        public boolean allFound() {
+            return counts.size() == keywords.size();
+        }
+
+        /**
+         * Scans what remains in the window.
+         * @return Map of keyword with the number of occurrences found in the text
+         */
+        public Map<String, Integer> finish() {
+            scan(true);
+            return Collections.unmodifiableMap(counts);
+        }
+
+        private void scan(boolean last) {
+            int cut = last ? window.length() : lastWhitespace();
+            if (cut <= 0) {
+                if (window.length() < 2 * SCAN_CHUNK_SIZE)
+                    return;
+                cut = window.length();
+            }
+
+            // matches ending before scannedUpTo have been counted on the previous scan
+            for (var emit : trie.parseText(window.substring(0, cut))) {
+                if (windowStart + emit.getEnd() >= scannedUpTo)
+                    counts.merge(emit.getKeyword(), 1, Integer::sum);
+            }
+            scannedUpTo = windowStart + cut;
+
+            int keep = Math.max(0, cut - maxKeywordLength);
+            while (keep > 0 && !Character.isWhitespace(window.charAt(keep - 1)))
+                keep--;
+
+            window.delete(0, keep);
+            windowStart += keep;
+        }
+
+        private int lastWhitespace() {
+            for (int i = window.length() - 1; i > 0; i--) {
+                if (Character.isWhitespace(window.charAt(i)))
+                    return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -1,51 +1,139 @@
 package com.putoet.mybooks.books.adapter.out.persistence.folder;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.Collections;
-import java.util.Optional;
-import java.util.Set;
+import java.nio.file.Path;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 /**
  * Class Rezipper
- * This class unzips an epub book and rezips it again using a temp folder and a temp file, returning the name of the
- * name of the (temporary) rezipped file when successful.
- * Source code was reused from samples of Bealdung for unzipping and zipping files.
+ * <p>
+ * This class repairs an epub book by re-streaming all entries of the (damaged) archive into a rebuilt archive, with
+ * the 'mimetype' entry first and stored uncompressed, as required by the EPUB specification. Nothing is unpacked to
+ * disk: entries are copied one by one from the source archive into the new one.
+ * </p>
+ * <p>
+ * Books up to IN_MEMORY_LIMIT bytes are rebuilt in memory, larger books into a single temp file. The Repackaged
+ * result provides the rebuilt archive as input stream, and deletes the temp file (if any) when closed.
+ * </p>
+ * <p>
+ * Repairs are measured on the global meter registry, as mybooks.ingestion.repairs (tagged with the result) and
+ * mybooks.ingestion.repair (time to rebuild an archive).
+ * </p>
  */
 public final class Rezipper {
     public static final Logger log = LoggerFactory.getLogger(Rezipper.class);
 
-    private static final int BUFFER_SIZE = 4 * 1024;
+    public static final long IN_MEMORY_LIMIT = 32L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String MIMETYPE_ENTRY = "mimetype";
+    private static final byte[] MIMETYPE = "application/epub+zip".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
     private static final AtomicInteger repackageCount = new AtomicInteger();
     private static final AtomicInteger repackageFailedCount = new AtomicInteger();
     private static final Set<String> repackagedFiles = ConcurrentHashMap.newKeySet();
+    private static final Counter repaired = repairCounter("success");
+    private static final Counter repairFailed = repairCounter("failure");
+    private static final Timer repairTimer = Timer.builder("mybooks.ingestion.repair")
+            .description("Time to rebuild a damaged EPUB archive")
+            .register(Metrics.globalRegistry);
 
     private Rezipper() {}
 
-    public static Optional<String> repackage(String filename) {
+    /**
+     * The rebuilt archive, either held in memory or in a temp file. Closing it deletes the temp file.
+     */
+    public static final class Repackaged implements AutoCloseable {
+        private final byte[] bytes;
+        private final Path file;
+
+        private Repackaged(byte[] bytes, Path file) {
+            this.bytes = bytes;
+            this.file = file;
+        }
+
+        public InputStream open() throws IOException {
+            return bytes != null ? new ByteArrayInputStream(bytes) : new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        }
+
+        public long size() throws IOException {
+            return bytes != null ? bytes.length : Files.size(file);
+        }
+
+        public boolean inMemory() {
+            return bytes != null;
+        }
+
+        @Override
+        public void close() {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Rebuild the epub file, in memory when it's not larger than IN_MEMORY_LIMIT.
+     * @param filename String
+     * @return Optional of Repackaged, empty when the archive could not be read
+     */
+    public static Optional<Repackaged> repair(String filename) {
+        return repair(filename, IN_MEMORY_LIMIT);
+    }
+
+    static Optional<Repackaged> repair(String filename, long inMemoryLimit) {
+        final var source = sourceFile(filename);
         repackageCount.incrementAndGet();
         repackagedFiles.add(filename);
 
-        final var tmp = Rezipper.unzipEpubFile(filename);
-        if (tmp.isPresent()) {
-            return Rezipper.zipFolder(tmp.get());
+        final var sample = Timer.start(Metrics.globalRegistry);
+        try {
+            if (Files.size(source) <= inMemoryLimit) {
+                final var bytes = new ByteArrayOutputStream((int) Files.size(source));
+                rezip(source, bytes);
+                return Optional.of(repaired(sample, new Repackaged(bytes.toByteArray(), null)));
+            }
+
+            return Optional.of(repaired(sample, new Repackaged(null, rezipToTempFile(source))));
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not repackage '{}'", filename, e);
         }
 
+        sample.stop(repairTimer);
+        return failed();
+    }
+
+    private static <T> T repaired(Timer.Sample sample, T result) {
+        sample.stop(repairTimer);
+        repaired.increment();
+        return result;
+    }
+
+    private static <T> Optional<T> failed() {
         repackageFailedCount.incrementAndGet();
+        repairFailed.increment();
         return Optional.empty();
     }
 
+    private static Counter repairCounter(String result) {
+        return Counter.builder("mybooks.ingestion.repairs")
+                .description("Damaged EPUB files repackaged")
+                .tag("result", result)
+                .register(Metrics.globalRegistry);
+    }
+
     public static int repackageCount() {
         return repackageCount.get();
     }
@@ -63,142 +151,79 @@ public final class Rezipper {
         repackageFailedCount.set(0);
     }
 
-    private static Optional<File> tempFolder() {
-        try {
-            return Optional.of(Files.createTempDirectory("tmp_epub").toFile());
-        } catch (IOException e) {
-            log.error("Could not create temp directory!");
-        }
-        return Optional.empty();
+    private static Path sourceFile(String filename) {
+        if (filename == null || !filename.endsWith(".epub"))
+            throw new IllegalArgumentException("Invalid filename '" + filename + "'");
+
+        final var source = Path.of(filename);
+        if (!Files.isRegularFile(source))
+            throw new IllegalArgumentException("'" + filename + "' is not a file");
+
+        return source;
     }
 
-    private static Optional<File> tempFile() {
-        try {
-            return Optional.of(Files.createTempFile("tmp_epub", ".epub").toFile());
-        } catch (IOException e) {
-            log.error("Could not create temp file!");
+    private static Path rezipToTempFile(Path source) throws IOException {
+        final var temp = Files.createTempFile("tmp_epub", ".epub");
+        try (var out = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+            rezip(source, out);
+        } catch (IOException | RuntimeException exc) {
+            deleteQuietly(temp);
+            throw exc;
         }
-        return Optional.empty();
+        return temp;
     }
 
-    private static Optional<String> unzipEpubFile(String filename) {
-        if (filename == null || !filename.endsWith(".epub"))
-            throw new IllegalArgumentException("Invalid filename '" + filename + "'");
-
-        final var sourceFile = new File(filename);
-        if (!sourceFile.isFile())
-            throw new IllegalArgumentException("'" + filename + "' is not a file");
+    private static void rezip(Path source, OutputStream target) throws IOException {
+        final var buffer = buffers.get();
+        final var names = new HashSet<String>();
 
-        final var tmp = tempFolder();
-        if (tmp.isEmpty())
-            throw new IllegalStateException("Could not create tmp directory to unzip epub file " + filename);
+        try (var zis = new ZipInputStream(new BufferedInputStream(Files.newInputStream(source), BUFFER_SIZE));
+             var zos = new ZipOutputStream(target)) {
+            writeMimetype(zos);
+            names.add(MIMETYPE_ENTRY);
 
-        final var buffer = new byte[BUFFER_SIZE];
-        try (var zis = new ZipInputStream(new FileInputStream(filename))) {
             var zipEntry = zis.getNextEntry();
             while (zipEntry != null) {
-                final var newFile = newFile(tmp.get(), zipEntry);
-                if (zipEntry.isDirectory()) {
-                    if (!newFile.isDirectory() && !newFile.mkdirs()) {
-                        throw new IOException("Failed to create directory " + newFile);
-                    }
-                } else {
-                    // fix for Windows-created archives
-                    final var parent = newFile.getParentFile();
-                    if (!parent.isDirectory() && !parent.mkdirs()) {
-                        throw new IOException("Failed to create directory " + parent);
-                    }
-
-                    // write file content
-                    try (final var fos = new FileOutputStream(newFile)) {
+                final var name = zipEntry.getName();
+                if (names.add(name)) {
+                    zos.putNextEntry(new ZipEntry(name));
+                    if (!zipEntry.isDirectory()) {
                         int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                        }
+                        while ((len = zis.read(buffer)) > 0)
+                            zos.write(buffer, 0, len);
                     }
+                    zos.closeEntry();
+                } else if (!MIMETYPE_ENTRY.equals(name)) {
+                    log.warn("Skipped duplicate entry '{}' in '{}'", name, source);
                 }
                 zipEntry = zis.getNextEntry();
             }
-
-            return Optional.of(tmp.get().getAbsolutePath());
-        } catch (IOException e) {
-            log.error(e.getMessage(), e);
         }
-
-        return Optional.empty();
     }
 
-    private static File newFile(File destinationDir, ZipEntry zipEntry) throws IOException {
-        final var destFile = new File(destinationDir, zipEntry.getName());
-        final var destDirPath = destinationDir.getCanonicalPath();
-        final var destFilePath = destFile.getCanonicalPath();
+    private static void writeMimetype(ZipOutputStream zos) throws IOException {
+        final var crc = new CRC32();
+        crc.update(MIMETYPE);
 
-        if (!destFilePath.startsWith(destDirPath + File.separator)) {
-            throw new IOException("Entry is outside of the target dir: " + zipEntry.getName());
-        }
+        final var entry = new ZipEntry(MIMETYPE_ENTRY);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(MIMETYPE.length);
+        entry.setCompressedSize(MIMETYPE.length);
+        entry.setCrc(crc.getValue());
 
-        return destFile;
+        zos.putNextEntry(entry);
+        zos.write(MIMETYPE);
+        zos.closeEntry();
     }
 
-    private static Optional<String> zipFolder(String folder) {
-        final var folderToZip = new File(folder);
-        if (!folderToZip.isDirectory())
-            throw new IllegalArgumentException(folder + " is not a folder!");
-
-        final var tmp = tempFile();
-        if (tmp.isPresent()) {
-            try (var zipOut = new ZipOutputStream(new FileOutputStream(tmp.get().getAbsolutePath()))) {
-                zipFolder(folderToZip, zipOut);
-                return Optional.of(tmp.get().getAbsolutePath());
-            } catch (IOException e) {
-                log.error(e.getMessage(), e);
-            }
-        }
-
-        return Optional.empty();
-    }
-
-    private static void zipFolder(File folderToZip, ZipOutputStream zipOut) throws IOException {
-        final var children = folderToZip.listFiles();
-        if (children != null) {
-            for (File childFile : children) {
-                zipFile(childFile, childFile.getName(), zipOut);
-            }
-        }
-    }
-
-    private static void zipFile(File fileToZip, String fileName, ZipOutputStream zipOut) throws IOException {
-        if (fileToZip.isHidden()) {
-            return;
-        }
-
-        if (fileToZip.isDirectory()) {
-            if (fileName.endsWith("/")) {
-                zipOut.putNextEntry(new ZipEntry(fileName));
-                zipOut.closeEntry();
-            } else {
-                zipOut.putNextEntry(new ZipEntry(fileName + "/"));
-                zipOut.closeEntry();
-            }
-
-            final var children = fileToZip.listFiles();
-            if (children != null) {
-                for (var childFile : children) {
-                    zipFile(childFile, fileName + "/" + childFile.getName(), zipOut);
-                }
-            }
+    private static void deleteQuietly(Path file) {
+        if (file == null)
             return;
-        }
-
-        try (var fis = new FileInputStream(fileToZip)) {
-            final var zipEntry = new ZipEntry(fileName);
-            zipOut.putNextEntry(zipEntry);
 
-            final var bytes = new byte[BUFFER_SIZE];
-            int length;
-            while ((length = fis.read(bytes)) >= 0) {
-                zipOut.write(bytes, 0, length);
-            }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exc) {
+            log.warn("Could not delete temp file '{}'", file, exc);
         }
     }
 }
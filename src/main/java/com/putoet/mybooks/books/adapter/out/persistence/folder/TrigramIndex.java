@@ -0,0 +1,131 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import java.util.*;
+
+/**
+ * Class TrigramIndex
+ * <p>
+ * Immutable substring index on normalized (lower case) texts. Each text is split into its trigrams (all substrings
+ * of three characters), and the index maps every trigram onto the keys of the texts containing it. Every text that
+ * contains the query is in the key set of each trigram of the query, so a substring search only considers the keys
+ * of the smallest of these sets. The candidates are verified against their normalized text, which is cheaper than
+ * intersecting them with the larger sets. Queries shorter than a trigram are verified against all texts, which are
+ * normalized once, when they are added.
+ * </p>
+ * <p>
+ * An update returns a new index, which shares the key sets of all trigrams that were not affected with this index,
+ * so it can be published as part of a FolderSnapshot.
+ * </p>
+ * @param <K> key type, e.g. BookId or AuthorId
+ */
+final class TrigramIndex<K> {
+    private static final int N = 3;
+
+    private final Map<String, Set<K>> postings;
+    private final Map<K, String> texts;
+
+    private TrigramIndex(Map<String, Set<K>> postings, Map<K, String> texts) {
+        this.postings = postings;
+        this.texts = texts;
+    }
+
+    static <K> TrigramIndex<K> of(Map<K, String> texts) {
+        final var postings = new HashMap<String, Set<K>>();
+        final var normalized = new HashMap<K, String>(texts.size() * 2);
+        texts.forEach((key, text) -> {
+            final var norm = normalize(text);
+            normalized.put(key, norm);
+            trigrams(norm).forEach(trigram -> postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(key));
+        });
+
+        return new TrigramIndex<>(postings, normalized);
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Create a new index, with the texts of the removed keys removed, and the added texts added. A key that is both
+     * removed and added, is replaced.
+     * @param removed Collection of keys
+     * @param added Map of text by key
+     * @return TrigramIndex
+     */
+    TrigramIndex<K> update(Collection<K> removed, Map<K, String> added) {
+        final var nextPostings = new HashMap<>(postings);
+        final var nextTexts = new HashMap<>(texts);
+        final var copied = new HashSet<String>();
+
+        for (var key : removed) {
+            final var norm = nextTexts.remove(key);
+            if (norm != null)
+                trigrams(norm).forEach(trigram -> {
+                    final var keys = mutable(trigram, nextPostings, copied);
+                    keys.remove(key);
+                    if (keys.isEmpty())
+                        nextPostings.remove(trigram);
+                });
+        }
+
+        added.forEach((key, text) -> {
+            final var norm = normalize(text);
+            nextTexts.put(key, norm);
+            trigrams(norm).forEach(trigram -> mutable(trigram, nextPostings, copied).add(key));
+        });
+
+        return new TrigramIndex<>(nextPostings, nextTexts);
+    }
+
+    /**
+     * Keys of the texts that contain the query, case-insensitive.
+     * @param query String
+     * @return Set of keys
+     */
+    Set<K> search(String query) {
+        final var norm = normalize(query);
+        if (norm.length() < N)
+            return verify(texts.keySet(), norm);
+
+        Set<K> smallest = null;
+        for (var trigram : trigrams(norm)) {
+            final var keys = postings.get(trigram);
+            if (keys == null)
+                return Set.of();
+            if (smallest == null || keys.size() < smallest.size())
+                smallest = keys;
+        }
+
+        return verify(smallest, norm);
+    }
+
+    int size() {
+        return texts.size();
+    }
+
+    private Set<K> verify(Collection<K> candidates, String norm) {
+        final var result = new HashSet<K>();
+        for (var key : candidates) {
+            if (texts.get(key).contains(norm))
+                result.add(key);
+        }
+        return result;
+    }
+
+    private static <K> Set<K> mutable(String trigram, Map<String, Set<K>> postings, Set<String> copied) {
+        if (copied.add(trigram)) {
+            final var keys = postings.get(trigram);
+            final var copy = keys == null ? new HashSet<K>() : new HashSet<>(keys);
+            postings.put(trigram, copy);
+            return copy;
+        }
+        return postings.computeIfAbsent(trigram, t -> new HashSet<>());
+    }
+
+    private static Set<String> trigrams(String norm) {
+        final var trigrams = new HashSet<String>();
+        for (int i = 0; i + N <= norm.length(); i++)
+            trigrams.add(norm.substring(i, i + N));
+        return trigrams;
+    }
+}
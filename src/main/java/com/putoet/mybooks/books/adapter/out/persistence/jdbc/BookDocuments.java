@@ -0,0 +1,82 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
+
+import com.putoet.mybooks.books.domain.*;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Class BookDocuments
+ * Converts a book, with its authors (and their sites), keywords and formats, into the compact JSON document stored
+ * in the book_document table, and back. The attribute names are abbreviated, as they are repeated in every row. The
+ * version of an author is truncated to the precision of the database, so a book read from its document equals the
+ * book read from the normalized tables.
+ */
+final class BookDocuments {
+    private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private BookDocuments() {}
+
+    record AuthorDocument(String i, String v, String n, Map<String, String> s) {}
+
+    record BookDocument(String s, String i, String t, List<AuthorDocument> a, Set<String> k, Set<String> f) {}
+
+    static String encode(Book book) {
+        final var document = new BookDocument(
+                book.id().schema().name(),
+                book.id().id(),
+                book.title(),
+                book.authors().stream()
+                        .map(author -> new AuthorDocument(
+                                author.id().uuid().toString(),
+                                author.version().truncatedTo(ChronoUnit.MICROS).toString(),
+                                author.name(),
+                                author.sites().entrySet().stream().collect(Collectors.toMap(
+                                        site -> site.getKey().name(), site -> site.getValue().toString()))))
+                        .toList(),
+                book.keywords(),
+                book.formats().stream().map(Object::toString).collect(Collectors.toSet()));
+
+        try {
+            return MAPPER.writeValueAsString(document);
+        } catch (JacksonException exc) {
+            throw new IllegalStateException("Could not write the document of book " + book.id(), exc);
+        }
+    }
+
+    static Book decode(String json) {
+        final BookDocument document;
+        try {
+            document = MAPPER.readValue(json, BookDocument.class);
+        } catch (JacksonException exc) {
+            throw new IllegalStateException("Could not read book document " + json, exc);
+        }
+
+        return new Book(new BookId(BookId.BookIdSchema.valueOf(document.s()), document.i()),
+                document.t(),
+                document.a().stream().map(BookDocuments::author).collect(Collectors.toSet()),
+                document.k(),
+                document.f().stream().map(MimeTypes::toMimeType).collect(Collectors.toSet()));
+    }
+
+    private static Author author(AuthorDocument document) {
+        final var sites = new HashMap<SiteType, URL>();
+        document.s().forEach((type, url) -> sites.put(SiteType.of(type), url(url)));
+        return new Author(AuthorId.withId(document.i()), Instant.parse(document.v()), document.n(), sites);
+    }
+
+    private static URL url(String url) {
+        try {
+            return URI.create(url).toURL();
+        } catch (MalformedURLException | IllegalArgumentException exc) {
+            throw new IllegalStateException("Invalid URL in book document " + url, exc);
+        }
+    }
+}
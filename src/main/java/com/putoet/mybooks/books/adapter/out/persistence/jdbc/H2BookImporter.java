@@ -0,0 +1,167 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
+
+import com.putoet.mybooks.books.domain.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Class H2BookImporter
+ * <p>
+ * Bulk import of books and their authors into the H2 database. Unlike registerBook and registerAuthor on the
+ * H2BookRepository, which insert every row with a separate statement and read the result back, the importer inserts
+ * all rows with the JDBC batch updates of the H2BookRepository (as used by registerBooks), in one transaction per
+ * chunk of books, and never reads anything back. A replace deletes all books and authors, and imports the books, in a
+ * single transaction.
+ * </p>
+ * <p>
+ * Authors are matched with the authors in the database by name (using an AuthorIndex), so only new authors are
+ * inserted. Books with an id that is already in the database are skipped.
+ * </p>
+ */
+public class H2BookImporter {
+    public static final Logger log = LoggerFactory.getLogger(H2BookImporter.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate template;
+    private final H2BookRepository repository;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+
+    public H2BookImporter(JdbcTemplate template, PlatformTransactionManager transactionManager) {
+        this(template, transactionManager, DEFAULT_CHUNK_SIZE);
+    }
+
+    public H2BookImporter(JdbcTemplate template, PlatformTransactionManager transactionManager, int chunkSize) {
+        this(template, transactionManager, chunkSize, false);
+    }
+
+    /**
+     * @param documents boolean - true to write the book documents too (see H2BookRepository)
+     */
+    public H2BookImporter(JdbcTemplate template, PlatformTransactionManager transactionManager, int chunkSize, boolean documents) {
+        log.debug("H2BookImporter('{}', '{}', {}, {})", template, transactionManager, chunkSize, documents);
+
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be at least 1, but was " + chunkSize);
+
+        this.template = Objects.requireNonNull(template, "JdbcTemplate must be provided");
+        this.repository = new H2BookRepository(template, documents);
+        this.transaction = new TransactionTemplate(Objects.requireNonNull(transactionManager, "Transaction manager must be provided"));
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Result of an import.
+     * @param authors number of inserted authors
+     * @param books number of inserted books
+     * @param skipped number of books skipped, as their id was already in the database
+     * @param rows number of inserted rows, in all tables
+     * @param duration time taken by the import
+     */
+    public record ImportResult(int authors, int books, int skipped, long rows, Duration duration) {
+        public double rowsPerSecond() {
+            final var millis = Math.max(1, duration.toMillis());
+            return rows * 1000.0 / millis;
+        }
+    }
+
+    /**
+     * Import the books, and the authors of the books that are not in the database yet.
+     * @param books Collection of Book
+     * @return ImportResult
+     */
+    public ImportResult importBooks(Collection<Book> books) {
+        log.debug("importBooks({} books)", books.size());
+
+        return importBooks(books.stream());
+    }
+
+    /**
+     * Import the books, and the authors of the books that are not in the database yet. The books are consumed one
+     * chunk at a time, and every chunk is committed with the new authors of its books. As books that are already in
+     * the database are skipped, an import that failed halfway can be resumed by importing the same books again.
+     * @param books Stream of Book
+     * @return ImportResult
+     */
+    public ImportResult importBooks(Stream<Book> books) {
+        log.debug("importBooks()");
+
+        final long start = System.nanoTime();
+        final var authorIndex = repository.authorIndex();
+        final var known = new HashSet<>(authorIndex.authors());
+        final var existing = existingBookIds();
+
+        int authorCount = 0, bookCount = 0, total = 0;
+        long rows = 0;
+        final var chunk = new ArrayList<Book>(chunkSize);
+        final var newAuthors = new LinkedHashMap<AuthorId, Author>();
+        for (var book : (Iterable<Book>) books::iterator) {
+            total++;
+            if (!existing.add(book.id()))
+                continue;
+
+            final var canonical = authorIndex.canonical(book);
+            canonical.authors().stream()
+                    .filter(author -> !known.contains(author))
+                    .forEach(author -> newAuthors.putIfAbsent(author.id(), author));
+            chunk.add(canonical);
+
+            if (chunk.size() == chunkSize) {
+                authorCount += newAuthors.size();
+                bookCount += chunk.size();
+                known.addAll(newAuthors.values());
+                rows += insertChunk(List.copyOf(newAuthors.values()), List.copyOf(chunk));
+                log.debug("imported {} books", bookCount);
+                chunk.clear();
+                newAuthors.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            authorCount += newAuthors.size();
+            bookCount += chunk.size();
+            rows += insertChunk(List.copyOf(newAuthors.values()), List.copyOf(chunk));
+        }
+
+        final var result = new ImportResult(authorCount, bookCount, total - bookCount, rows,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.debug("importBooks returns: {}", result);
+        return result;
+    }
+
+    /**
+     * Replace all books and authors in the database with the books, and their authors. The deletes and the import run
+     * in a single transaction, so the database is either left as it was or contains the imported books only.
+     * @param books Stream of Book
+     * @return ImportResult
+     */
+    public ImportResult replaceBooks(Stream<Book> books) {
+        log.debug("replaceBooks()");
+
+        return transaction.execute(status -> {
+            repository.forgetAllBooks();
+            repository.forgetAllAuthors();
+            return importBooks(books);
+        });
+    }
+
+    private long insertChunk(List<Author> authors, List<Book> books) {
+        return Objects.requireNonNull(transaction.execute(status ->
+                repository.insertAuthors(authors) + repository.insertBooks(books)));
+    }
+
+    private Set<BookId> existingBookIds() {
+        final String sql = "select book_id_type, book_id from book";
+        SqlUtil.debugLogSql(log, sql);
+
+        return new HashSet<>(template.query(sql, (row, rowNum) ->
+                new BookId(BookId.BookIdSchema.valueOf(row.getString("book_id_type")), row.getString("book_id"))));
+    }
+}
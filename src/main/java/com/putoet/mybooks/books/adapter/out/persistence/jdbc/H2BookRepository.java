@@ -6,9 +6,11 @@ import com.putoet.mybooks.books.domain.*;
 import jakarta.activation.MimeType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
 import java.net.MalformedURLException;
@@ -17,9 +19,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.putoet.mybooks.books.adapter.out.persistence.jdbc.SqlUtil.debugLogSql;
@@ -27,17 +28,41 @@ import static com.putoet.mybooks.books.adapter.out.persistence.jdbc.SqlUtil.debu
 /**
  * Class H2BookRepository
  * A read/write repository for book and author data, connected to an H4 database using a Spring JdbcTemplate
+ * <p>
+ * With mybooks.book-documents.enabled, each book is also stored as a single JSON document in the book_document table,
+ * written in the same transaction as the normalized tables, and books are read from their documents: one row per
+ * book, instead of the rows of six tables. The documents are written by registerBook and registerBooks, and rewritten
+ * for the books of an author by updateAuthor and setAuthorSite. forgetAuthor doesn't change any document, as an author
+ * of a book can't be deleted. rebuildBookDocuments regenerates all documents from the normalized tables.
+ * </p>
  */
 @Repository
 @Profile("jdbc")
 public class H2BookRepository implements BookPersistenceUpdatePort {
     public static final Logger log = LoggerFactory.getLogger(H2BookRepository.class);
 
+    private static final String INSERT_AUTHOR = "insert into author (author_id, version, name) values (?, ?, ?)";
+    private static final String INSERT_SITE = "insert into site (author_id, name, url) values (?, ?, ?)";
+    private static final String INSERT_BOOK = "insert into book (book_id_type, book_id, title) values (?, ?, ?)";
+    private static final String INSERT_BOOK_AUTHOR = "insert into book_author (book_id_type, book_id, author_id) values (?, ?, ?)";
+    private static final String INSERT_BOOK_FORMAT = "insert into book_format (book_id_type, book_id, format) values (?, ?, ?)";
+    private static final String INSERT_BOOK_KEYWORD = "insert into book_key_word (book_id_type, book_id, keyword) values (?, ?, ?)";
+    private static final String MERGE_BOOK_DOCUMENT = "merge into book_document (book_id_type, book_id, title, document) key (book_id_type, book_id) values (?, ?, ?, ?)";
+
+    public static final int REBUILD_PAGE_SIZE = 500;
+
     private final JdbcTemplate template;
+    private final boolean documents;
 
     public H2BookRepository(JdbcTemplate template) {
-        log.debug("H2BookRepository('{}')", template);
+        this(template, false);
+    }
+
+    @Autowired
+    public H2BookRepository(JdbcTemplate template, @Value("${mybooks.book-documents.enabled:false}") boolean documents) {
+        log.debug("H2BookRepository('{}', {})", template, documents);
         this.template = template;
+        this.documents = documents;
     }
 
     @Override
@@ -64,12 +89,43 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
     public Set<Author> findAuthors() {
         log.debug("findAuthors()");
 
+        final var authors = Authors.ordered(queryAuthors(""));
+        log.debug("find authors returns: {}", authors);
+        return authors;
+    }
+
+    @Override
+    public Page<Author> findAuthors(AuthorCursor after, int limit) {
+        log.debug("findAuthors('{}', {})", after, limit);
+
+        final var authors = after == null ?
+                queryAuthors("order by name, author_id limit ?", limit + 1) :
+                queryAuthors("where (name, author_id) > (?, ?) order by name, author_id limit ?",
+                        after.name(), after.id().uuid().toString(), limit + 1);
+        final var page = Page.of(authors, limit, AuthorCursor::encode);
+        log.debug("find authors returns page of {} authors", page.items().size());
+        return page;
+    }
+
+    /**
+     * Index of all authors in the database by normalized name, to match authors with the authors already known when
+     * importing books. Sites are not loaded into the index.
+     * @return AuthorIndex
+     */
+    public AuthorIndex authorIndex() {
+        log.debug("authorIndex()");
+
         final String sql = "select author_id, version, name from author";
         debugLogSql(log, sql);
 
-        final var authors = Authors.ordered(template.query(sql, this::authorMapper));
-        log.debug("find authors returns: {}", authors);
-        return authors;
+        final var authors = template.query(sql, (row, rowNum) -> new Author(
+                AuthorId.withId(row.getString("author_id")),
+                row.getTimestamp("version").toInstant(),
+                row.getString("name"),
+                Map.of()));
+        final var index = new AuthorIndex(authors);
+        log.debug("author index contains {} of {} authors", index.size(), authors.size());
+        return index;
     }
 
     @Override
@@ -77,10 +133,7 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
         log.debug("findAuthorsByName('{}')", name);
         name = "%" + name.toLowerCase() + "%";
 
-        final String sql = "select author_id, version, name from author where lower(name) like ?";
-        debugLogSql(log, sql, name);
-
-        final var authors = template.query(sql, this::authorMapper, name);
+        final var authors = queryAuthors("where name_lower like ?", name);
         log.debug("find authors by name returns: {}", authors);
         return Authors.ordered(authors);
     }
@@ -89,32 +142,39 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
     public Author findAuthorById(AuthorId id) {
         log.debug("findAuthorById('{}')", id);
 
-        try {
-            final String sql = "select author_id, version, name from author where author_id = ?";
-            debugLogSql(log, sql, id.uuid());
-
-            final var author = template.queryForObject(sql, this::authorMapper, id.uuid());
-            log.debug("find author by id returns: {}", author);
-            return author;
-
-        } catch (EmptyResultDataAccessException exc) {
-            log.warn(exc.getMessage());
+        final var authors = queryAuthors("where author_id = ?", id.uuid());
+        if (authors.isEmpty()) {
+            log.warn("No author with id '{}'", id);
+            return null;
         }
-        return null;
+
+        final var author = authors.get(0);
+        log.debug("find author by id returns: {}", author);
+        return author;
     }
 
     @Override
     public Set<Book> findBooks() {
         log.debug("findBooks()");
 
-        final String sql = "select book_id_type, book_id, title from book";
-        debugLogSql(log, sql);
-
-        final var books = Books.ordered(template.query(sql, this::bookMapper));
+        final var books = Books.ordered(queryBooks(""));
         log.debug("find books returns: {}", books);
         return books;
     }
 
+    @Override
+    public Page<Book> findBooks(BookCursor after, int limit) {
+        log.debug("findBooks('{}', {})", after, limit);
+
+        final var books = after == null ?
+                queryBooks("order by title, book_id_type, book_id limit ?", limit + 1) :
+                queryBooks("where (title, book_id_type, book_id) > (?, ?, ?) order by title, book_id_type, book_id limit ?",
+                        after.title(), after.id().schema().name(), after.id().id(), limit + 1);
+        final var page = Page.of(books, limit, BookCursor::encode);
+        log.debug("find books returns page of {} books", page.items().size());
+        return page;
+    }
+
     @Override
     public Set<Book> findBooksByTitle(String title) {
         log.debug("findBooksByTitle('{}')", title);
@@ -125,10 +185,7 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
         }
 
         title = "%" + title.toLowerCase() + "%";
-        final String sql = "select book_id_type, book_id, title from book where lower(title) like ?";
-        debugLogSql(log, sql, title);
-
-        final var books = Books.ordered(template.query(sql, this::bookMapper, title));
+        final var books = Books.ordered(queryBooks("where title_lower like ?", title));
         log.debug("find books by title returns: {}", books);
         return books;
     }
@@ -142,9 +199,13 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
             throw ServiceError.BOOK_ID_REQUIRED.exception();
         }
 
-        final String sql = "select book_id_type, book_id, title from book where book_id_type = ? and book_id = ?";
-        debugLogSql(log, sql, bookId.schema().name(), bookId.id());
-        final var book = template.queryForObject(sql, this::bookMapper, bookId.schema().name(), bookId.id());
+        final var books = queryBooks("where book_id_type = ? and book_id = ?", bookId.schema().name(), bookId.id());
+        if (books.isEmpty()) {
+            log.warn("No book with id '{}'", bookId);
+            return null;
+        }
+
+        final var book = books.get(0);
         log.debug("find book by id returns: {}", book);
         return book;
     }
@@ -153,82 +214,157 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
     public Set<Book> findBooksByAuthorId(AuthorId authorId) {
         log.debug("findBooksByAuthorId('{}')", authorId);
 
-        final String sql = "select book_id_type, book_id, title from book where (book_id_type, book_id) in (select book_id_type, book_id from book_author where author_id = ?)";
-        debugLogSql(log, sql, authorId.uuid());
-
-        final var books = Books.ordered(template.query(sql, this::bookMapper, authorId.uuid()));
+        final var books = Books.ordered(queryBooks(
+                "join book_author ba on ba.book_id_type = b.book_id_type and ba.book_id = b.book_id where ba.author_id = ?",
+                authorId.uuid()));
         log.debug("find books by author id returns: {}", books);
         return books;
     }
 
-    private Book bookMapper(ResultSet row, int rowNum) throws SQLException {
-        final var book_id_type = row.getString("book_id_type");
-        final var book_id = row.getString("book_id");
-        final var authors = findAuthorsForBook(book_id_type, book_id);
-        final var formats = findFormatsForBook(book_id_type, book_id);
-        final var keywords = findKeywordsForBook(book_id_type, book_id);
+    @Override
+    public Set<Book> findBooksByAuthorIds(Collection<AuthorId> authorIds) {
+        log.debug("findBooksByAuthorIds('{}')", authorIds);
+
+        if (authorIds.isEmpty())
+            return Set.of();
+
+        final var placeholders = String.join(", ", Collections.nCopies(authorIds.size(), "?"));
+        final var books = Books.ordered(queryBooks(
+                "where exists (select 1 from book_author ba where ba.book_id_type = b.book_id_type and ba.book_id = b.book_id" +
+                " and ba.author_id in (" + placeholders + "))",
+                authorIds.stream().map(AuthorId::uuid).toArray()));
+        log.debug("find books by author ids returns: {}", books);
+        return books;
+    }
 
-        return new Book(new BookId(BookId.BookIdSchema.valueOf(book_id_type), book_id)
-                , row.getString("title")
-                , authors
-                , keywords
-                , formats
-        );
+    /*
+     * Books for the where clause (optionally with joins, order by and limit) on the book table b (or the book_document
+     * table, when the documents are enabled). From the book table, books are read with their authors
+     * (and sites), formats and keywords. Instead of querying the details per book, each detail table is queried once
+     * for all selected books, by joining it with the selected book ids in a derived table, so the number of queries
+     * doesn't depend on the number of books, and the details are read through their primary key.
+     */
+    private List<Book> queryBooks(String where, Object... parameters) {
+        return documents ? queryDocuments(where, parameters) : queryTables(where, parameters);
     }
 
-    private Set<String> findKeywordsForBook(String bookIdType, String bookId) {
-        log.debug("findKeywordsForBook('{}', '{}')", bookIdType, bookId);
+    /*
+     * Books for the where clause on the book_document table (alias b, with the same id and title columns as the book
+     * table), in one query.
+     */
+    private List<Book> queryDocuments(String where, Object... parameters) {
+        final String sql = "select b.document from book_document b " + where;
+        debugLogSql(log, sql, parameters);
 
-        final String sql = "select book_id_type, book_id, keyword from book_key_word where book_id_type = ? and book_id = ?";
-        debugLogSql(log, sql, bookIdType, bookId);
+        return template.query(sql, (row, rowNum) -> BookDocuments.decode(row.getString("document")), parameters);
+    }
 
-        final var keywords = template.query(sql, this::keywordMapper, bookIdType, bookId);
-        log.debug("find keywords for book returns: {}", keywords);
-        return Set.copyOf(keywords);
+    private List<Book> queryTables(String where, Object... parameters) {
+        final String sql = "select b.book_id_type, b.book_id, b.title from book b " + where;
+        debugLogSql(log, sql, parameters);
+
+        final var rows = template.query(sql, (row, rowNum) -> new String[]{
+                row.getString("book_id_type"), row.getString("book_id"), row.getString("title")}, parameters);
+        if (rows.isEmpty())
+            return List.of();
+
+        final var authors = findAuthorsForBooks(where, parameters);
+        final var formats = findDetailsForBooks("book_format", "format", where, parameters);
+        final var keywords = findDetailsForBooks("book_key_word", "keyword", where, parameters);
+
+        final var books = new ArrayList<Book>(rows.size());
+        for (var row : rows) {
+            final var key = bookKey(row[0], row[1]);
+            books.add(new Book(new BookId(BookId.BookIdSchema.valueOf(row[0]), row[1])
+                    , row[2]
+                    , authors.getOrDefault(key, Set.of())
+                    , keywords.getOrDefault(key, Set.of())
+                    , formats.getOrDefault(key, Set.of()).stream().map(MimeTypes::toMimeType).collect(Collectors.toSet())
+            ));
+        }
+        return books;
     }
 
-    private String keywordMapper(ResultSet row, int rowNum) throws SQLException {
-        return row.getString("keyword");
+    private static String bookKey(String bookIdType, String bookId) {
+        return bookIdType + ":" + bookId;
     }
 
-    private Set<MimeType> findFormatsForBook(String bookIdType, String bookId) {
-        log.debug("findFormatsForBook('{}', '{}')", bookIdType, bookId);
+    /*
+     * The detail table (alias d) joined with the ids of the books selected by the where clause. H2 doesn't use an
+     * index for a row value in a sub query, as in "where (book_id_type, book_id) in (select ...)", but does for a join.
+     */
+    private static String selection(String table, String where) {
+        return where.isEmpty() ? table + " d" :
+                "(select b.book_id_type, b.book_id from book b " + where + ") s join " + table +
+                " d on d.book_id_type = s.book_id_type and d.book_id = s.book_id";
+    }
 
-        final String sql = "select book_id_type, book_id, format from book_format where book_id_type = ? and book_id = ?";
-        debugLogSql(log, sql, bookIdType, bookId);
+    private Map<String, Set<String>> findDetailsForBooks(String table, String column, String where, Object... parameters) {
+        final String sql = "select d.book_id_type, d.book_id, d." + column + " from " + selection(table, where);
+        debugLogSql(log, sql, parameters);
 
-        final var formats = template.query(sql, this::formatTypeMapper, bookIdType, bookId);
-        log.debug("find formats for book returns: {}", formats);
-        return Set.copyOf(formats);
+        final var details = new HashMap<String, Set<String>>();
+        template.query(sql, (RowCallbackHandler) row -> details
+                .computeIfAbsent(bookKey(row.getString("book_id_type"), row.getString("book_id")), key -> new HashSet<>())
+                .add(row.getString(column)), parameters);
+        return details;
     }
 
-    private MimeType formatTypeMapper(ResultSet row, int rowNum) throws SQLException {
-        final String format = row.getString("format");
-        return MimeTypes.toMimeType(format);
+    private Map<String, Set<Author>> findAuthorsForBooks(String where, Object... parameters) {
+        final var sites = findSites(where.isEmpty() ? null :
+                "select d.author_id from " + selection("book_author", where), parameters);
+
+        final String sql = "select d.book_id_type, d.book_id, a.author_id, a.version, a.name " +
+                           "from " + selection("book_author", where) + " join author a on a.author_id = d.author_id";
+        debugLogSql(log, sql, parameters);
+
+        final var authors = new HashMap<String, Author>();
+        final var authorsForBooks = new HashMap<String, Set<Author>>();
+        template.query(sql, (RowCallbackHandler) row -> {
+            final var author = authors.computeIfAbsent(row.getString("author_id"), authorId -> author(row, authorId, sites));
+            authorsForBooks
+                    .computeIfAbsent(bookKey(row.getString("book_id_type"), row.getString("book_id")), key -> new HashSet<>())
+                    .add(author);
+        }, parameters);
+        return authorsForBooks;
     }
 
-    private Set<Author> findAuthorsForBook(String bookIdType, String bookId) {
-        log.debug("findAuthorsForBook('{}', '{}')", bookIdType, bookId);
+    /*
+     * Authors for the where clause (optionally with order by and limit) on the author table, with their sites, in two
+     * queries.
+     */
+    private List<Author> queryAuthors(String where, Object... parameters) {
+        final var sites = findSites(where.isEmpty() ? null : "select author_id from author " + where, parameters);
 
-        final String sql = "select author_id, version, name from author where author_id in (select author_id from book_author where book_id_type = ? and book_id = ?)";
-        debugLogSql(log, sql, bookIdType, bookId);
+        final String sql = "select author_id, version, name from author " + where;
+        debugLogSql(log, sql, parameters);
 
-        final var authors = template.query(sql, this::authorMapper, bookIdType, bookId);
-        log.debug("find authors for book returns: {}", authors);
-        return Set.copyOf(authors);
+        return template.query(sql, (row, rowNum) -> author(row, row.getString("author_id"), sites), parameters);
     }
 
-    private Author authorMapper(ResultSet row, int rowNum) throws SQLException {
-        final String authorId = row.getString("author_id");
-        final String sql = "select name, url from site where author_id = ?";
-        debugLogSql(log, sql, authorId);
+    private Map<String, Map<SiteType, URL>> findSites(String authorIds, Object... parameters) {
+        final String sql = "select author_id, name, url from site" +
+                           (authorIds == null ? "" : " where author_id in (" + authorIds + ")");
+        debugLogSql(log, sql, parameters);
+
+        final var sites = new HashMap<String, Map<SiteType, URL>>();
+        template.query(sql, (RowCallbackHandler) row -> {
+            final var site = siteMapper(row, 0);
+            sites.computeIfAbsent(row.getString("author_id"), authorId -> new HashMap<>()).put(site.type(), site.url());
+        }, parameters);
+        return sites;
+    }
 
-        final var sites = template.query(sql, this::siteMapper, authorId);
-        return new Author(AuthorId.withId(authorId),
-                row.getTimestamp("version").toInstant(),
-                row.getString("name"),
-                sites.stream().collect(Collectors.toMap(Site::type, Site::url))
-        );
+    private static Author author(ResultSet row, String authorId, Map<String, Map<SiteType, URL>> sites) {
+        try {
+            return new Author(AuthorId.withId(authorId),
+                    row.getTimestamp("version").toInstant(),
+                    row.getString("name"),
+                    sites.getOrDefault(authorId, Map.of())
+            );
+        } catch (SQLException exc) {
+            throw new IllegalStateException("Could not read author " + authorId, exc);
+        }
     }
 
     private Site siteMapper(ResultSet row, int rowNum) throws SQLException {
@@ -250,22 +386,27 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
         return author;
     }
 
+    /**
+     * Register the author with its sites, using a single batch for all sites. The author is created from the
+     * parameters, with the version truncated to the precision of the database, instead of being read back.
+     */
     public Author registerAuthor(AuthorId authorId, Instant version, String name, Map<SiteType, URL> sites) {
-        final String sql = "insert into author (author_id, version, name) values (?, ?, ?)";
-        debugLogSql(log, sql, authorId.uuid(), version, name);
+        version = version.truncatedTo(ChronoUnit.MICROS);
+        debugLogSql(log, INSERT_AUTHOR, authorId.uuid(), version, name);
 
-        int count = template.update(sql, authorId.uuid(), version, name);
+        int count = template.update(INSERT_AUTHOR, authorId.uuid(), version, name);
         if (count != 1) {
             final var details = "author id '" + authorId + "', name '" + name + "', and version '" + version + "'";
             log.error("Could not insert author (count is '{}'): {}", count, details);
             throw ServiceError.AUTHOR_NOT_REGISTERED.exception(details);
         }
 
-        for (var site : sites.entrySet()) {
-            setAuthorSite(authorId, site.getKey(), site.getValue());
-        }
+        final var siteRows = sites.entrySet().stream()
+                .map(site -> new Object[]{authorId.uuid(), site.getKey().name(), site.getValue().toString()})
+                .toList();
+        batchUpdate(INSERT_SITE, siteRows, ServiceError.AUTHOR_NOT_REGISTERED, "author id '" + authorId + "', sites " + sites);
 
-        return findAuthorById(authorId);
+        return new Author(authorId, version, name, sites);
     }
 
     @Override
@@ -283,6 +424,7 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
             throw ServiceError.AUTHOR_NOT_UPDATED.exception(details);
         }
 
+        updateDocumentsOfAuthor(authorId);
         final var author = findAuthorById(authorId);
         log.debug("updateAuthor returns: {}", author);
         return author;
@@ -317,6 +459,7 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
             throw ServiceError.AUTHOR_SITE_NOT_SET.exception(details);
         }
 
+        updateDocumentsOfAuthor(authorId);
         final var author = findAuthorById(authorId);
         log.debug("setAuthorSite returns: {}", author);
         return author;
@@ -326,54 +469,164 @@ public class H2BookRepository implements BookPersistenceUpdatePort {
     public Book registerBook(BookId bookId, String title, Set<Author> authors, Set<MimeType> formats, Set<String> keywords) {
         log.debug("registerBook('{}', '{}', '{}', '{}')", bookId, title, authors, formats);
 
-        final String sql = "insert into book (book_id_type, book_id, title) values (?, ?, ?)";
-        debugLogSql(log, sql, bookId.schema().name(), bookId.id(), title);
+        final var book = new Book(bookId, title, authors, keywords, formats);
+        insertBooks(List.of(book));
 
-        int count = template.update(sql, bookId.schema().name(), bookId.id(), title);
-        if (count != 1) {
-            final var details = "book id '" + bookId + "', title '" + title + "'";
-            log.error("Could not insert book (count is {}): {}", count, details);
-            throw ServiceError.BOOK_NOT_REGISTERED.exception(details);
-        }
+        log.debug("registerBook returns: {}", book);
+        return book;
+    }
 
-        for (var author : authors) {
-            final String sql2 = "insert into book_author (book_id_type, book_id, author_id) values (?, ?, ?)";
-            debugLogSql(log, sql2, bookId.schema().name(), bookId.id(), author.id().uuid().toString());
-
-            count = template.update(sql2, bookId.schema().name(), bookId.id(), author.id().uuid().toString());
-            if (count != 1) {
-                final var details = "book id '" + bookId + "', author id '" + author.id() + "'";
-                log.error("Could not insert book author (count is {}): {}", count, details);
-                throw ServiceError.BOOK_NOT_REGISTERED.exception(details);
-            }
+    /**
+     * Register the books with a single batch per table, for books, book authors, formats and keywords. The authors
+     * of the books must have been registered already.
+     * @param books Collection of Book
+     * @return Set of Book - the registered books
+     */
+    @Override
+    public Set<Book> registerBooks(Collection<Book> books) {
+        log.debug("registerBooks({} books)", books.size());
+
+        insertBooks(books);
+        return Books.ordered(books);
+    }
+
+    /**
+     * Insert the books, and their authors, formats and keywords, in four batches.
+     * @param books Collection of Book
+     * @return long number of inserted rows
+     */
+    long insertBooks(Collection<Book> books) {
+        final var bookRows = new ArrayList<Object[]>(books.size());
+        final var authorRows = new ArrayList<Object[]>();
+        final var formatRows = new ArrayList<Object[]>();
+        final var keywordRows = new ArrayList<Object[]>();
+        for (var book : books) {
+            final var type = book.id().schema().name();
+            final var id = book.id().id();
+            bookRows.add(new Object[]{type, id, book.title()});
+            book.authors().forEach(author -> authorRows.add(new Object[]{type, id, author.id().uuid().toString()}));
+            book.formats().forEach(format -> formatRows.add(new Object[]{type, id, format.toString()}));
+            book.keywords().forEach(keyword -> keywordRows.add(new Object[]{type, id, keyword}));
         }
 
-        for (MimeType format : formats) {
-            final String sql2 = "insert into book_format (book_id_type, book_id, format) values (?, ?, ?)";
-            debugLogSql(log, sql2, bookId.schema().name(), bookId.id(), format.toString());
+        final var details = books.size() == 1 ? "book " + books.iterator().next() : books.size() + " books";
+        return batchUpdate(INSERT_BOOK, bookRows, ServiceError.BOOK_NOT_REGISTERED, details)
+               + batchUpdate(INSERT_BOOK_AUTHOR, authorRows, ServiceError.BOOK_NOT_REGISTERED, details)
+               + batchUpdate(INSERT_BOOK_FORMAT, formatRows, ServiceError.BOOK_NOT_REGISTERED, details)
+               + batchUpdate(INSERT_BOOK_KEYWORD, keywordRows, ServiceError.BOOK_NOT_REGISTERED, details)
+               + (documents ? writeDocuments(withStoredAuthors(books)) : 0);
+    }
 
-            count = template.update(sql2, bookId.schema().name(), bookId.id(), format.toString());
-            if (count != 1) {
-                final var details = "book id '" + bookId + "', format id '" + format + "'";
-                log.error("Could not insert book format (count is {}): {}", count, details);
-                throw ServiceError.BOOK_NOT_REGISTERED.exception(details);
-            }
+    /*
+     * The books with their authors as stored in the database (the authors passed to registerBook might be incomplete,
+     * like the authors of an AuthorIndex, which have no sites), in two queries.
+     */
+    private List<Book> withStoredAuthors(Collection<Book> books) {
+        final var authorIds = books.stream()
+                .flatMap(book -> book.authors().stream())
+                .map(author -> author.id().uuid().toString())
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (authorIds.isEmpty())
+            return List.copyOf(books);
+
+        final var placeholders = String.join(", ", Collections.nCopies(authorIds.size(), "?"));
+        final var stored = queryAuthors("where author_id in (" + placeholders + ")", authorIds.toArray()).stream()
+                .collect(Collectors.toMap(Author::id, author -> author));
+        return books.stream()
+                .map(book -> new Book(book.id(), book.title(),
+                        book.authors().stream().map(author -> stored.getOrDefault(author.id(), author)).collect(Collectors.toSet()),
+                        book.keywords(), book.formats()))
+                .toList();
+    }
+
+    private long writeDocuments(Collection<Book> books) {
+        final var rows = books.stream()
+                .map(book -> new Object[]{book.id().schema().name(), book.id().id(), book.title(), BookDocuments.encode(book)})
+                .toList();
+        final var details = books.size() == 1 ? "book " + books.iterator().next() : books.size() + " books";
+        return batchUpdate(MERGE_BOOK_DOCUMENT, rows, ServiceError.BOOK_NOT_REGISTERED, details);
+    }
+
+    private void updateDocumentsOfAuthor(AuthorId authorId) {
+        if (!documents)
+            return;
+
+        final var books = queryTables(
+                "join book_author ba on ba.book_id_type = b.book_id_type and ba.book_id = b.book_id where ba.author_id = ?",
+                authorId.uuid());
+        writeDocuments(books);
+        log.debug("updated the documents of {} books of author '{}'", books.size(), authorId);
+    }
+
+    /**
+     * @return boolean - true when there is a document for every book, false when the documents still have to be
+     * (re)built, e.g. on a database that was written with the documents disabled
+     */
+    public boolean bookDocumentsComplete() {
+        final String sql = "select (select count(*) from book) = (select count(*) from book_document)";
+        SqlUtil.debugLogSql(log, sql);
+
+        return Boolean.TRUE.equals(template.queryForObject(sql, Boolean.class));
+    }
+
+    /**
+     * Regenerate the documents of all books from the normalized tables, page by page. Run it in a transaction, so
+     * readers never see an incomplete set of documents.
+     * @return int - number of documents written
+     */
+    public int rebuildBookDocuments() {
+        log.debug("rebuildBookDocuments()");
+
+        template.update("delete from book_document");
+        int count = 0;
+        var page = queryTables("order by title, book_id_type, book_id limit ?", REBUILD_PAGE_SIZE + 1);
+        while (!page.isEmpty()) {
+            final var items = page.subList(0, Math.min(page.size(), REBUILD_PAGE_SIZE));
+            writeDocuments(items);
+            count += items.size();
+            if (page.size() <= REBUILD_PAGE_SIZE)
+                break;
+
+            final var last = items.get(items.size() - 1);
+            page = queryTables("where (title, book_id_type, book_id) > (?, ?, ?) order by title, book_id_type, book_id limit ?",
+                    last.title(), last.id().schema().name(), last.id().id(), REBUILD_PAGE_SIZE + 1);
         }
+        log.debug("rebuilt {} book documents", count);
+        return count;
+    }
 
-        for (String keyword : keywords) {
-            final String sql3 = "insert into book_key_word (book_id_type, book_id, keyword) values (?, ?, ?)";
-            debugLogSql(log, sql3, bookId.schema().name(), bookId.id(), keyword);
+    /**
+     * Insert the authors and their sites, in two batches.
+     * @param authors Collection of Author
+     * @return long number of inserted rows
+     */
+    long insertAuthors(Collection<Author> authors) {
+        final var authorRows = new ArrayList<Object[]>(authors.size());
+        final var siteRows = new ArrayList<Object[]>();
+        for (var author : authors) {
+            final var authorId = author.id().uuid().toString();
+            authorRows.add(new Object[]{authorId, Timestamp.from(author.version()), author.name()});
+            author.sites().forEach((type, url) -> siteRows.add(new Object[]{authorId, type.name(), url.toString()}));
+        }
+
+        final var details = authors.size() + " authors";
+        return batchUpdate(INSERT_AUTHOR, authorRows, ServiceError.AUTHOR_NOT_REGISTERED, details)
+               + batchUpdate(INSERT_SITE, siteRows, ServiceError.AUTHOR_NOT_REGISTERED, details);
+    }
 
-            count = template.update(sql3, bookId.schema().name(), bookId.id(), keyword);
-            if (count != 1) {
-                final var details = "book id '" + bookId + "', keyword '" + keyword + "'";
-                log.error("Could not insert book keywords (count is {}): {}", count, details);
-                throw ServiceError.BOOK_NOT_REGISTERED.exception(details);
+    private long batchUpdate(String sql, List<Object[]> rows, ServiceError error, String details) {
+        if (rows.isEmpty())
+            return 0;
+
+        log.debug("{}; -- batch of {} rows", sql, rows.size());
+        long total = 0;
+        for (int count : template.batchUpdate(sql, rows)) {
+            if (count == 0) {
+                log.error("Could not insert all rows ({}): {}", sql, details);
+                throw error.exception(details);
             }
+            total += count < 0 ? 1 : count;
         }
-
-        final var book = findBookById(bookId);
-        log.debug("registerBook returns: {}", book);
-        return book;
+        return total;
     }
 }
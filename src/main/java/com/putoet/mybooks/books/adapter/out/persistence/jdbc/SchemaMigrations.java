@@ -0,0 +1,151 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Class SchemaMigrations
+ * <p>
+ * Versioned evolution of the database schema. The schema created by schema.sql is version 1 (the baseline), and
+ * each change to it is a script db/migration/V&lt;version&gt;__&lt;description&gt;.sql on the class path. On
+ * startup (after schema.sql and data.sql have run, when the database is initialized by Spring Boot) the scripts of
+ * the versions that were not applied yet are run in order of version, and registered in the schema_version table.
+ * A database without tables is created from schema.sql first.
+ * </p>
+ * <p>
+ * Scripts are not changed once they are released, a change to the schema always is a new version. The migrations only
+ * run with the jdbc profile, which is the only one that reads and writes through the migrated schema.
+ * </p>
+ */
+@Component
+@Profile("jdbc")
+@DependsOnDatabaseInitialization
+public class SchemaMigrations implements InitializingBean {
+    public static final Logger log = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    public static final String BASELINE = "classpath:schema.sql";
+    public static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final JdbcTemplate template;
+    private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    /**
+     * A versioned change of the schema.
+     * @param version int - order of the migrations, unique
+     * @param description String - taken from the script name, with underscores replaced by spaces
+     * @param script Resource
+     */
+    public record Migration(int version, String description, Resource script) {}
+
+    public SchemaMigrations(JdbcTemplate template) {
+        this.template = template;
+        log.debug("SchemaMigrations({})", template);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    /**
+     * Applies the migrations that were not applied yet, in order of version.
+     * @return List of the applied migrations, empty when the schema was up to date
+     */
+    public List<Migration> migrate() {
+        log.debug("migrate()");
+
+        template.execute("create table if not exists schema_version (" +
+                         "version int not null, " +
+                         "description varchar(256) not null, " +
+                         "installed_on timestamp not null, " +
+                         "execution_time int not null, " +
+                         "primary key (version))");
+
+        final var applied = new HashSet<>(template.queryForList("select version from schema_version", Integer.class));
+        if (!applied.contains(1)) {
+            final long start = System.currentTimeMillis();
+            if (!tableExists("BOOK"))
+                run(resolver.getResource(BASELINE));
+            register(new Migration(1, "baseline", resolver.getResource(BASELINE)), start);
+        }
+
+        final var pending = migrations().stream()
+                .filter(migration -> !applied.contains(migration.version()))
+                .toList();
+        for (var migration : pending) {
+            log.info("Migrating schema to version {} ({})", migration.version(), migration.description());
+            final long start = System.currentTimeMillis();
+            run(migration.script());
+            register(migration, start);
+        }
+        return pending;
+    }
+
+    /**
+     * @return int - the highest applied version, or 0 if no version was applied
+     */
+    public int version() {
+        final var version = template.queryForObject("select max(version) from schema_version", Integer.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * All migrations on the class path, in order of version.
+     * @return List of Migration
+     */
+    public List<Migration> migrations() {
+        try {
+            final var migrations = new TreeMap<Integer, Migration>();
+            for (var script : resolver.getResources(LOCATION)) {
+                final var matcher = SCRIPT_NAME.matcher(Objects.requireNonNull(script.getFilename()));
+                if (!matcher.matches())
+                    throw new IllegalStateException("Invalid migration script name " + script.getFilename());
+
+                final var migration = new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), script);
+                if (migrations.put(migration.version(), migration) != null)
+                    throw new IllegalStateException("Duplicate migration version " + migration.version());
+            }
+            return List.copyOf(migrations.values());
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Could not list the migration scripts", exc);
+        }
+    }
+
+    private boolean tableExists(String table) {
+        final var count = template.queryForObject(
+                "select count(*) from information_schema.tables where table_schema = schema() and table_name = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private void run(Resource script) {
+        template.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, script);
+            return null;
+        });
+    }
+
+    private void register(Migration migration, long start) {
+        template.update("insert into schema_version (version, description, installed_on, execution_time) values (?, ?, ?, ?)",
+                migration.version(), migration.description(), Timestamp.from(Instant.now()),
+                (int) (System.currentTimeMillis() - start));
+    }
+}
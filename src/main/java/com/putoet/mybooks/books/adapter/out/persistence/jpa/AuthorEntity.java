@@ -1,13 +1,24 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.Instant;
 import java.util.*;
 
 @Entity
 @Table(name = "author")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = AuthorEntity.SITES, attributeNodes = @NamedAttributeNode("sites"))
 public class AuthorEntity {
+    /**
+     * Fetch plan with everything needed for a domain Author: the sites
+     */
+    public static final String SITES = "AuthorEntity.sites";
+
     @Id
     @Column(name = "author_id", updatable = false, nullable = false)
     private UUID authorId;
@@ -19,10 +30,12 @@ public class AuthorEntity {
     private String name;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "site", joinColumns = @JoinColumn(name = "author_id"))
     @MapKeyEnumerated(EnumType.STRING)
     @MapKeyColumn(name = "name")
     @Column(name = "url")
+    @BatchSize(size = BookEntity.BATCH_SIZE)
     private Map<String, String> sites = new HashMap<>();
 
     @ManyToMany(mappedBy = "authors")
@@ -1,12 +1,52 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.AuthorRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.SiteRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface AuthorJpaRepository extends JpaRepository<AuthorEntity, UUID> {
+    String AUTHOR_ROW = "new com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections$AuthorRow(a.authorId, a.version, a.name)";
+    String SITE_ROW = "new com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections$SiteRow(a.authorId, key(s), value(s))";
+
+    @Override
+    @EntityGraph(AuthorEntity.SITES)
+    Optional<AuthorEntity> findById(UUID authorId);
+
+    @EntityGraph(AuthorEntity.SITES)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<AuthorEntity> findAuthorEntityByNameContainsIgnoreCase(String name);
+
+    @Query("select " + AUTHOR_ROW + " from AuthorEntity a")
+    List<AuthorRow> findAllRows();
+
+    @Query("select " + AUTHOR_ROW + " from AuthorEntity a where a.authorId in :authorIds")
+    List<AuthorRow> findRows(Collection<UUID> authorIds);
+
+    @Query("select " + AUTHOR_ROW + " from AuthorEntity a order by a.name, a.authorId")
+    List<AuthorRow> findFirstPage(Limit limit);
+
+    @Query("select " + AUTHOR_ROW + """
+             from AuthorEntity a
+            where a.name > :name or (a.name = :name and a.authorId > :authorId)
+            order by a.name, a.authorId""")
+    List<AuthorRow> findPageAfter(String name, UUID authorId, Limit limit);
+
+    @Query("select " + SITE_ROW + " from AuthorEntity a join a.sites s")
+    List<SiteRow> findAllSiteRows();
+
+    @Query("select " + SITE_ROW + " from AuthorEntity a join a.sites s where a.authorId in :authorIds")
+    List<SiteRow> findSiteRows(Collection<UUID> authorIds);
 }
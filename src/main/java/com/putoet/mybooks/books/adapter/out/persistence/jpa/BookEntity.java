@@ -1,13 +1,41 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
 @Table(name = "book")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = BookEntity.DETAILS,
+        attributeNodes = {
+                @NamedAttributeNode("formats"),
+                @NamedAttributeNode("keywords"),
+                @NamedAttributeNode(value = "authors", subgraph = "authors")
+        },
+        subgraphs = @NamedSubgraph(name = "authors", attributeNodes = @NamedAttributeNode("sites"))
+)
+@NamedEntityGraph(name = BookEntity.AUTHORS, attributeNodes = @NamedAttributeNode("authors"))
 public class BookEntity {
+    /**
+     * Fetch plan with everything needed for a domain Book: formats, keywords, and the authors with their sites
+     */
+    public static final String DETAILS = "BookEntity.details";
+
+    /**
+     * Fetch plan for lists of books: only the authors are joined, so every book takes a row per author. The formats,
+     * keywords and sites are loaded afterwards, in batches of BATCH_SIZE books (or authors), instead of multiplying
+     * the rows of the list.
+     */
+    public static final String AUTHORS = "BookEntity.authors";
+
+    public static final int BATCH_SIZE = 100;
+
     @EmbeddedId
     private BookIdEntity bookId;
 
@@ -15,14 +43,17 @@ public class BookEntity {
     private String title;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "book_format", joinColumns = {
             @JoinColumn(name = "book_id_type", referencedColumnName = "book_id_type"),
             @JoinColumn(name = "book_id", referencedColumnName = "book_id")
     })
     @Column(name = "format")
+    @BatchSize(size = BATCH_SIZE)
     private Set<String> formats;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "book_author", joinColumns = {
             @JoinColumn(name = "book_id_type", referencedColumnName = "book_id_type"),
             @JoinColumn(name = "book_id", referencedColumnName = "book_id")
@@ -32,12 +63,13 @@ public class BookEntity {
     private Set<AuthorEntity> authors;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "book_key_word", joinColumns = {
             @JoinColumn(name = "book_id_type", referencedColumnName = "book_id_type"),
             @JoinColumn(name = "book_id", referencedColumnName = "book_id")
     })
-
     @Column(name = "keyword")
+    @BatchSize(size = BATCH_SIZE)
     private Set<String> keywords;
 
     public BookEntity() {
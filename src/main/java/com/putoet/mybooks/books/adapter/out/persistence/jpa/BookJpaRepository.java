@@ -1,15 +1,76 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookAuthorRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookValueRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
 @Repository
 public interface BookJpaRepository extends JpaRepository<BookEntity, BookIdEntity> {
+    String BOOK_ROW = "new com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections$BookRow(b.bookId.idType, b.bookId.id, b.title)";
+    String BOOK_VALUE_ROW = "new com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections$BookValueRow(b.bookId.idType, b.bookId.id, v)";
+    String BOOK_AUTHOR_ROW = "new com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections$BookAuthorRow(b.bookId.idType, b.bookId.id, a.authorId)";
+
+    @Override
+    @EntityGraph(BookEntity.DETAILS)
+    Optional<BookEntity> findById(BookIdEntity bookId);
+
+    @EntityGraph(BookEntity.AUTHORS)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Set<BookEntity> findBookEntityByTitleContainsIgnoreCase(String title);
 
     Set<BookEntity> findBookEntityByAuthors_NameContainsIgnoreCase(String name);
 
-    Set<BookEntity> findBookEntityByAuthorsContains(AuthorEntity author);
+    @EntityGraph(BookEntity.AUTHORS)
+    @Query("select b from BookEntity b join b.authors a where a.authorId = :authorId")
+    Set<BookEntity> findByAuthorId(UUID authorId);
+
+    @EntityGraph(BookEntity.AUTHORS)
+    @Query("select b from BookEntity b where exists (select 1 from b.authors a where a.authorId in :authorIds)")
+    Set<BookEntity> findByAuthorIds(Collection<UUID> authorIds);
+
+    @Query("select " + BOOK_ROW + " from BookEntity b")
+    List<BookRow> findAllRows();
+
+    @Query("select " + BOOK_ROW + " from BookEntity b order by b.title, b.bookId.idType, b.bookId.id")
+    List<BookRow> findFirstPage(Limit limit);
+
+    @Query("select " + BOOK_ROW + """
+             from BookEntity b
+            where b.title > :title
+               or (b.title = :title and (b.bookId.idType > :idType
+               or (b.bookId.idType = :idType and b.bookId.id > :id)))
+            order by b.title, b.bookId.idType, b.bookId.id""")
+    List<BookRow> findPageAfter(String title, String idType, String id, Limit limit);
+
+    @Query("select " + BOOK_VALUE_ROW + " from BookEntity b join b.formats v")
+    List<BookValueRow> findAllFormatRows();
+
+    @Query("select " + BOOK_VALUE_ROW + " from BookEntity b join b.formats v where b.bookId in :bookIds")
+    List<BookValueRow> findFormatRows(Collection<BookIdEntity> bookIds);
+
+    @Query("select " + BOOK_VALUE_ROW + " from BookEntity b join b.keywords v")
+    List<BookValueRow> findAllKeywordRows();
+
+    @Query("select " + BOOK_VALUE_ROW + " from BookEntity b join b.keywords v where b.bookId in :bookIds")
+    List<BookValueRow> findKeywordRows(Collection<BookIdEntity> bookIds);
+
+    @Query("select " + BOOK_AUTHOR_ROW + " from BookEntity b join b.authors a")
+    List<BookAuthorRow> findAllAuthorRows();
+
+    @Query("select " + BOOK_AUTHOR_ROW + " from BookEntity b join b.authors a where b.bookId in :bookIds")
+    List<BookAuthorRow> findAuthorRows(Collection<BookIdEntity> bookIds);
 }
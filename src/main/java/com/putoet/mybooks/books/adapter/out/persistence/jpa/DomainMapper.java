@@ -1,5 +1,7 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.AuthorRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookRow;
 import com.putoet.mybooks.books.domain.*;
 import jakarta.activation.MimeType;
 import org.slf4j.Logger;
@@ -8,9 +10,8 @@ import org.springframework.stereotype.Service;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Objects;
+import java.time.Instant;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,18 +19,26 @@ public class DomainMapper {
     public static final Logger log  = LoggerFactory.getLogger(DomainMapper.class);
 
     Author toDomain(AuthorEntity entity) {
+        return toDomain(entity.getAuthorId(), entity.getVersion(), entity.getName(), entity.getSites());
+    }
+
+    Author toDomain(AuthorRow row, Map<String, String> sites) {
+        return toDomain(row.authorId(), row.version(), row.name(), sites);
+    }
+
+    private Author toDomain(UUID authorId, Instant version, String name, Map<String, String> entitySites) {
         final var sites = new HashMap<SiteType, URL>();
-        for (var entry : entity.getSites().entrySet()) {
+        for (var entry : entitySites.entrySet()) {
             try {
                 final var siteType = SiteType.of(entry.getKey());
                 final var url = new URL(entry.getValue());
                 sites.put(siteType, url);
             } catch (MalformedURLException exc) {
-                log.error("Author entity with key {} has an invalid URL {} for site type {} which will be ignored", entity.getAuthorId(), entry.getValue(), entry.getKey());
+                log.error("Author entity with key {} has an invalid URL {} for site type {} which will be ignored", authorId, entry.getValue(), entry.getKey());
             }
         }
 
-        return new Author(new AuthorId(entity.getAuthorId()), entity.getVersion(), entity.getName(), Collections.unmodifiableMap(sites));
+        return new Author(new AuthorId(authorId), version, name, Collections.unmodifiableMap(sites));
     }
 
     Book toDomain(BookEntity entity) {
@@ -43,6 +52,16 @@ public class DomainMapper {
         );
     }
 
+    Book toDomain(BookRow row, Set<Author> authors, Set<String> keywords, Set<String> formats) {
+        return new Book(
+                new BookId(row.idType(), row.id()),
+                row.title(),
+                authors,
+                keywords,
+                formats.stream().map(MimeTypes::toMimeType).collect(Collectors.toSet())
+        );
+    }
+
     AuthorEntity fromDomain(Author author) {
         final var entity = new AuthorEntity();
         if (Objects.nonNull(author.id())) entity.setAuthorId(author.id().uuid());
@@ -1,16 +1,27 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.AuthorRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookAuthorRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.BookValueRow;
+import com.putoet.mybooks.books.adapter.out.persistence.jpa.JpaProjections.SiteRow;
 import com.putoet.mybooks.books.application.port.in.ServiceError;
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
 import com.putoet.mybooks.books.domain.*;
 import jakarta.activation.MimeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.net.URL;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -21,15 +32,23 @@ import java.util.stream.Collectors;
 public class JpaBookRepository implements BookPersistenceUpdatePort {
     public static final Logger log = LoggerFactory.getLogger(JpaBookRepository.class);
 
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
     private final DomainMapper mapper;
     private final AuthorJpaRepository authorRepository;
     private final BookJpaRepository bookRepository;
+    private final EntityManager entityManager;
+    private final int batchSize;
 
-    public JpaBookRepository(DomainMapper mapper, AuthorJpaRepository authorRepository, BookJpaRepository bookRepository) {
+    public JpaBookRepository(DomainMapper mapper, AuthorJpaRepository authorRepository, BookJpaRepository bookRepository,
+                             EntityManager entityManager,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:" + DEFAULT_BATCH_SIZE + "}") int batchSize) {
         this.mapper = mapper;
         this.authorRepository = authorRepository;
         this.bookRepository = bookRepository;
-        log.debug("JpaBookRepository('{}','{}','{}')", mapper, authorRepository, bookRepository);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        log.debug("JpaBookRepository('{}','{}','{}',{})", mapper, authorRepository, bookRepository, batchSize);
     }
 
     @Override
@@ -91,26 +110,90 @@ public class JpaBookRepository implements BookPersistenceUpdatePort {
     public Book registerBook(BookId bookId, String title, Set<Author> authors, Set<MimeType> formats, Set<String> keywords) {
         log.debug("registerBook('{}','{}','{}','{}','{}')", bookId, title, authors, formats, keywords);
 
+        final var newBook = bookRepository.save(bookEntity(bookId, title, authors, formats, keywords));
+        final var result = mapper.toDomain(newBook);
+        log.debug("registerBook returns: {}", result);
+
+        return result;
+    }
+
+    /**
+     * Persists the books in the current transaction, with the JDBC batches of Hibernate (with ordered inserts, a
+     * batch per table for the books, authors, formats and keywords). The persistence context is flushed and cleared
+     * after every batch of books, so the memory used doesn't grow with the number of books. Entities loaded before in
+     * the same transaction are detached as well. The authors must exist, and are read at most once per batch.
+     * @param books Collection of Book
+     * @return Set of Book - the registered books
+     */
+    @Override
+    public Set<Book> registerBooks(Collection<Book> books) {
+        log.debug("registerBooks({} books)", books.size());
+
+        final var details = books.size() + " books";
+        try {
+            int count = 0;
+            for (var book : books) {
+                final var entity = new BookEntity();
+                entity.setBookId(new BookIdEntity(book.id().schema().name(), book.id().id()));
+                entity.setTitle(book.title());
+                entity.setAuthors(book.authors().stream()
+                        .map(author -> entityManager.getReference(AuthorEntity.class, author.id().uuid()))
+                        .collect(Collectors.toSet()));
+                entity.setFormats(book.formats().stream().map(MimeType::toString).collect(Collectors.toSet()));
+                entity.setKeywords(book.keywords());
+                entityManager.persist(entity);
+
+                if (++count % batchSize == 0)
+                    flushAndClear();
+            }
+            flushAndClear();
+        } catch (PersistenceException exc) {
+            log.error("Could not register {}: {}", details, exc.getMessage());
+            throw ServiceError.BOOK_NOT_REGISTERED.exception(details);
+        }
+
+        final var result = Books.ordered(books);
+        log.debug("registerBooks returns {} books", result.size());
+
+        return result;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private BookEntity bookEntity(BookId bookId, String title, Set<Author> authors, Set<MimeType> formats, Set<String> keywords) {
         final BookEntity book = new BookEntity();
         book.setBookId(new BookIdEntity(bookId.schema().name(), bookId.id()));
         book.setTitle(title);
         book.setAuthors(authors.stream().map(mapper::fromDomain).collect(Collectors.toSet()));
         book.setFormats(formats.stream().map(MimeType::toString).collect(Collectors.toSet()));
         book.setKeywords(keywords);
+        return book;
+    }
 
-        final var newBook = bookRepository.save(book);
-        final var result = mapper.toDomain(newBook);
-        log.debug("registerBook returns: {}", result);
-
-        return result;
+    @Override
+    public Page<Author> findAuthors(AuthorCursor after, int limit) {
+        log.debug("findAuthors('{}', {})", after, limit);
+
+        final var rows = after == null ?
+                authorRepository.findFirstPage(Limit.of(limit + 1)) :
+                authorRepository.findPageAfter(after.name(), after.id().uuid(), Limit.of(limit + 1));
+        final var authors = authors(rows, rows.isEmpty() ? List.of() :
+                authorRepository.findSiteRows(rows.stream().map(AuthorRow::authorId).toList()));
+        final var page = Page.of(rows.stream().map(row -> authors.get(row.authorId())).toList(), limit, AuthorCursor::encode);
+        log.debug("findAuthors returns page of {} authors", page.items().size());
+
+        return page;
     }
 
     @Override
     public Set<Author> findAuthors() {
         log.debug("findAuthors()");
 
-        final var authors = authorRepository.findAll();
-        final var result = Authors.ordered(authors.stream().map(mapper::toDomain).collect(Collectors.toSet()));
+        final var authors = authors(authorRepository.findAllRows(), authorRepository.findAllSiteRows());
+        final var result = Authors.ordered(authors.values());
         log.debug("findAuthors returns: {}", result);
 
         return result;
@@ -133,13 +216,27 @@ public class JpaBookRepository implements BookPersistenceUpdatePort {
         return author.map(mapper::toDomain).orElse(null);
     }
 
+    @Override
+    public Page<Book> findBooks(BookCursor after, int limit) {
+        log.debug("findBooks('{}', {})", after, limit);
+
+        final var rows = after == null ?
+                bookRepository.findFirstPage(Limit.of(limit + 1)) :
+                bookRepository.findPageAfter(after.title(), after.id().schema().name(), after.id().id(), Limit.of(limit + 1));
+        final var page = Page.of(books(rows), limit, BookCursor::encode);
+        log.debug("find books returns page of {} books", page.items().size());
+
+        return page;
+    }
+
     @Override
     public Set<Book> findBooks() {
         log.debug("findBooks()");
 
-        final var books = bookRepository.findAll().stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toSet());
+        final var bookAuthors = bookRepository.findAllAuthorRows();
+        final var authors = authors(authorRepository.findAllRows(), authorRepository.findAllSiteRows());
+        final var books = Set.copyOf(books(bookRepository.findAllRows(), bookAuthors, authors,
+                bookRepository.findAllKeywordRows(), bookRepository.findAllFormatRows()));
         log.debug("find books returns: {}", books);
 
         return books;
@@ -173,13 +270,77 @@ public class JpaBookRepository implements BookPersistenceUpdatePort {
     public Set<Book> findBooksByAuthorId(AuthorId authorId) {
         log.debug("findBooksByAuthorId('{}')", authorId);
 
-        final var author = authorRepository.findById(authorId.uuid());
-        final var result = author.map(authorEntity -> bookRepository.findBookEntityByAuthorsContains(authorEntity).stream()
-                        .map(mapper::toDomain)
-                        .collect(Collectors.toSet()))
-                .orElseGet(Set::of);
+        final var result = bookRepository.findByAuthorId(authorId.uuid()).stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toSet());
 
         log.debug("find books by author id returns: {}", result);
         return result;
     }
+
+    @Override
+    public Set<Book> findBooksByAuthorIds(Collection<AuthorId> authorIds) {
+        log.debug("findBooksByAuthorIds('{}')", authorIds);
+
+        if (authorIds.isEmpty())
+            return Set.of();
+
+        final var result = bookRepository.findByAuthorIds(authorIds.stream().map(AuthorId::uuid).toList()).stream()
+                .map(mapper::toDomain)
+                .collect(Collectors.toSet());
+        log.debug("find books by author ids returns: {}", result);
+        return result;
+    }
+
+    /*
+     * Assembles the books of a page of rows with three more queries, for the keywords, formats and authors of
+     * the page, plus two for those authors and their sites, so no entity is loaded.
+     */
+    private List<Book> books(List<BookRow> rows) {
+        if (rows.isEmpty())
+            return List.of();
+
+        final var bookIds = rows.stream().map(row -> new BookIdEntity(row.idType(), row.id())).toList();
+        final var bookAuthors = bookRepository.findAuthorRows(bookIds);
+        final var authorIds = bookAuthors.stream().map(BookAuthorRow::authorId).distinct().toList();
+        final var authors = authorIds.isEmpty() ? Map.<UUID, Author>of() :
+                authors(authorRepository.findRows(authorIds), authorRepository.findSiteRows(authorIds));
+
+        return books(rows, bookAuthors, authors, bookRepository.findKeywordRows(bookIds), bookRepository.findFormatRows(bookIds));
+    }
+
+    private List<Book> books(List<BookRow> rows, List<BookAuthorRow> bookAuthors, Map<UUID, Author> authors,
+                             List<BookValueRow> keywords, List<BookValueRow> formats) {
+        final var authorsOfBook = bookAuthors.stream().collect(Collectors.groupingBy(
+                row -> new BookIdEntity(row.idType(), row.id()),
+                Collectors.mapping(row -> authors.get(row.authorId()), Collectors.toSet())));
+        final var keywordsOfBook = values(keywords);
+        final var formatsOfBook = values(formats);
+
+        return rows.stream()
+                .map(row -> {
+                    final var bookId = new BookIdEntity(row.idType(), row.id());
+                    return mapper.toDomain(row,
+                            authorsOfBook.getOrDefault(bookId, Set.of()),
+                            keywordsOfBook.getOrDefault(bookId, Set.of()),
+                            formatsOfBook.getOrDefault(bookId, Set.of()));
+                })
+                .toList();
+    }
+
+    private static Map<BookIdEntity, Set<String>> values(List<BookValueRow> rows) {
+        return rows.stream().collect(Collectors.groupingBy(
+                row -> new BookIdEntity(row.idType(), row.id()),
+                Collectors.mapping(BookValueRow::value, Collectors.toSet())));
+    }
+
+    private Map<UUID, Author> authors(List<AuthorRow> rows, List<SiteRow> siteRows) {
+        final var sites = siteRows.stream().collect(Collectors.groupingBy(
+                SiteRow::authorId,
+                Collectors.toMap(SiteRow::name, SiteRow::url)));
+
+        return rows.stream().collect(Collectors.toMap(
+                AuthorRow::authorId,
+                row -> mapper.toDomain(row, sites.getOrDefault(row.authorId(), Map.of()))));
+    }
 }
@@ -0,0 +1,27 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jpa;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Class JpaProjections
+ * Read-only rows selected by the list queries of the JPA repositories with constructor expressions. Unlike entities,
+ * they are not managed by the persistence context, and have no lazy associations, so a list of books is read with a
+ * fixed number of queries, whatever the number of books.
+ */
+public final class JpaProjections {
+    private JpaProjections() {}
+
+    public record BookRow(String idType, String id, String title) {}
+
+    /**
+     * A format or keyword of a book.
+     */
+    public record BookValueRow(String idType, String id, String value) {}
+
+    public record BookAuthorRow(String idType, String id, UUID authorId) {}
+
+    public record AuthorRow(UUID authorId, Instant version, String name) {}
+
+    public record SiteRow(UUID authorId, String name, String url) {}
+}
@@ -0,0 +1,110 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jpa;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class LocalRegionFactory
+ * <p>
+ * In-process Hibernate second-level cache, with a bounded Guava cache per region (entity, collection, and query
+ * results). The maximum number of entries per region is set with the Hibernate property
+ * hibernate.cache.local.maximum_size (10000 by default). The update timestamps region, which decides whether cached
+ * query results are still valid, is never bounded, as losing a timestamp could resurrect stale query results.
+ * </p>
+ * <p>
+ * The cache is local to the JVM, so it is only correct as long as all writes to the database go through this
+ * application. See SecondLevelCacheConfiguration for enabling it.
+ * </p>
+ */
+public class LocalRegionFactory extends RegionFactoryTemplate {
+    public static final Logger log = LoggerFactory.getLogger(LocalRegionFactory.class);
+
+    public static final String MAXIMUM_SIZE = "hibernate.cache.local.maximum_size";
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        final var value = configValues.get(MAXIMUM_SIZE);
+        if (Objects.nonNull(value))
+            maximumSize = Long.parseLong(value.toString());
+
+        log.debug("prepareForUse({})", maximumSize);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        log.debug("releaseFromUse()");
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        log.debug("createDomainDataStorageAccess('{}')", regionConfig.getRegionName());
+
+        return new GuavaStorageAccess(CacheBuilder.newBuilder().maximumSize(maximumSize).build());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        log.debug("createQueryResultsRegionStorageAccess('{}')", regionName);
+
+        return new GuavaStorageAccess(CacheBuilder.newBuilder().maximumSize(maximumSize).build());
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        log.debug("createTimestampsRegionStorageAccess('{}')", regionName);
+
+        return new GuavaStorageAccess(CacheBuilder.newBuilder().build());
+    }
+
+    private record GuavaStorageAccess(Cache<Object, Object> cache) implements DomainDataStorageAccess {
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return cache.getIfPresent(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            if (Objects.isNull(value))
+                cache.invalidate(key);
+            else
+                cache.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.asMap().containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+    }
+}
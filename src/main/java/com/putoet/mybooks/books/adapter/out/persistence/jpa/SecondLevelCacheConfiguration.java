@@ -0,0 +1,45 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jpa;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.CacheSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Class SecondLevelCacheConfiguration
+ * When mybooks.jpa.second-level-cache.enabled is true, Hibernate caches the authors and books (and their sites,
+ * formats, keywords and authors) in the in-process LocalRegionFactory, with at most
+ * mybooks.jpa.second-level-cache.maximum-size entries per region, and caches the results of the searches of authors
+ * by name and books by title. Writes through the JpaBookRepository update or evict the cached entries, and
+ * invalidate the cached query results of the tables they change. The cache statistics are exposed as metrics by
+ * SecondLevelCacheMetrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mybooks.jpa.second-level-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+    public static final Logger log = LoggerFactory.getLogger(SecondLevelCacheConfiguration.class);
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${mybooks.jpa.second-level-cache.maximum-size:" + LocalRegionFactory.DEFAULT_MAXIMUM_SIZE + "}") long maximumSize) {
+        log.debug("secondLevelCacheCustomizer({})", maximumSize);
+
+        return properties -> {
+            properties.put(CacheSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(CacheSettings.USE_QUERY_CACHE, true);
+            properties.put(CacheSettings.CACHE_REGION_FACTORY, LocalRegionFactory.class.getName());
+            properties.put(LocalRegionFactory.MAXIMUM_SIZE, maximumSize);
+        };
+    }
+
+    @Bean
+    public SecondLevelCacheMetrics secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return new SecondLevelCacheMetrics(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+}
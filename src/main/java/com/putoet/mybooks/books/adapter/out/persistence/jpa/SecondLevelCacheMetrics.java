@@ -0,0 +1,68 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jpa;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Class SecondLevelCacheMetrics
+ * <p>
+ * Micrometer metrics on the Hibernate second-level cache, read from the Hibernate statistics
+ * (hibernate.generate_statistics must be true):
+ * <ul>
+ *     <li>hibernate.second.level.cache.requests - lookups per region, tagged with result=hit or result=miss</li>
+ *     <li>hibernate.second.level.cache.puts - entries put per region</li>
+ *     <li>hibernate.cache.query.requests - lookups of cached query results, tagged with result=hit or result=miss</li>
+ *     <li>hibernate.cache.query.puts - query results put</li>
+ * </ul>
+ * The regions are the entities and their collections, e.g.
+ * region=com.putoet.mybooks.books.adapter.out.persistence.jpa.AuthorEntity.sites.
+ * </p>
+ */
+public class SecondLevelCacheMetrics implements MeterBinder {
+    private final Statistics statistics;
+
+    public SecondLevelCacheMetrics(Statistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics, "Statistics must be provided");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (var region : statistics.getSecondLevelCacheRegionNames()) {
+            counter(registry, "hibernate.second.level.cache.requests", region, "hit", CacheRegionStatistics::getHitCount);
+            counter(registry, "hibernate.second.level.cache.requests", region, "miss", CacheRegionStatistics::getMissCount);
+            counter(registry, "hibernate.second.level.cache.puts", region, null, CacheRegionStatistics::getPutCount);
+        }
+
+        FunctionCounter.builder("hibernate.cache.query.requests", statistics, Statistics::getQueryCacheHitCount)
+                .description("Cached query result lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.query.requests", statistics, Statistics::getQueryCacheMissCount)
+                .description("Cached query result lookups")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.query.puts", statistics, Statistics::getQueryCachePutCount)
+                .description("Query results put into the cache")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String region, String result,
+                         ToLongFunction<CacheRegionStatistics> count) {
+        final var builder = FunctionCounter.builder(name, statistics, stats -> {
+                    final var regionStatistics = stats.getCacheRegionStatistics(region);
+                    return Objects.isNull(regionStatistics) ? 0 : count.applyAsLong(regionStatistics);
+                })
+                .description(Objects.isNull(result) ? "Second-level cache entries put" : "Second-level cache lookups")
+                .tag("region", region);
+        if (Objects.nonNull(result))
+            builder.tag("result", result);
+
+        builder.register(registry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+/**
+ * Class ReadYourWrites
+ * Remembers for the current thread (which handles a single request) that it used the primary database for a
+ * read-write transaction, so later reads of the same request are routed to the primary as well, and see what the
+ * request wrote, even when the replica didn't catch up yet. Cleared at the end of each request by the
+ * ReadYourWritesFilter.
+ */
+public final class ReadYourWrites {
+    private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+    private ReadYourWrites() {}
+
+    public static void markWritten() {
+        WRITTEN.set(Boolean.TRUE);
+    }
+
+    public static boolean hasWritten() {
+        return WRITTEN.get() != null;
+    }
+
+    public static void clear() {
+        WRITTEN.remove();
+    }
+}
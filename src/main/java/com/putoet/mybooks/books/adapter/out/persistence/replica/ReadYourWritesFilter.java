@@ -0,0 +1,27 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Class ReadYourWritesFilter
+ * Limits the read-your-writes routing to the request that wrote, by clearing ReadYourWrites before and after each
+ * request (threads are reused for other requests).
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadYourWrites.clear();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+}
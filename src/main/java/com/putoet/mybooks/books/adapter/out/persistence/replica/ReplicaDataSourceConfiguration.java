@@ -0,0 +1,79 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Class ReplicaDataSourceConfiguration
+ * When mybooks.datasource.replica.url is set, the read-only transactions (all calls of the BookInquiryService) use
+ * a separate read replica of the database, while all other database access uses the primary database from
+ * spring.datasource. Reads fall back to the primary database when the replica lags more than
+ * mybooks.datasource.replica.max-lag behind, and for the rest of a request that wrote to the primary database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mybooks.datasource.replica.url")
+public class ReplicaDataSourceConfiguration {
+    public static final Logger log = LoggerFactory.getLogger(ReplicaDataSourceConfiguration.class);
+
+    @Bean(defaultCandidate = false)
+    public DataSource primaryDataSource(DataSourceProperties properties) {
+        log.debug("primaryDataSource('{}')", properties.getUrl());
+
+        return properties.initializeDataSourceBuilder().build();
+    }
+
+    @Bean(defaultCandidate = false)
+    public DataSource replicaDataSource(@Value("${mybooks.datasource.replica.url}") String url,
+                                        @Value("${mybooks.datasource.replica.username:sa}") String username,
+                                        @Value("${mybooks.datasource.replica.password:}") String password) {
+        log.debug("replicaDataSource('{}')", url);
+
+        return DataSourceBuilder.create()
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(@Qualifier("primaryDataSource") DataSource primary,
+                                           @Qualifier("replicaDataSource") DataSource replica,
+                                           @Value("${mybooks.datasource.replica.max-lag:5s}") Duration maxLag,
+                                           @Value("${mybooks.datasource.replica.heartbeat-interval:1s}") Duration interval) {
+        return new ReplicaLagGuard(new JdbcTemplate(primary), new JdbcTemplate(replica), maxLag, interval, Clock.systemUTC());
+    }
+
+    @Bean(defaultCandidate = false)
+    public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                      @Qualifier("replicaDataSource") DataSource replica,
+                                                      ReplicaLagGuard guard) {
+        log.info("Read-only transactions use the read replica, guarded by {}", guard);
+
+        return new ReplicaRoutingDataSource(primary, replica, guard);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("routingDataSource") ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter() {
+        return new ReadYourWritesFilter();
+    }
+}
@@ -0,0 +1,121 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ReplicaLagGuard
+ * Measures the replication lag of the read replica with a heartbeat: every interval, the current time is written
+ * into the replication_heartbeat table of the primary database, and the lag is the age of the heartbeat read from
+ * the replica. The replica is current when the lag is at most the maximum lag. The lag is checked at most once per
+ * interval, and a replica that can't be read is never current.
+ * <p>
+ * The measured lag includes up to one interval of heartbeat age, so the maximum lag should be a few intervals.
+ * </p>
+ */
+public class ReplicaLagGuard implements InitializingBean, DisposableBean {
+    public static final Logger log = LoggerFactory.getLogger(ReplicaLagGuard.class);
+
+    private static final String MERGE_BEAT = "merge into replication_heartbeat (id, beat) values (1, ?)";
+    private static final String SELECT_BEAT = "select beat from replication_heartbeat where id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+    private final Duration interval;
+    private final Clock clock;
+
+    private ScheduledExecutorService scheduler;
+    private volatile long checkedAt = Long.MIN_VALUE;
+    private volatile boolean current;
+
+    public ReplicaLagGuard(JdbcTemplate primary, JdbcTemplate replica, Duration maxLag, Duration interval, Clock clock) {
+        log.debug("ReplicaLagGuard({}, {})", maxLag, interval);
+
+        this.primary = Objects.requireNonNull(primary, "Primary database must be provided");
+        this.replica = Objects.requireNonNull(replica, "Replica database must be provided");
+        this.maxLag = Objects.requireNonNull(maxLag, "Maximum lag must be provided");
+        this.interval = Objects.requireNonNull(interval, "Heartbeat interval must be provided");
+        this.clock = Objects.requireNonNull(clock, "Clock must be provided");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (interval.isZero() || interval.isNegative())
+            throw new IllegalArgumentException("Heartbeat interval must be positive, but was " + interval);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::beat, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * Write the heartbeat into the primary database.
+     */
+    public void beat() {
+        try {
+            primary.update(MERGE_BEAT, Timestamp.from(clock.instant()));
+        } catch (RuntimeException exc) {
+            log.warn("Could not write the replication heartbeat: {}", exc.getMessage());
+        }
+    }
+
+    /**
+     * @return Optional of Duration - the replication lag, empty when the replica has no heartbeat or can't be read
+     */
+    public Optional<Duration> lag() {
+        try {
+            final var beat = replica.query(SELECT_BEAT, (row, rowNum) -> row.getTimestamp("beat"));
+            return beat.isEmpty() ? Optional.empty() : Optional.of(Duration.between(beat.get(0).toInstant(), clock.instant()));
+        } catch (RuntimeException exc) {
+            log.warn("Could not read the replication heartbeat from the replica: {}", exc.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return boolean true if the replication lag was at most the maximum lag when last checked
+     */
+    public boolean isReplicaCurrent() {
+        final long now = clock.millis();
+        if (checkedAt == Long.MIN_VALUE || now - checkedAt >= interval.toMillis()) {
+            final var lag = lag();
+            current = lag.map(found -> found.compareTo(maxLag) <= 0).orElse(false);
+            checkedAt = now;
+            if (!current)
+                log.warn("Replica is not current (lag {}, maximum {}), reads go to the primary database",
+                        lag.map(Duration::toString).orElse("unknown"), maxLag);
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicaLagGuard{" +
+               "maxLag=" + maxLag +
+               ", interval=" + interval +
+               ", current=" + current +
+               '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class ReplicaRoutingDataSource
+ * Routes the connections of read-only transactions to the read replica, and all other connections to the primary
+ * database. A read-only transaction still uses the primary when the replica lags behind (see ReplicaLagGuard), or
+ * when the current request already wrote to the primary (see ReadYourWrites).
+ * <p>
+ * The route is decided when a connection is requested, so the data source must be wrapped in a
+ * LazyConnectionDataSourceProxy, which requests the connection on its first use, after the transaction is marked
+ * read-only.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public enum Route {PRIMARY, REPLICA}
+
+    private final ReplicaLagGuard guard;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagGuard guard) {
+        Objects.requireNonNull(primary, "Primary data source must be provided");
+        Objects.requireNonNull(replica, "Replica data source must be provided");
+        this.guard = Objects.requireNonNull(guard, "Replica lag guard must be provided");
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        final var route = route();
+        log.debug("route is {}", route);
+        return route;
+    }
+
+    /**
+     * @return Route - the database for a connection requested by the current thread
+     */
+    public Route route() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReadYourWrites.markWritten();
+            return Route.PRIMARY;
+        }
+
+        return readsFromReplica() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    /**
+     * Unlike route(), this doesn't mark a read-write transaction as written.
+     * @return boolean true if a connection requested by the current thread would read from the replica
+     */
+    public boolean readsFromReplica() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+               && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+               && !ReadYourWrites.hasWritten()
+               && guard.isReplicaCurrent();
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicaRoutingDataSource{" +
+               "guard=" + guard +
+               '}';
+    }
+}
@@ -0,0 +1,199 @@
+package com.putoet.mybooks.books.adapter.out.search;
+
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
+import com.putoet.mybooks.books.domain.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Class InMemoryBookSearchIndex
+ * <p>
+ * Embedded inverted index for full-text search over the title, the author names and the keywords of books. Text is
+ * tokenized into words without diacritics and case, and each word (term) refers to the books that contain it, so a
+ * search only visits the books that match at least one term of the query, instead of scanning all titles and names.
+ * </p>
+ * <p>
+ * Results are ranked with BM25, where the frequency of a term in a book is weighted by the field it occurs in: a
+ * match in the title counts more than a match in an author name, which counts more than a match in a keyword.
+ * Each word of the query also matches terms it is a prefix of (e.g. "micro" matches "microservices"), at a lower
+ * weight than an exact match, so partial words typed by a user still find their books.
+ * </p>
+ * <p>
+ * The index is thread-safe. Searches share a read lock, updates take the write lock.
+ * </p>
+ */
+@Component
+public class InMemoryBookSearchIndex implements BookSearchPort {
+    public static final Logger log = LoggerFactory.getLogger(InMemoryBookSearchIndex.class);
+
+    static final double TITLE_WEIGHT = 3.0;
+    static final double AUTHOR_WEIGHT = 2.0;
+    static final double KEYWORD_WEIGHT = 1.0;
+    static final double PREFIX_WEIGHT = 0.5;
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<BookId, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Set<BookId>> postings = new TreeMap<>();
+    private double totalLength;
+
+    private record Document(Book book, Map<String, Double> terms, double length) {}
+
+    /**
+     * The words of a text, without diacritics and in lower case.
+     * @param text String
+     * @return List of String
+     */
+    static List<String> tokens(String text) {
+        if (text == null || text.isBlank())
+            return List.of();
+
+        final var stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(stripped.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    @Override
+    public void index(Collection<Book> books) {
+        log.debug("index({} books)", books.size());
+
+        lock.writeLock().lock();
+        try {
+            books.forEach(book -> {
+                remove(book.id());
+                add(book);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<BookId> bookIds) {
+        log.debug("remove({} books)", bookIds.size());
+
+        lock.writeLock().lock();
+        try {
+            bookIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BookSearchResult> search(String query, int limit) {
+        log.debug("search('{}', {})", query, limit);
+
+        final var words = new LinkedHashSet<>(tokens(query));
+        if (words.isEmpty() || limit < 1)
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty())
+                return List.of();
+
+            final double averageLength = totalLength / documents.size();
+            final var scores = new HashMap<BookId, Double>();
+            for (var word : words) {
+                // A book scores on its best matching term for each word, so many prefix matches don't add up
+                final var wordScores = new HashMap<BookId, Double>();
+                matches(word).forEach((term, weight) -> score(term, weight, averageLength, wordScores));
+                wordScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            return scores.entrySet().stream()
+                    .map(entry -> new BookSearchResult(documents.get(entry.getKey()).book(), entry.getValue()))
+                    .sorted(Comparator.comparingDouble(BookSearchResult::score).reversed()
+                            .thenComparing(BookSearchResult::book, Books.ORDER))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * The terms matching a word of the query, with their weight: the word itself, and (a limited number of) the
+     * terms the word is a prefix of.
+     */
+    private Map<String, Double> matches(String word) {
+        final var matches = new LinkedHashMap<String, Double>();
+        if (postings.containsKey(word))
+            matches.put(word, 1.0);
+
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            postings.subMap(word, false, word + Character.MAX_VALUE, false).keySet().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .forEach(term -> matches.put(term, PREFIX_WEIGHT));
+        }
+        return matches;
+    }
+
+    private void score(String term, double weight, double averageLength, Map<BookId, Double> scores) {
+        final var ids = postings.get(term);
+        final double idf = Math.log(1.0 + (documents.size() - ids.size() + 0.5) / (ids.size() + 0.5));
+        for (var id : ids) {
+            final var document = documents.get(id);
+            final double tf = document.terms().get(term);
+            final double norm = K1 * (1.0 - B + B * document.length() / averageLength);
+            scores.merge(id, weight * idf * tf * (K1 + 1.0) / (tf + norm), Math::max);
+        }
+    }
+
+    private void add(Book book) {
+        final var terms = new HashMap<String, Double>();
+        tokens(book.title()).forEach(token -> terms.merge(token, TITLE_WEIGHT, Double::sum));
+        book.authors().forEach(author ->
+                tokens(author.name()).forEach(token -> terms.merge(token, AUTHOR_WEIGHT, Double::sum)));
+        book.keywords().forEach(keyword ->
+                tokens(keyword).forEach(token -> terms.merge(token, KEYWORD_WEIGHT, Double::sum)));
+
+        final double length = terms.values().stream().mapToDouble(Double::doubleValue).sum();
+        documents.put(book.id(), new Document(book, terms, length));
+        terms.keySet().forEach(term -> postings.computeIfAbsent(term, key -> new HashSet<>()).add(book.id()));
+        totalLength += length;
+    }
+
+    private void remove(BookId bookId) {
+        final var document = documents.remove(bookId);
+        if (document == null)
+            return;
+
+        document.terms().keySet().forEach(term -> {
+            final var ids = postings.get(term);
+            ids.remove(bookId);
+            if (ids.isEmpty())
+                postings.remove(term);
+        });
+        totalLength -= document.length();
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryBookSearchIndex{size=" + size() + '}';
+    }
+}
@@ -2,31 +2,35 @@ package com.putoet.mybooks.books.application;
 
 import com.putoet.mybooks.books.application.port.in.*;
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceQueryPort;
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
 import com.putoet.mybooks.books.domain.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Class BookInquiryService contains all services (In ports) that only do read actions. This enables an implementation
  * on different media, like for instance a folder with EPUB books. By separating read-only and write-services
  * in enables several nice features, like a simple approach to load a database from EPUB books on a file system.
+ * All services run in read-only transactions, which use the read replica of the database, when one is configured.
  */
 @Service
-@Transactional
+@Transactional(readOnly = true)
 public class BookInquiryService implements BookManagementInquiryPort {
     public static final Logger log = LoggerFactory.getLogger(BookInquiryService.class);
 
     private final BookPersistenceQueryPort bookPersistenceQueryPort;
+    private final BookSearchPort bookSearchPort;
 
-    public BookInquiryService(BookPersistenceQueryPort bookPersistenceQueryPort) {
+    public BookInquiryService(BookPersistenceQueryPort bookPersistenceQueryPort, BookSearchPort bookSearchPort) {
         this.bookPersistenceQueryPort = bookPersistenceQueryPort;
-        log.debug("BookInquiryService('{}", bookPersistenceQueryPort);
+        this.bookSearchPort = bookSearchPort;
+        log.debug("BookInquiryService('{}', '{}')", bookPersistenceQueryPort, bookSearchPort);
     }
 
     @Override
@@ -61,6 +65,16 @@ public class BookInquiryService implements BookManagementInquiryPort {
         return authors;
     }
 
+    @Override
+    public Page<Author> authors(AuthorCursor after, int limit) {
+        log.debug("authors('{}', {})", after, limit);
+
+        validatePageSize(limit);
+        final var authors = bookPersistenceQueryPort.findAuthors(after, limit);
+        log.debug("authors returns page of {} authors", authors.items().size());
+        return authors;
+    }
+
     @Override
     public Set<Book> books() {
         log.debug("books()");
@@ -70,6 +84,21 @@ public class BookInquiryService implements BookManagementInquiryPort {
         return books;
     }
 
+    @Override
+    public Page<Book> books(BookCursor after, int limit) {
+        log.debug("books('{}', {})", after, limit);
+
+        validatePageSize(limit);
+        final var books = bookPersistenceQueryPort.findBooks(after, limit);
+        log.debug("books returns page of {} books", books.items().size());
+        return books;
+    }
+
+    private static void validatePageSize(int limit) {
+        if (limit < 1 || limit > Page.MAX_SIZE)
+            throw ServiceError.PAGE_SIZE_INVALID.exception("page size must be between 1 and " + Page.MAX_SIZE + ", but was " + limit);
+    }
+
     @Override
     public Set<Book> booksByTitle(String title) {
         log.debug("booksByTitle('{}')", title);
@@ -82,6 +111,19 @@ public class BookInquiryService implements BookManagementInquiryPort {
         return books;
     }
 
+    @Override
+    public List<BookSearchResult> searchBooks(String query, int limit) {
+        log.debug("searchBooks('{}', {})", query, limit);
+
+        if (query == null || query.isBlank())
+            throw ServiceError.SEARCH_QUERY_REQUIRED.exception();
+        validatePageSize(limit);
+
+        final var books = bookSearchPort.search(query, limit);
+        log.debug("search books returns {} books", books.size());
+        return books;
+    }
+
     @Override
     public Optional<Book> bookById(BookId bookId) {
         log.debug("bookById('{}')", bookId);
@@ -102,9 +144,8 @@ public class BookInquiryService implements BookManagementInquiryPort {
             throw ServiceError.AUTHOR_NAME_REQUIRED.exception();
 
         final Set<Author> authors = authorsByName(name);
-        final var books = authors.stream()
-                .flatMap(author -> bookPersistenceQueryPort.findBooksByAuthorId(author.id()).stream())
-                .collect(Collectors.toSet());
+        final var books = authors.isEmpty() ? Set.<Book>of() :
+                bookPersistenceQueryPort.findBooksByAuthorIds(authors.stream().map(Author::id).toList());
         log.debug("books by author name returns: {}", books);
         return books;
     }
@@ -128,6 +169,7 @@ public class BookInquiryService implements BookManagementInquiryPort {
     public String toString() {
         return "BookInquiryService{" +
                "bookPersistenceQueryPort=" + bookPersistenceQueryPort +
+               ", bookSearchPort=" + bookSearchPort +
                '}';
     }
 }
@@ -0,0 +1,43 @@
+package com.putoet.mybooks.books.application;
+
+import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceQueryPort;
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Class BookSearchIndexer
+ * Fills the search index with all books from the repository when the application has started. From then on, the
+ * index is kept up to date by the BookUpdateService. A failure to read the books doesn't stop the application, it
+ * only leaves the search index empty.
+ */
+@Component
+public class BookSearchIndexer {
+    public static final Logger log = LoggerFactory.getLogger(BookSearchIndexer.class);
+
+    private final BookPersistenceQueryPort bookPersistenceQueryPort;
+    private final BookSearchPort bookSearchPort;
+
+    public BookSearchIndexer(BookPersistenceQueryPort bookPersistenceQueryPort, BookSearchPort bookSearchPort) {
+        this.bookPersistenceQueryPort = bookPersistenceQueryPort;
+        this.bookSearchPort = bookSearchPort;
+        log.debug("BookSearchIndexer('{}', '{}')", bookPersistenceQueryPort, bookSearchPort);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.debug("rebuild()");
+
+        final long start = System.currentTimeMillis();
+        try {
+            final var books = bookPersistenceQueryPort.findBooks();
+            bookSearchPort.index(books);
+            log.info("Indexed {} books for search in {} ms", books.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException exc) {
+            log.error("Could not index the books for search", exc);
+        }
+    }
+}
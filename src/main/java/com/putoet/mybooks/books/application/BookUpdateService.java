@@ -3,6 +3,7 @@ package com.putoet.mybooks.books.application;
 import com.putoet.mybooks.books.application.port.in.BookManagementUpdatePort;
 import com.putoet.mybooks.books.application.port.in.ServiceError;
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
 import com.putoet.mybooks.books.application.security.event.AuthorCreatedSecurityEvent;
 import com.putoet.mybooks.books.application.security.event.AuthorDeletedSecurityEvent;
 import com.putoet.mybooks.books.application.security.event.BookCreatedSecurityEvent;
@@ -13,15 +14,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.net.URL;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Class BookUpdateService
- * Service provides write services for the book repository
+ * Service provides write services for the book repository. Registered books, and books of updated authors, are
+ * (re)indexed in the search index once the transaction has committed. An author with books can't be forgotten, so
+ * forgetting an author never changes the index.
  */
 @Service
 @Transactional
@@ -30,11 +37,15 @@ public class BookUpdateService implements BookManagementUpdatePort {
 
     private final BookPersistenceUpdatePort bookPersistenceUpdatePort;
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final BookSearchPort bookSearchPort;
 
-    public BookUpdateService(BookPersistenceUpdatePort bookPersistenceUpdatePort, ApplicationEventPublisher applicationEventPublisher) {
+    public BookUpdateService(BookPersistenceUpdatePort bookPersistenceUpdatePort,
+                             ApplicationEventPublisher applicationEventPublisher,
+                             BookSearchPort bookSearchPort) {
         this.bookPersistenceUpdatePort = bookPersistenceUpdatePort;
         this.applicationEventPublisher = applicationEventPublisher;
-        log.debug("BookUpdateService({},{})", bookPersistenceUpdatePort, applicationEventPublisher);
+        this.bookSearchPort = bookSearchPort;
+        log.debug("BookUpdateService({},{},{})", bookPersistenceUpdatePort, applicationEventPublisher, bookSearchPort);
     }
 
     @Override
@@ -78,6 +89,7 @@ public class BookUpdateService implements BookManagementUpdatePort {
             throw ServiceError.AUTHOR_NAME_REQUIRED.exception();
 
         final var author = bookPersistenceUpdatePort.updateAuthor(authorId, version, name);
+        indexAfterCommit(bookPersistenceUpdatePort.findBooksByAuthorId(authorId));
         log.debug("update author returns: {}", author);
         return author;
     }
@@ -119,8 +131,27 @@ public class BookUpdateService implements BookManagementUpdatePort {
         if (book == null)
             throw ServiceError.BOOK_NOT_REGISTERED.exception();
 
+        indexAfterCommit(List.of(book));
         applicationEventPublisher.publishEvent(new BookCreatedSecurityEvent(this, book.id()));
         log.debug("register book returns: {}", book);
         return book;
     }
+
+    /**
+     * Indexes the books when the current transaction commits, so the search index never contains changes that are
+     * rolled back. Without a transaction, the books are indexed right away.
+     */
+    private void indexAfterCommit(Collection<Book> books) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bookSearchPort.index(books);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bookSearchPort.index(books);
+            }
+        });
+    }
 }
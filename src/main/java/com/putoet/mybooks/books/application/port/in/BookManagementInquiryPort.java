@@ -1,20 +1,21 @@
 package com.putoet.mybooks.books.application.port.in;
 
-import com.putoet.mybooks.books.domain.Author;
-import com.putoet.mybooks.books.domain.AuthorId;
-import com.putoet.mybooks.books.domain.Book;
-import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.*;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 public interface BookManagementInquiryPort {
     Optional<Author> authorById(AuthorId id);
     Set<Author> authors();
+    Page<Author> authors(AuthorCursor after, int limit);
     Set<Author> authorsByName(String name);
     Set<String> authorSiteTypes();
     Set<Book> books();
+    Page<Book> books(BookCursor after, int limit);
     Optional<Book> bookById(BookId id);
     Set<Book> booksByAuthorName(String name);
     Set<Book> booksByTitle(String title);
+    List<BookSearchResult> searchBooks(String query, int limit);
 }
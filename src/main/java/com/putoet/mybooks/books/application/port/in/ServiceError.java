@@ -22,7 +22,9 @@ public enum ServiceError {
     BOOK_FORMAT_REQUIRED,
     BOOK_KEYWORDS_REQUIRED,
     BOOK_NOT_REGISTERED,
-    AUTHOR_VERSION_REQUIRED;
+    AUTHOR_VERSION_REQUIRED,
+    PAGE_SIZE_INVALID,
+    SEARCH_QUERY_REQUIRED;
 
 
     public RuntimeException exception() {
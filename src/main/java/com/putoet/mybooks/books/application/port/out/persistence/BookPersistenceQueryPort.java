@@ -1,18 +1,19 @@
 package com.putoet.mybooks.books.application.port.out.persistence;
 
-import com.putoet.mybooks.books.domain.Author;
-import com.putoet.mybooks.books.domain.AuthorId;
-import com.putoet.mybooks.books.domain.Book;
-import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.*;
 
+import java.util.Collection;
 import java.util.Set;
 
 public interface BookPersistenceQueryPort {
     Set<Author> findAuthors();
+    Page<Author> findAuthors(AuthorCursor after, int limit);
     Set<Author> findAuthorsByName(String name);
     Author findAuthorById(AuthorId authorId);
     Set<Book> findBooks();
+    Page<Book> findBooks(BookCursor after, int limit);
     Set<Book> findBooksByTitle(String title);
     Book findBookById(BookId bookId);
     Set<Book> findBooksByAuthorId(AuthorId authorId);
+    Set<Book> findBooksByAuthorIds(Collection<AuthorId> authorIds);
 }
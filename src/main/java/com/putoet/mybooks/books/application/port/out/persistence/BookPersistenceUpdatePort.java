@@ -5,6 +5,7 @@ import jakarta.activation.MimeType;
 
 import java.net.URL;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -14,5 +15,6 @@ public interface BookPersistenceUpdatePort extends BookPersistenceQueryPort {
     void forgetAuthor(AuthorId authorId);
     Author setAuthorSite(AuthorId id, SiteType type, URL url);
     Book registerBook(BookId bookId, String title, Set<Author> authors, Set<MimeType> formats, Set<String> keywords);
+    Set<Book> registerBooks(Collection<Book> books);
 }
 
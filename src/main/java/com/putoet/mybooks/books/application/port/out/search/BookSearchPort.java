@@ -0,0 +1,19 @@
+package com.putoet.mybooks.books.application.port.out.search;
+
+import com.putoet.mybooks.books.domain.Book;
+import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.BookSearchResult;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interface BookSearchPort
+ * Full-text search index over the title, the author names and the keywords of books. The index is fed by the write
+ * paths of the application, and returns books ranked by relevance.
+ */
+public interface BookSearchPort {
+    void index(Collection<Book> books);
+    void remove(Collection<BookId> bookIds);
+    List<BookSearchResult> search(String query, int limit);
+}
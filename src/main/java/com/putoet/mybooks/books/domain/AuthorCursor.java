@@ -0,0 +1,67 @@
+package com.putoet.mybooks.books.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Record AuthorCursor
+ * Position of an author in the order of Authors.ORDER (name, uuid), used to fetch the next page of authors.
+ * The cursor is encoded as an opaque, URL safe string.
+ * @param name String
+ * @param id AuthorId
+ */
+public record AuthorCursor(String name, AuthorId id) {
+    private static final String SEPARATOR = "\0";
+
+    public AuthorCursor {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(id);
+    }
+
+    public static AuthorCursor of(Author author) {
+        return new AuthorCursor(author.name(), author.id());
+    }
+
+    public static String encode(Author author) {
+        return of(author).encode();
+    }
+
+    public String encode() {
+        final var text = id.uuid() + SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor String - encoded cursor
+     * @return AuthorCursor, or null for a null or blank cursor (the first page)
+     * @throws IllegalArgumentException when the cursor is invalid
+     */
+    public static AuthorCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+
+        try {
+            final var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Invalid author cursor '" + cursor + "'");
+
+            return new AuthorCursor(parts[1], AuthorId.withId(parts[0]));
+        } catch (IllegalArgumentException exc) {
+            throw new IllegalArgumentException("Invalid author cursor '" + cursor + "'", exc);
+        }
+    }
+
+    /**
+     * @param author Author
+     * @return boolean true if the author comes after this cursor, in the order of Authors.ORDER
+     */
+    public boolean isBefore(Author author) {
+        return compareTo(author) < 0;
+    }
+
+    public int compareTo(Author author) {
+        final var compare = name.compareTo(author.name());
+        return compare != 0 ? compare : id.uuid().toString().compareTo(author.id().uuid().toString());
+    }
+}
@@ -0,0 +1,97 @@
+package com.putoet.mybooks.books.domain;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Class AuthorIndex
+ * <p>
+ * Identity index of authors by normalized name, to prevent the same author from being registered more than once.
+ * Names are normalized by removing diacritics, case, punctuation and extra whitespace, and by sorting the parts of
+ * the name, so "Martin, Robert C.", "Robert C. Martin" and "robert c martin" all map to the same author. The first
+ * author registered for a normalized name is the canonical author for that name.
+ * </p>
+ * <p>
+ * Lookups and registrations take constant time, so an index for n authors is built in a single, linear pass. The
+ * index is thread-safe, so it can be shared by threads loading books concurrently.
+ * </p>
+ */
+public final class AuthorIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Author> authors = new ConcurrentHashMap<>();
+
+    public AuthorIndex() {}
+
+    public AuthorIndex(Collection<Author> authors) {
+        authors.forEach(this::canonical);
+    }
+
+    /**
+     * Normalized name, used as key in the index.
+     * @param name String
+     * @return String
+     */
+    public static String key(String name) {
+        Objects.requireNonNull(name);
+
+        final var stripped = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(stripped.toLowerCase(Locale.ROOT)))
+                .filter(part -> !part.isEmpty())
+                .sorted()
+                .reduce((first, second) -> first + " " + second)
+                .orElse(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * The canonical author for the name, which is registered with a new AuthorId if the name isn't known yet.
+     * @param name String - lastname, firstname
+     * @return Author
+     */
+    public Author canonical(String name) {
+        return authors.computeIfAbsent(key(name), key -> new Author(AuthorId.withoutId(), Instant.now(), name, new HashMap<>()));
+    }
+
+    /**
+     * The canonical author for the name of the author, which is the author itself if the name isn't known yet.
+     * @param author Author
+     * @return Author
+     */
+    public Author canonical(Author author) {
+        return authors.computeIfAbsent(key(author.name()), key -> author);
+    }
+
+    /**
+     * The book with its authors replaced by their canonical authors. The book itself is returned when all its
+     * authors are canonical already.
+     * @param book Book
+     * @return Book
+     */
+    public Book canonical(Book book) {
+        var changed = false;
+        final var canonical = new HashSet<Author>(book.authors().size() * 2);
+        for (var author : book.authors()) {
+            final var known = canonical(author);
+            changed |= !known.equals(author);
+            canonical.add(known);
+        }
+
+        return changed ? new Book(book.id(), book.title(), canonical, book.keywords(), book.formats()) : book;
+    }
+
+    public Optional<Author> find(String name) {
+        return Optional.ofNullable(authors.get(key(name)));
+    }
+
+    public Collection<Author> authors() {
+        return Collections.unmodifiableCollection(authors.values());
+    }
+
+    public int size() {
+        return authors.size();
+    }
+}
@@ -3,13 +3,16 @@ package com.putoet.mybooks.books.domain;
 import java.util.*;
 
 public final class Authors {
+    /**
+     * Order of authors by name and (the text of the) uuid, which is the order of author pages (see AuthorCursor)
+     */
+    public static final Comparator<Author> ORDER = Comparator.comparing(Author::name)
+            .thenComparing(a -> a.id().uuid().toString());
+
     private Authors() { }
 
     public static Set<Author> ordered(Collection<Author> authors) {
-        final var ordered = new TreeSet<>(
-                Comparator.comparing(Author::name)
-                        .thenComparing(a -> a.id().uuid())
-        );
+        final var ordered = new TreeSet<>(ORDER);
         ordered.addAll(authors);
         return Collections.unmodifiableSet(ordered);
     }
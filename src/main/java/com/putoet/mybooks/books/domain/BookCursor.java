@@ -0,0 +1,71 @@
+package com.putoet.mybooks.books.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Record BookCursor
+ * Position of a book in the order of Books.ORDER (title, schema name, id), used to fetch the next page of books.
+ * The cursor is encoded as an opaque, URL safe string.
+ * @param title String
+ * @param id BookId
+ */
+public record BookCursor(String title, BookId id) {
+    private static final String SEPARATOR = "\0";
+
+    public BookCursor {
+        Objects.requireNonNull(title);
+        Objects.requireNonNull(id);
+    }
+
+    public static BookCursor of(Book book) {
+        return new BookCursor(book.title(), book.id());
+    }
+
+    public static String encode(Book book) {
+        return of(book).encode();
+    }
+
+    public String encode() {
+        final var text = id.schema().name() + SEPARATOR + id.id() + SEPARATOR + title;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor String - encoded cursor
+     * @return BookCursor, or null for a null or blank cursor (the first page)
+     * @throws IllegalArgumentException when the cursor is invalid
+     */
+    public static BookCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+
+        try {
+            final var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Invalid book cursor '" + cursor + "'");
+
+            return new BookCursor(parts[2], new BookId(parts[0], parts[1]));
+        } catch (IllegalArgumentException exc) {
+            throw new IllegalArgumentException("Invalid book cursor '" + cursor + "'", exc);
+        }
+    }
+
+    /**
+     * @param book Book
+     * @return boolean true if the book comes after this cursor, in the order of Books.ORDER
+     */
+    public boolean isBefore(Book book) {
+        return compareTo(book) < 0;
+    }
+
+    public int compareTo(Book book) {
+        var compare = title.compareTo(book.title());
+        if (compare == 0)
+            compare = id.schema().name().compareTo(book.id().schema().name());
+        if (compare == 0)
+            compare = id.id().compareTo(book.id().id());
+        return compare;
+    }
+}
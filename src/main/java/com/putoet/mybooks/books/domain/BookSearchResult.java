@@ -0,0 +1,15 @@
+package com.putoet.mybooks.books.domain;
+
+import java.util.Objects;
+
+/**
+ * Record BookSearchResult
+ * A book found by a full-text search, with its relevance score. A higher score means a better match.
+ * @param book Book
+ * @param score double - relevance of the book for the query
+ */
+public record BookSearchResult(Book book, double score) {
+    public BookSearchResult {
+        Objects.requireNonNull(book);
+    }
+}
@@ -3,15 +3,18 @@ package com.putoet.mybooks.books.domain;
 import java.util.*;
 
 public final class Books {
+    /**
+     * Order of books by title, schema name and id, which is the order of book pages (see BookCursor)
+     */
+    public static final Comparator<Book> ORDER = Comparator.comparing(Book::title)
+            .thenComparing(b -> b.id().schema().name())
+            .thenComparing(b -> b.id().id());
+
     private Books() {
     }
 
     public static Set<Book> ordered(Collection<Book> books) {
-        final var ordered = new TreeSet<>(
-                Comparator.comparing(Book::title)
-                        .thenComparing(b -> b.id().schema())
-                        .thenComparing(b -> b.id().id())
-        );
+        final var ordered = new TreeSet<>(ORDER);
         ordered.addAll(books);
         return Collections.unmodifiableSet(ordered);
     }
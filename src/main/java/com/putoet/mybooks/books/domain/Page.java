@@ -0,0 +1,77 @@
+package com.putoet.mybooks.books.domain;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Record Page
+ * A page of items from a keyset (cursor based) pagination. The next page starts after the cursor of the last item
+ * on this page, so pages stay consistent when items are added or removed, and no offset has to be skipped.
+ * @param items List of items, in order
+ * @param next String - the encoded cursor to the next page, or null when this is the last page
+ * @param <T> item type
+ */
+public record Page<T>(List<T> items, String next) {
+    public static final int MAX_SIZE = 1000;
+
+    public Page {
+        Objects.requireNonNull(items);
+        items = List.copyOf(items);
+    }
+
+    /**
+     * Create a page from (at most) limit + 1 fetched items. The extra item only signals that there is a next page.
+     * @param fetched List of items, in order
+     * @param limit int - maximum number of items on the page
+     * @param cursor Function to encode the cursor of an item
+     * @return Page
+     */
+    public static <T> Page<T> of(List<T> fetched, int limit, Function<T, String> cursor) {
+        if (fetched.size() <= limit)
+            return new Page<>(fetched, null);
+
+        final var items = fetched.subList(0, limit);
+        return new Page<>(items, cursor.apply(items.get(limit - 1)));
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * All items of all pages, in order, as a lazy stream. A page is only fetched when the stream gets to it, so no
+     * more than one page is in memory, and the first items are available before the last page has been fetched.
+     * @param fetch Function that fetches the page after the encoded cursor (null for the first page)
+     * @return Stream of items
+     */
+    public static <T> Stream<T> stream(Function<String, Page<T>> fetch) {
+        Objects.requireNonNull(fetch);
+
+        final var iterator = new Iterator<T>() {
+            private Iterator<T> items = Collections.emptyIterator();
+            private String next;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                while (!items.hasNext() && !last) {
+                    final var page = fetch.apply(next);
+                    items = page.items().iterator();
+                    next = page.next();
+                    last = !page.hasNext();
+                }
+                return items.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return items.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,14 @@
+-- Lower case copies of the searched columns, maintained by the database, so searches compare the stored value
+-- instead of computing lower(...) for every row
+alter table author add column if not exists name_lower varchar(255) generated always as (lower(name));
+alter table book add column if not exists title_lower varchar(256) generated always as (lower(title));
+
+create index if not exists author_name_lower_idx on author (name_lower);
+create index if not exists book_title_lower_idx on book (title_lower);
+
+-- The foreign keys (like book_author.author_id, and site.author_id) need no index of their own, as H2 creates an
+-- index for each foreign key
+
+-- Order of the keyset pagination, so a page is read from the index instead of sorting all rows
+create index if not exists book_title_idx on book (title, book_id_type, book_id);
+create index if not exists author_name_idx on author (name, author_id);
@@ -0,0 +1,8 @@
+-- Heartbeat written to the primary database by the ReplicaLagGuard, when a read replica is configured. The age of the
+-- heartbeat as read from the replica is the replication lag
+create table if not exists replication_heartbeat
+(
+    id   int       not null,
+    beat timestamp not null,
+    primary key (id)
+);
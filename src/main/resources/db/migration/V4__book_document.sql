@@ -0,0 +1,15 @@
+-- Read model with each book as a single JSON document (with its authors, their sites, keywords and formats), written
+-- by the H2BookRepository next to the normalized tables when mybooks.book-documents.enabled is true. The title
+-- columns and index serve the same searches and pages as on the book table
+create table if not exists book_document
+(
+    book_id_type varchar(16)      not null,
+    book_id      varchar(64)      not null,
+    title        varchar(256)     not null,
+    title_lower  varchar(256) generated always as (lower(title)),
+    document     varchar(1000000) not null,
+    primary key (book_id_type, book_id),
+    foreign key (book_id_type, book_id) references book (book_id_type, book_id) on delete cascade
+);
+
+create index if not exists book_document_title_idx on book_document (title, book_id_type, book_id);
@@ -1,6 +1,7 @@
 package com.putoet.mybooks;
 
 import com.putoet.mybooks.books.adapter.out.persistence.folder.FolderBookRepository;
+import com.putoet.mybooks.books.adapter.out.persistence.jdbc.H2BookImporter;
 import com.putoet.mybooks.books.adapter.out.persistence.jdbc.H2BookRepository;
 import com.putoet.mybooks.books.adapter.out.persistence.jdbc.H2UserRepository;
 import com.putoet.mybooks.books.domain.security.AccessRole;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.nio.file.Path;
 
@@ -23,6 +25,9 @@ class MybooksApplicationDatabaseCreateTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     /*
      * Create a database from the books folder, import all books and authors.
@@ -38,11 +43,11 @@ class MybooksApplicationDatabaseCreateTest {
         final var userRepository = new H2UserRepository(jdbcTemplate);
         System.out.println("Book repository: " + bookRepository);
         
-        loadBooksFromFolder(bookRepository);
+        loadBooksFromFolder(bookRepository, new H2BookImporter(jdbcTemplate, transactionManager));
         loadDefaultUsers(userRepository);
     }
 
-    private static void loadBooksFromFolder(H2BookRepository bookRepository) {
+    private static void loadBooksFromFolder(H2BookRepository bookRepository, H2BookImporter importer) {
         System.out.println("Load books from the folder repository...");
         final var folderBooks = new FolderBookRepository(Path.of(BOOKS_FOLDER));
 
@@ -53,15 +58,9 @@ class MybooksApplicationDatabaseCreateTest {
         System.out.println("Store all books and authors from the folder into the database...");
         final var allFolderBooks = folderBooks.findBooks();
         final var allFolderAuthors = folderBooks.findAuthors();
-        for (var author : allFolderAuthors) {
-            bookRepository.registerAuthor(author.id(), author.version(), author.name(), author.sites());
-        }
-
-        for (var book : allFolderBooks) {
-            bookRepository.registerBook(book.id(), book.title(), book.authors(), book.formats(), book.keywords());
-        }
+        final var result = importer.importBooks(allFolderBooks);
 
-        System.out.printf("Loaded %d books, and %d authors.%n", allFolderBooks.size(), allFolderAuthors.size());
+        System.out.printf("Loaded %d books, and %d authors (%.0f rows/s).%n", result.books(), result.authors(), result.rowsPerSecond());
         System.out.println();
 
         assertFalse(allFolderBooks.isEmpty());
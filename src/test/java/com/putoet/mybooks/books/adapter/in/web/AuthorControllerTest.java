@@ -6,14 +6,22 @@ import com.putoet.mybooks.books.application.port.in.ServiceError;
 import com.putoet.mybooks.books.application.port.in.ServiceException;
 import com.putoet.mybooks.books.domain.Author;
 import com.putoet.mybooks.books.domain.AuthorId;
+import com.putoet.mybooks.books.domain.Page;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -30,6 +38,9 @@ class AuthorControllerTest {
     @Mock
     private BookManagementUpdatePort bookManagementUpdatePort;
 
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().build();
+
     @InjectMocks
     private AuthorController authorController;
 
@@ -44,6 +55,18 @@ class AuthorControllerTest {
         );
     }
 
+    @Test
+    void streamAuthors() throws IOException {
+        when(bookManagementInquiryPort.authors(null, NdjsonResponse.PAGE_SIZE)).thenReturn(new Page<>(List.of(author), null));
+
+        final var output = new ByteArrayOutputStream();
+        final var body = authorController.streamAuthors().getBody();
+        assertNotNull(body);
+        body.writeTo(output);
+
+        assertEquals(AuthorResponse.from(author), objectMapper.readValue(output.toString(StandardCharsets.UTF_8).trim(), AuthorResponse.class));
+    }
+
     @Test
     void getAuthorsFailed() {
         when(bookManagementInquiryPort.authors()).thenThrow(new RuntimeException("FAIL"));
@@ -14,6 +14,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import tools.jackson.databind.ObjectMapper;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -22,8 +23,11 @@ import java.util.UUID;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -61,6 +65,27 @@ class BookControllerSecurityTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void streamBooksAuthenticated() throws Exception {
+        final var book = new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()), "Streaming", Set.of(), Set.of(), Set.of());
+        when(bookManagementInquiryPort.books(null, NdjsonResponse.PAGE_SIZE)).thenReturn(new Page<>(List.of(book), null));
+
+        final var result = mvc.perform(get("/api/v1.0/books").accept(NdjsonResponse.MEDIA_TYPE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonResponse.MEDIA_TYPE))
+                .andExpect(content().string(objectMapper.writeValueAsString(BookResponse.from(book)) + "\n"));
+    }
+
+    @Test
+    void streamBooksUnAuthenticated() throws Exception {
+        mvc.perform(get("/api/v1.0/books").accept(NdjsonResponse.MEDIA_TYPE))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(username = "user", roles = "USER")
     void getBooksByAuthorNameAuthenticated() throws Exception {
@@ -2,17 +2,27 @@ package com.putoet.mybooks.books.adapter.in.web;
 
 import com.putoet.mybooks.books.application.port.in.BookManagementInquiryPort;
 import com.putoet.mybooks.books.application.port.in.BookManagementUpdatePort;
+import com.putoet.mybooks.books.application.port.in.ServiceError;
+import com.putoet.mybooks.books.application.port.in.ServiceException;
 import com.putoet.mybooks.books.domain.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.SmartValidator;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -32,6 +42,9 @@ class BookControllerTest {
     @Mock
     private SmartValidator smartValidator; // not referenced but is required to exist
 
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().build();
+
     @InjectMocks
     private BookController bookController;
 
@@ -64,6 +77,29 @@ class BookControllerTest {
         );
     }
 
+    @Test
+    void streamBooks() throws IOException {
+        final var next = BookCursor.encode(book);
+        when(bookManagementInquiryPort.books(null, NdjsonResponse.PAGE_SIZE)).thenReturn(new Page<>(List.of(book), next));
+        when(bookManagementInquiryPort.books(BookCursor.decode(next), NdjsonResponse.PAGE_SIZE)).thenReturn(new Page<>(List.of(book), null));
+
+        final var response = bookController.streamBooks();
+        // Nothing is read before the body is written
+        verifyNoInteractions(bookManagementInquiryPort);
+
+        final var output = new ByteArrayOutputStream();
+        assertNotNull(response.getBody());
+        response.getBody().writeTo(output);
+        final var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertAll(
+                () -> assertEquals(NdjsonResponse.MEDIA_TYPE, String.valueOf(response.getHeaders().getContentType())),
+                () -> assertEquals(2, lines.length),
+                () -> assertEquals(BookResponse.from(book), objectMapper.readValue(lines[1], BookResponse.class)),
+                () -> verify(bookManagementInquiryPort, times(2)).books(any(), eq(NdjsonResponse.PAGE_SIZE))
+        );
+    }
+
     @Test
     void getBooksByAuthorName() {
         bookController.getBooksByAuthorName(author.name());
@@ -150,4 +186,41 @@ class BookControllerTest {
                 () -> verify(bookManagementUpdatePort, times(1)).registerAuthor(secondAuthor.name(), Map.of())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBooksPage() {
+        when(bookManagementInquiryPort.books(null, 1)).thenReturn(new Page<>(List.of(book), BookCursor.encode(book)));
+        when(bookManagementInquiryPort.books(BookCursor.of(book), 1)).thenReturn(new Page<>(List.of(), null));
+
+        final var first = bookController.getBooksPage(null, 1);
+        final var next = bookController.getBooksPage(first.next(), 1);
+
+        assertAll(
+                () -> assertEquals(List.of(BookResponse.from(book)), first.items()),
+                () -> assertEquals(List.of(), next.items()),
+                () -> assertNull(next.next())
+        );
+    }
+
+    @Test
+    void getBooksPageInvalidCursor() {
+        final var exc = assertThrows(ResponseStatusException.class, () -> bookController.getBooksPage("invalid", 1));
+        assertEquals(HttpStatus.BAD_REQUEST, exc.getStatusCode());
+    }
+
+    @Test
+    void searchBooks() {
+        when(bookManagementInquiryPort.searchBooks("clean", 20)).thenReturn(List.of(new BookSearchResult(book, 1.5)));
+
+        final var found = bookController.searchBooks("clean", 20);
+        assertEquals(List.of(new BookSearchResponse(BookResponse.from(book), 1.5)), found);
+    }
+
+    @Test
+    void searchBooksError() {
+        when(bookManagementInquiryPort.searchBooks(" ", 20)).thenThrow(new ServiceException(ServiceError.SEARCH_QUERY_REQUIRED));
+
+        final var exc = assertThrows(ResponseStatusException.class, () -> bookController.searchBooks(" ", 20));
+        assertEquals(HttpStatus.BAD_REQUEST, exc.getStatusCode());
+    }
+}
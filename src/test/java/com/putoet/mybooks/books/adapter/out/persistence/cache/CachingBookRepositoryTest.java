@@ -0,0 +1,215 @@
+package com.putoet.mybooks.books.adapter.out.persistence.cache;
+
+import com.google.common.base.Ticker;
+import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
+import com.putoet.mybooks.books.domain.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingBookRepositoryTest {
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final Author author = new Author(AuthorId.withoutId(), "Schrijver, Jaap de");
+    private final Author other = new Author(AuthorId.withoutId(), "Lezer, Piet");
+    private final Book book = new Book(new BookId(), "Clean Code", Set.of(author), Set.of(), Set.of(MimeTypes.EPUB));
+    private final Book otherBook = new Book(new BookId(), "Refactoring", Set.of(other), Set.of(), Set.of(MimeTypes.EPUB));
+
+    @Mock
+    private BookPersistenceUpdatePort delegate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ManualTicker ticker = new ManualTicker();
+    private CachingBookRepository repository;
+
+    private static class ManualTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        repository = new CachingBookRepository(delegate, registry, 100, EXPIRE_AFTER_WRITE, ticker, () -> false);
+    }
+
+    private double gets(String cache, String result) {
+        return registry.get("cache.gets").tags("cache", cache, "result", result).functionCounter().count();
+    }
+
+    @Test
+    void findBookById() {
+        when(delegate.findBookById(book.id())).thenReturn(book);
+
+        assertAll(
+                () -> assertEquals(book, repository.findBookById(book.id())),
+                () -> assertEquals(book, repository.findBookById(book.id())),
+                () -> verify(delegate, times(1)).findBookById(book.id()),
+                () -> assertEquals(1, gets(CachingBookRepository.BOOKS_CACHE, "hit")),
+                () -> assertEquals(1, gets(CachingBookRepository.BOOKS_CACHE, "miss"))
+        );
+    }
+
+    @Test
+    void findAuthorByIdNotFound() {
+        final var id = AuthorId.withoutId();
+
+        assertAll(
+                () -> assertNull(repository.findAuthorById(id)),
+                () -> assertNull(repository.findAuthorById(id)),
+                () -> verify(delegate, times(1)).findAuthorById(id)
+        );
+    }
+
+    @Test
+    void findBookByIdFails() {
+        when(delegate.findBookById(book.id())).thenThrow(new IllegalStateException("database down"));
+
+        final var exc = assertThrows(IllegalStateException.class, () -> repository.findBookById(book.id()));
+        assertEquals("database down", exc.getMessage());
+    }
+
+    @Test
+    void expireAfterWrite() {
+        when(delegate.findAuthorById(author.id())).thenReturn(author);
+
+        repository.findAuthorById(author.id());
+        ticker.advance(EXPIRE_AFTER_WRITE.minusSeconds(1));
+        repository.findAuthorById(author.id());
+        verify(delegate, times(1)).findAuthorById(author.id());
+
+        ticker.advance(Duration.ofSeconds(1));
+        repository.findAuthorById(author.id());
+        verify(delegate, times(2)).findAuthorById(author.id());
+    }
+
+    @Test
+    void readsFromReplica() {
+        final var registry = new SimpleMeterRegistry();
+        final var replica = new boolean[]{true};
+        repository = new CachingBookRepository(delegate, registry, 100, EXPIRE_AFTER_WRITE, ticker, () -> replica[0]);
+        when(delegate.findBookById(book.id())).thenReturn(book);
+
+        repository.findBookById(book.id());
+        repository.findBookById(book.id());
+        verify(delegate, times(2)).findBookById(book.id());
+
+        replica[0] = false;
+        repository.findBookById(book.id());
+        replica[0] = true;
+        repository.findBookById(book.id());
+        verify(delegate, times(3)).findBookById(book.id());
+    }
+
+    @Test
+    void maximumSize() {
+        final var registry = new SimpleMeterRegistry();
+        repository = new CachingBookRepository(delegate, registry, 1, null, ticker, () -> false);
+        when(delegate.findBookById(any())).thenAnswer(invocation -> invocation.getArgument(0).equals(book.id()) ? book : otherBook);
+
+        repository.findBookById(book.id());
+        repository.findBookById(otherBook.id());
+        repository.findBookById(book.id());
+
+        assertAll(
+                () -> verify(delegate, times(2)).findBookById(book.id()),
+                () -> assertTrue(registry.get("cache.evictions").tag("cache", CachingBookRepository.BOOKS_CACHE).functionCounter().count() > 0)
+        );
+    }
+
+    @Test
+    void registerBook() {
+        when(delegate.findBookById(book.id())).thenReturn(null, book);
+
+        assertNull(repository.findBookById(book.id()));
+        repository.registerBook(book.id(), book.title(), book.authors(), book.formats(), book.keywords());
+        repository.registerBooks(List.of(otherBook));
+
+        assertEquals(book, repository.findBookById(book.id()));
+    }
+
+    @Test
+    void updateAuthor() {
+        final var updated = new Author(author.id(), Instant.now(), "Schrijver, Jan de", Map.of());
+        final var updatedBook = new Book(book.id(), book.title(), Set.of(updated), book.keywords(), book.formats());
+        when(delegate.findAuthorById(author.id())).thenReturn(author, updated);
+        when(delegate.findBookById(book.id())).thenReturn(book, updatedBook);
+        when(delegate.findBookById(otherBook.id())).thenReturn(otherBook);
+
+        repository.findAuthorById(author.id());
+        repository.findBookById(book.id());
+        repository.findBookById(otherBook.id());
+        repository.updateAuthor(author.id(), author.version(), updated.name());
+
+        assertAll(
+                () -> assertEquals(updated, repository.findAuthorById(author.id())),
+                () -> assertEquals(updatedBook, repository.findBookById(book.id())),
+                () -> assertEquals(otherBook, repository.findBookById(otherBook.id())),
+                () -> verify(delegate, times(1)).findBookById(otherBook.id())
+        );
+    }
+
+    @Test
+    void setAuthorSiteAndForgetAuthor() throws MalformedURLException {
+        when(delegate.findAuthorById(author.id())).thenReturn(author);
+        when(delegate.findBookById(book.id())).thenReturn(book);
+
+        repository.findAuthorById(author.id());
+        repository.findBookById(book.id());
+        repository.setAuthorSite(author.id(), SiteType.LINKEDIN, new URL("https://nu.nl"));
+        repository.findAuthorById(author.id());
+        repository.findBookById(book.id());
+        repository.forgetAuthor(author.id());
+        repository.findAuthorById(author.id());
+        repository.findBookById(book.id());
+
+        assertAll(
+                () -> verify(delegate, times(3)).findAuthorById(author.id()),
+                () -> verify(delegate, times(3)).findBookById(book.id())
+        );
+    }
+
+    @Test
+    void invalidateAfterTransaction() {
+        when(delegate.findAuthorById(author.id())).thenReturn(author);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            repository.updateAuthor(author.id(), author.version(), author.name());
+
+            // A concurrent lookup loads the author before the update is committed
+            repository.findAuthorById(author.id());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        repository.findAuthorById(author.id());
+        verify(delegate, times(2)).findAuthorById(author.id());
+    }
+}
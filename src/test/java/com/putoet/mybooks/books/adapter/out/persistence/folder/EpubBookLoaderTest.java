@@ -0,0 +1,146 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.putoet.mybooks.books.domain.Author;
+import com.putoet.mybooks.books.domain.AuthorIndex;
+import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.MimeTypes;
+import org.apache.tika.Tika;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpubBookLoaderTest {
+    @TempDir
+    Path folder;
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(EpubBookLoader.class);
+
+    @BeforeEach
+    void setup() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void cleanup() {
+        logger.detachAppender(appender);
+    }
+
+    private long errors() {
+        return appender.list.stream().filter(event -> event.getLevel() == Level.ERROR).count();
+    }
+
+    @Test
+    void bookForFile() throws IOException {
+        final var file = EpubFiles.epub(folder, "book.epub", "https://leanpub.com/clean-code", "Clean Code",
+                "Robert Martin", "Some text on security, cloud and devops in a container.");
+
+        final var book = EpubBookLoader.bookForFile(file.toString());
+        assertAll(
+                () -> assertEquals(new BookId(BookId.BookIdSchema.URL, "https://leanpub.com/clean-code"), book.id()),
+                () -> assertEquals("Clean Code", book.title()),
+                () -> assertEquals(Set.of("Martin, Robert"), book.authors().stream().map(Author::name).collect(Collectors.toSet())),
+                () -> assertEquals(Set.of(MimeTypes.EPUB), book.formats()),
+                () -> assertTrue(book.keywords().containsAll(Set.of("security", "cloud", "devops", "container")))
+        );
+    }
+
+    @Test
+    void bookForFileStopsAtMaxLength() throws IOException {
+        final var file = EpubFiles.epub(folder, "book.epub", "https://leanpub.com/clean-code", "Clean Code",
+                "Robert Martin", "Some text on security and cloud. " + "Filler text. ".repeat(100) + "Devops in a container.");
+
+        final var book = EpubBookLoader.bookForFile(file.toString(), new AuthorIndex(), 200);
+        assertAll(
+                () -> assertEquals("Clean Code", book.title()),
+                () -> assertTrue(book.keywords().containsAll(Set.of("security", "cloud")), book.keywords().toString()),
+                () -> assertFalse(book.keywords().contains("devops")),
+                () -> assertFalse(book.keywords().contains("container")),
+                () -> assertEquals(0, errors(), appender.list.toString())
+        );
+    }
+
+    @Test
+    void parseStopsAtMaxLength() throws IOException {
+        final var chapters = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> "Chapter " + i + " on security and cloud. " + "Filler text. ".repeat(20))
+                .toList();
+        final var file = EpubFiles.epub(folder, "book.epub", "https://leanpub.com/clean-code", "Clean Code",
+                "Robert Martin", chapters);
+
+        // Counts the content events of the parse that reach the keyword scan after it has stopped: every content
+        // document that is still parsed after the stop adds at least one
+        final var handler = new KeywordContentHandler(KeywordMatcher.instance().scanner(), 100);
+        final var afterStop = new AtomicInteger();
+        final var counting = new ContentHandlerDecorator(handler) {
+            @Override
+            public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+                count();
+                super.startElement(uri, localName, name, atts);
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) throws SAXException {
+                count();
+                super.characters(ch, start, length);
+            }
+
+            @Override
+            public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+                count();
+                super.ignorableWhitespace(ch, start, length);
+            }
+
+            private void count() {
+                if (handler.stopped())
+                    afterStop.incrementAndGet();
+            }
+        };
+
+        final Exception stop;
+        try (var is = Files.newInputStream(file)) {
+            final var parser = new Tika().getParser();
+            stop = assertThrows(Exception.class,
+                    () -> parser.parse(is, new BodyContentHandler(counting), new Metadata(), new ParseContext()));
+        }
+        assertAll(
+                () -> assertTrue(handler.stopped()),
+                () -> assertTrue(WriteLimitReachedException.isWriteLimitReached(stop), stop.toString()),
+                () -> assertEquals(0, afterStop.get())
+        );
+    }
+
+    @Test
+    void checkForError() {
+        final var metadata = new Metadata();
+        metadata.set("dc:title", "Clean Code");
+        metadata.set("X-TIKA:EXCEPTION:embedded_exception", "org.xml.sax.SAXException: Unexpected end of file");
+
+        EpubBookLoader.checkForError("book.epub", metadata);
+        assertEquals(1, errors());
+    }
+}
@@ -0,0 +1,99 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Class EpubFiles
+ * Generates minimal, but valid, EPUB files for tests on the folder repository.
+ */
+final class EpubFiles {
+    private static final String MIMETYPE = "application/epub+zip";
+
+    private static final String CONTAINER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <container version="1.0" xmlns="urn:oasis:names:tc:opendocument:xmlns:container">
+              <rootfiles>
+                <rootfile full-path="OEBPS/content.opf" media-type="application/oebps-package+xml"/>
+              </rootfiles>
+            </container>
+            """;
+
+    private static final String OPF = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <package xmlns="http://www.idpf.org/2007/opf" version="2.0" unique-identifier="BookId">
+              <metadata xmlns:dc="http://purl.org/dc/elements/1.1/" xmlns:opf="http://www.idpf.org/2007/opf">
+                <dc:title>%s</dc:title>
+                <dc:creator opf:role="aut">%s</dc:creator>
+                <dc:identifier id="BookId">%s</dc:identifier>
+                <dc:language>en</dc:language>
+              </metadata>
+              <manifest>
+            %s  </manifest>
+              <spine>
+            %s  </spine>
+            </package>
+            """;
+
+    private static final String CHAPTER = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <html xmlns="http://www.w3.org/1999/xhtml">
+              <head><title>Chapter %d</title></head>
+              <body><p>%s</p></body>
+            </html>
+            """;
+
+    private EpubFiles() {}
+
+    static Path epub(Path folder, String fileName, String identifier, String title, String creator, String text) throws IOException {
+        return epub(folder, fileName, identifier, title, creator, List.of(text));
+    }
+
+    /*
+     * An EPUB file with a content document per chapter, in the given order.
+     */
+    static Path epub(Path folder, String fileName, String identifier, String title, String creator, List<String> chapters) throws IOException {
+        final var file = folder.resolve(fileName);
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            writeEpub(zip, identifier, title, creator, chapters);
+        }
+        return file;
+    }
+
+    private static void writeEpub(ZipOutputStream zip, String identifier, String title, String creator, List<String> chapters) throws IOException {
+        final var mimetype = MIMETYPE.getBytes(StandardCharsets.US_ASCII);
+        final var crc = new CRC32();
+        crc.update(mimetype);
+
+        final var mimetypeEntry = new ZipEntry("mimetype");
+        mimetypeEntry.setMethod(ZipEntry.STORED);
+        mimetypeEntry.setSize(mimetype.length);
+        mimetypeEntry.setCrc(crc.getValue());
+        zip.putNextEntry(mimetypeEntry);
+        zip.write(mimetype);
+        zip.closeEntry();
+
+        entry(zip, "META-INF/container.xml", CONTAINER);
+        final var manifest = new StringBuilder();
+        final var spine = new StringBuilder();
+        for (int i = 1; i <= chapters.size(); i++) {
+            manifest.append("    <item id=\"chapter%d\" href=\"chapter%d.xhtml\" media-type=\"application/xhtml+xml\"/>\n".formatted(i, i));
+            spine.append("    <itemref idref=\"chapter%d\"/>\n".formatted(i));
+        }
+        entry(zip, "OEBPS/content.opf", OPF.formatted(title, creator, identifier, manifest, spine));
+        for (int i = 1; i <= chapters.size(); i++)
+            entry(zip, "OEBPS/chapter" + i + ".xhtml", CHAPTER.formatted(i, chapters.get(i - 1)));
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
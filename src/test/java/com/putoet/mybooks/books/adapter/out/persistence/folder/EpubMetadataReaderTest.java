@@ -0,0 +1,121 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.domain.Author;
+import com.putoet.mybooks.books.domain.Book;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpubMetadataReaderTest {
+    private static final int BOOK_COUNT = 50;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void read() throws IOException {
+        final var file = EpubFiles.epub(folder, "book.epub", "urn:isbn:9780132350884", "Clean Code",
+                "Robert C. Martin", "On refactoring");
+
+        final var metadata = EpubMetadataReader.read(file).orElseThrow();
+        assertEquals(new EpubMetadataReader.EpubMetadata("urn:isbn:9780132350884", "Clean Code", "Robert C. Martin"), metadata);
+    }
+
+    @Test
+    void readWithoutContainer() throws IOException {
+        final var file = folder.resolve("broken.epub");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("mimetype"));
+            zip.closeEntry();
+        }
+
+        assertTrue(EpubMetadataReader.read(file).isEmpty());
+    }
+
+    @Test
+    void metadataOnlyBook() throws IOException {
+        final var file = EpubFiles.epub(folder, "book.epub", "https://leanpub.com/clean-code", "Clean Code",
+                "Robert Martin", "Some text on security and cloud.");
+
+        final var parsed = EpubBookLoader.bookForFile(file.toString(), false, true);
+        final var read = EpubBookLoader.bookForFile(file.toString(), false, false);
+        assertAll(
+                () -> assertEquals(parsed.id(), read.id()),
+                () -> assertEquals(parsed.title(), read.title()),
+                () -> assertEquals(parsed.authors().stream().map(Author::name).toList(),
+                        read.authors().stream().map(Author::name).toList()),
+                () -> assertEquals(parsed.formats(), read.formats()),
+                () -> assertFalse(parsed.keywords().isEmpty()),
+                () -> assertEquals(Set.of(), read.keywords())
+        );
+    }
+
+    @Test
+    void sameBooksWithoutParse() throws IOException {
+        final var files = new ArrayList<String>();
+        for (int i = 0; i < BOOK_COUNT; i++)
+            files.add(EpubFiles.epub(folder, "book-" + i + ".epub", "https://leanpub.com/book-" + i, "Book " + i,
+                    "Author " + i, "A chapter on cloud, security, machine learning and devops.").toString());
+
+        // Every full Tika parse records the keyword scan
+        final var registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            final var parsed = load(files, true);
+            final var parses = registry.get("mybooks.ingestion.keywords").timer().count();
+            final var read = load(files, false);
+
+            assertAll(
+                    () -> assertEquals(parsed.stream().map(Book::id).toList(), read.stream().map(Book::id).toList()),
+                    () -> assertEquals(parsed.stream().map(Book::title).toList(), read.stream().map(Book::title).toList()),
+                    () -> assertEquals(BOOK_COUNT, parses),
+                    () -> assertEquals(parses, registry.get("mybooks.ingestion.keywords").timer().count())
+            );
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Disabled("Benchmark, run on demand")
+    @Test
+    void benchmark() throws IOException {
+        final var text = "A chapter on cloud, security, machine learning and devops. ".repeat(2_000);
+        final var files = new ArrayList<String>();
+        for (int i = 0; i < BOOK_COUNT; i++)
+            files.add(EpubFiles.epub(folder, "book-" + i + ".epub", "https://leanpub.com/book-" + i, "Book " + i,
+                    "Author " + i, text).toString());
+
+        // warm up both paths, so class loading isn't measured
+        EpubBookLoader.bookForFile(files.get(0), false, true);
+        EpubBookLoader.bookForFile(files.get(0), false, false);
+
+        final long tikaStart = System.nanoTime();
+        load(files, true);
+        final long tikaDuration = System.nanoTime() - tikaStart;
+
+        final long readerStart = System.nanoTime();
+        load(files, false);
+        final long readerDuration = System.nanoTime() - readerStart;
+
+        assertTrue(readerDuration < tikaDuration);
+    }
+
+    private static List<Book> load(List<String> files, boolean keywords) {
+        return files.stream()
+                .map(file -> EpubBookLoader.bookForFile(file, false, keywords))
+                .toList();
+    }
+}
@@ -1,11 +1,13 @@
 package com.putoet.mybooks.books.adapter.out.persistence.folder;
 
+import com.putoet.mybooks.books.domain.Author;
 import com.putoet.mybooks.books.domain.AuthorId;
 import com.putoet.mybooks.books.domain.BookId;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Paths;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -89,4 +91,11 @@ class FolderBookRepositoryTest {
         final var books = leanpub.findBooksByAuthorId(author.id());
         assertEquals(1, books.size());
     }
+
+    @Test
+    void findBooksByAuthorIds() {
+        final var authors = leanpub.findAuthors();
+        final var books = leanpub.findBooksByAuthorIds(authors.stream().map(Author::id).toList());
+        assertEquals(List.copyOf(leanpub.findBooks()), List.copyOf(books));
+    }
 }
\ No newline at end of file
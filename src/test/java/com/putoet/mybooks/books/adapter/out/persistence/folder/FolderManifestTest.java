@@ -0,0 +1,93 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderManifestTest {
+    private static final int BOOK_COUNT = 25;
+
+    @TempDir
+    Path folder;
+
+    @TempDir
+    Path data;
+
+    private Path manifestFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        manifestFile = data.resolve("manifest.bin");
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            EpubFiles.epub(folder, "book-" + i + ".epub", "https://leanpub.com/book-" + i, "Book " + i,
+                    "Author " + i, "A book on cloud, security and machine learning, number " + i);
+        }
+    }
+
+    @Test
+    void coldAndWarmStart() {
+        final var options = FolderRepositoryOptions.defaults().withManifest(manifestFile);
+
+        final var cold = new FolderBookRepository(folder, options);
+        final var warm = new FolderBookRepository(folder, options);
+
+        assertAll(
+                () -> assertTrue(Files.exists(manifestFile)),
+                () -> assertEquals(BOOK_COUNT, cold.findBooks().size()),
+                () -> assertEquals(cold.findBooks(), warm.findBooks()),
+                () -> assertEquals(cold.findAuthors(), warm.findAuthors())
+        );
+    }
+
+    @Disabled("Benchmark, run on demand")
+    @Test
+    void coldAndWarmStartBenchmark() {
+        final var options = FolderRepositoryOptions.defaults().withManifest(manifestFile);
+
+        final long coldStart = System.nanoTime();
+        new FolderBookRepository(folder, options);
+        final long coldDuration = System.nanoTime() - coldStart;
+
+        final long warmStart = System.nanoTime();
+        new FolderBookRepository(folder, options);
+        final long warmDuration = System.nanoTime() - warmStart;
+
+        assertTrue(warmDuration < coldDuration);
+    }
+
+    @Test
+    void changedFilesAreParsedAgain() throws IOException {
+        new FolderBookRepository(folder, FolderRepositoryOptions.defaults().withManifest(manifestFile));
+
+        final var touched = folder.resolve("book-1.epub");
+        Files.setLastModifiedTime(touched, FileTime.from(Instant.now().plusSeconds(60)));
+        final var changed = EpubFiles.epub(folder, "book-2.epub", "https://leanpub.com/book-2", "Book 2, second edition",
+                "Author 2", "Now also on devops");
+
+        final var manifest = FolderManifest.load(manifestFile);
+        assertAll(
+                () -> assertEquals(BOOK_COUNT, manifest.size()),
+                () -> assertTrue(manifest.book(folder.resolve("book-0.epub").toString()).isPresent()),
+                () -> assertTrue(manifest.book(touched.toString()).isPresent()),
+                () -> assertTrue(manifest.book(changed.toString()).isEmpty()),
+                () -> assertEquals(2, manifest.reused())
+        );
+    }
+
+    @Test
+    void corruptManifest() throws IOException {
+        Files.writeString(manifestFile, "not a manifest");
+
+        final var manifest = FolderManifest.load(manifestFile);
+        assertEquals(0, manifest.size());
+    }
+}
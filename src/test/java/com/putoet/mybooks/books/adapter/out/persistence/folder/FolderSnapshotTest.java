@@ -0,0 +1,95 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderSnapshotTest {
+    private final Author martin = new Author(AuthorId.withoutId(), "Martin, Robert C.");
+    private final Author fowler = new Author(AuthorId.withoutId(), "Fowler, Martin");
+
+    private final Book cleanCode = book("Clean Code", martin);
+    private final Book refactoring = book("Refactoring", fowler);
+    private final Book architecture = book("Clean Architecture", martin);
+
+    @Test
+    void of() {
+        final var snapshot = FolderSnapshot.of(books(cleanCode, refactoring, architecture), Map.of());
+
+        assertAll(
+                () -> assertEquals(Set.of(martin, fowler), Set.copyOf(snapshot.authors().values())),
+                () -> assertEquals(List.of(architecture, cleanCode), List.copyOf(snapshot.booksByAuthor().get(martin.id()))),
+                () -> assertEquals(List.of(refactoring), List.copyOf(snapshot.booksByAuthor().get(fowler.id())))
+        );
+    }
+
+    @Test
+    void update() {
+        final var snapshot = FolderSnapshot.of(books(cleanCode, refactoring), Map.of());
+
+        final var agile = book("Agile Software Development", martin, fowler);
+        final var books = books(cleanCode, agile);
+        final var next = snapshot.update(books, Map.of(), Set.of(refactoring.id(), agile.id()));
+
+        assertAll(
+                () -> assertEquals(List.of(agile, cleanCode), List.copyOf(next.booksByAuthor().get(martin.id()))),
+                () -> assertEquals(List.of(agile), List.copyOf(next.booksByAuthor().get(fowler.id()))),
+                () -> assertEquals(List.of(cleanCode), List.copyOf(snapshot.booksByAuthor().get(martin.id()))),
+                () -> assertEquals(FolderSnapshot.of(books, Map.of()).booksByAuthor(), next.booksByAuthor())
+        );
+
+        final var last = next.update(books(cleanCode), Map.of(), Set.of(agile.id()));
+        assertAll(
+                () -> assertFalse(last.booksByAuthor().containsKey(fowler.id())),
+                () -> assertFalse(last.authors().containsKey(fowler.id())),
+                () -> assertEquals(List.of(cleanCode), List.copyOf(last.booksByAuthor().get(martin.id())))
+        );
+    }
+
+    private static Book book(String title, Author... authors) {
+        return new Book(new BookId(), title, Set.of(authors), Set.of(), Set.of(MimeTypes.EPUB));
+    }
+
+    private static Map<BookId, Book> books(Book... books) {
+        final var map = new HashMap<BookId, Book>();
+        for (var book : books)
+            map.put(book.id(), book);
+        return map;
+    }
+
+    @Test
+    void page() {
+        final var snapshot = FolderSnapshot.of(books(cleanCode, refactoring, architecture), Map.of());
+
+        final var first = snapshot.booksAfter(null, 2);
+        final var second = snapshot.booksAfter(BookCursor.decode(first.next()), 2);
+        final var authors = snapshot.authorsAfter(AuthorCursor.of(fowler), 10);
+
+        assertAll(
+                () -> assertEquals(List.of(architecture, cleanCode), first.items()),
+                () -> assertEquals(List.of(refactoring), second.items()),
+                () -> assertFalse(second.hasNext()),
+                () -> assertEquals(List.of(martin), authors.items())
+        );
+    }
+
+    @Test
+    void updateOrdered() {
+        final var snapshot = FolderSnapshot.of(books(cleanCode, refactoring), Map.of());
+        final var agile = book("Agile Software Development", fowler);
+
+        final var next = snapshot.update(books(refactoring, agile), Map.of(), Set.of(cleanCode.id(), agile.id()));
+
+        assertAll(
+                () -> assertEquals(List.of(agile, refactoring), next.orderedBooks()),
+                () -> assertEquals(List.of(fowler), next.orderedAuthors()),
+                () -> assertEquals(List.of(cleanCode, refactoring), snapshot.orderedBooks())
+        );
+    }
+}
@@ -0,0 +1,124 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.adapter.out.search.InMemoryBookSearchIndex;
+import com.putoet.mybooks.books.domain.Author;
+import com.putoet.mybooks.books.domain.BookId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderWatcherTest {
+    private static final Duration DEBOUNCE = Duration.ofMillis(200);
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @TempDir
+    Path folder;
+
+    private final InMemoryBookSearchIndex search = new InMemoryBookSearchIndex();
+    private FolderBookRepository repository;
+
+    @BeforeEach
+    void setup() throws IOException {
+        EpubFiles.epub(folder, "book-1.epub", "https://leanpub.com/book-1", "Book 1", "Author 1", "On cloud");
+        EpubFiles.epub(folder, "book-2.epub", "https://leanpub.com/book-2", "Book 2", "Author 2", "On security");
+        repository = new FolderBookRepository(folder, FolderRepositoryOptions.defaults().withWatch(DEBOUNCE).withSearchIndex(search));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void createdBook() throws IOException, InterruptedException {
+        final var authors = repository.findAuthors();
+        final var sub = Files.createDirectory(folder.resolve("sub"));
+        EpubFiles.epub(sub, "book-3.epub", "https://leanpub.com/book-3", "Book 3", "Author 1", "On devops");
+
+        awaitTrue(() -> repository.findBooks().size() == 3);
+
+        final var book = repository.findBooksByTitle("Book 3").iterator().next();
+        assertAll(
+                () -> assertEquals(authors, repository.findAuthors()),
+                () -> assertTrue(authors.containsAll(book.authors())),
+                () -> assertEquals(2, repository.findBooksByAuthorId(book.authors().iterator().next().id()).size()),
+                () -> assertEquals(List.copyOf(repository.findBooks()),
+                        List.copyOf(repository.findBooksByAuthorIds(authors.stream().map(Author::id).toList())))
+        );
+    }
+
+    @Test
+    void modifiedBook() throws IOException, InterruptedException {
+        EpubFiles.epub(folder, "book-2.epub", "https://leanpub.com/book-2", "Book 2, second edition", "Author 3", "On security");
+
+        awaitTrue(() -> repository.findBooksByTitle("second edition").size() == 1);
+
+        assertAll(
+                () -> assertEquals(2, repository.findBooks().size()),
+                () -> assertEquals(2, repository.findAuthors().size()),
+                () -> assertEquals(1, repository.findAuthorsByName("3").size()),
+                () -> assertTrue(repository.findAuthorsByName("2").isEmpty())
+        );
+    }
+
+    @Test
+    void duplicateIdKeepsServedBook() throws IOException, InterruptedException {
+        final var id = new BookId(BookId.BookIdSchema.URL, "https://leanpub.com/book-2");
+        EpubFiles.epub(folder, "a-copy.epub", id.id(), "Copy of book 2", "Author 2", "A copy");
+
+        awaitTrue(() -> repository.findBooks().size() == 3);
+
+        final var copy = repository.findBooksByTitle("Copy of book 2").iterator().next();
+        assertAll(
+                () -> assertEquals("Book 2", repository.findBookById(id).title()),
+                () -> assertNotEquals(id, copy.id())
+        );
+    }
+
+    @Test
+    void deletedBook() throws IOException, InterruptedException {
+        Files.delete(folder.resolve("book-1.epub"));
+
+        awaitTrue(() -> repository.findBooks().size() == 1);
+
+        assertAll(
+                () -> assertTrue(repository.findBooksByTitle("Book 1").isEmpty()),
+                () -> assertEquals(1, repository.findAuthors().size())
+        );
+    }
+
+    @Test
+    void searchIndex() throws IOException, InterruptedException {
+        assertEquals(2, search.size());
+        assertEquals(1, search.search("cloud", 10).size());
+
+        EpubFiles.epub(folder, "book-2.epub", "https://leanpub.com/book-2", "Book 2, second edition", "Author 3", "On security");
+        Files.delete(folder.resolve("book-1.epub"));
+
+        awaitTrue(() -> search.size() == 1 && !search.search("edition", 10).isEmpty());
+
+        assertAll(
+                () -> assertTrue(search.search("cloud", 10).isEmpty()),
+                () -> assertEquals("Book 2, second edition", search.search("author 3", 10).get(0).book().title())
+        );
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline)
+                fail("Folder change not applied within " + TIMEOUT);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionMetricsTest {
+    private static final int BOOK_COUNT = 10;
+
+    @TempDir
+    Path folder;
+
+    @TempDir
+    Path data;
+
+    @Test
+    void metrics() throws IOException {
+        for (int i = 0; i < BOOK_COUNT; i++)
+            EpubFiles.epub(folder, "book-" + i + ".epub", "https://leanpub.com/book-" + i, "Book " + i,
+                    "Author " + i, "A book on cloud and security");
+        Files.writeString(folder.resolve("broken.epub"), "not an epub");
+
+        final var registry = new SimpleMeterRegistry();
+        final var options = FolderRepositoryOptions.defaults()
+                .withManifest(data.resolve("manifest.bin"))
+                .withRegistry(registry);
+        new FolderBookRepository(folder, options);
+
+        assertAll(
+                () -> assertEquals(BOOK_COUNT + 1, registry.get("mybooks.ingestion.discovered").counter().count()),
+                () -> assertEquals(BOOK_COUNT + 1, registry.get("mybooks.ingestion.manifest").tag("result", "miss").counter().count()),
+                () -> assertEquals(BOOK_COUNT, registry.get("mybooks.ingestion.parse").tag("outcome", "success").timer().count()),
+                () -> assertEquals(1, registry.get("mybooks.ingestion.parse").tag("outcome", "failure").timer().count()),
+                () -> assertEquals(1, registry.get("mybooks.ingestion.failures").counter().count()),
+                () -> assertEquals(BOOK_COUNT + 1, registry.get("mybooks.ingestion.bytes").summary().count()),
+                () -> assertTrue(registry.get("mybooks.ingestion.bytes").summary().totalAmount() > 0),
+                () -> assertEquals(1, registry.get("mybooks.ingestion.merge").timer().count()),
+                () -> assertEquals(1.0, registry.get("mybooks.ingestion.progress").gauge().value())
+        );
+
+        new FolderBookRepository(folder, options);
+        assertEquals(BOOK_COUNT, registry.get("mybooks.ingestion.manifest").tag("result", "hit").counter().count());
+    }
+}
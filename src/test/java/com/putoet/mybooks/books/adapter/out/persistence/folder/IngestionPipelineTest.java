@@ -0,0 +1,98 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import com.putoet.mybooks.books.domain.AuthorIndex;
+import com.putoet.mybooks.books.domain.Book;
+import com.putoet.mybooks.books.domain.BookId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionPipelineTest {
+    private static final int BOOK_COUNT = 30;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void setup() throws IOException {
+        final var sub = Files.createDirectory(folder.resolve("sub"));
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            EpubFiles.epub(i % 2 == 0 ? folder : sub, "book-" + i + ".epub", "https://leanpub.com/book-" + i,
+                    "Book " + i, "Author " + (i % 5), "A book on cloud and security, number " + i);
+        }
+    }
+
+    @Test
+    void load() {
+        final var pipeline = new IngestionPipeline(FolderManifest.none(), metrics(), new AuthorIndex(), true, 2);
+        final var loaded = pipeline.load(folder);
+
+        assertAll(
+                () -> assertEquals(BOOK_COUNT, loaded.size()),
+                () -> assertEquals(new ArrayList<>(loaded.keySet()), loaded.keySet().stream().sorted().toList()),
+                () -> assertEquals(0, pipeline.failed())
+        );
+    }
+
+    @Test
+    void loadSkipsBrokenFiles() throws IOException {
+        Files.writeString(folder.resolve("broken.epub"), "not an epub");
+
+        final var pipeline = new IngestionPipeline(FolderManifest.none(), metrics(), new AuthorIndex(), false, 1);
+        final var loaded = pipeline.load(folder);
+
+        assertAll(
+                () -> assertEquals(BOOK_COUNT, loaded.size()),
+                () -> assertEquals(1, pipeline.failed())
+        );
+    }
+
+    @Test
+    void loadSkipsBrokenManifestEntries() {
+        final var manifest = FolderManifest.load(folder.resolve("manifest.bin"));
+        final var broken = folder.resolve("book-0.epub").toString();
+        final var id = new BookId(BookId.BookIdSchema.URL, "https://leanpub.com/book-0");
+        manifest.put(broken, new Book(id, "Book 0", Collections.singleton(null), Set.of(), Set.of()));
+
+        final var metrics = metrics();
+        final var pipeline = new IngestionPipeline(manifest, metrics, new AuthorIndex(), false, 2);
+        final var loaded = pipeline.load(folder);
+
+        assertAll(
+                () -> assertEquals(BOOK_COUNT - 1, loaded.size()),
+                () -> assertFalse(loaded.containsKey(broken)),
+                () -> assertEquals(1, pipeline.failed()),
+                () -> assertEquals(1.0, metrics.progress()),
+                () -> assertEquals(1.0, metrics.registry().get("mybooks.ingestion.failures")
+                        .tag("cause", "NullPointerException").counter().count())
+        );
+    }
+
+    private IngestionMetrics metrics() {
+        return new IngestionMetrics(new SimpleMeterRegistry(), folder.toString());
+    }
+
+    @Test
+    void duplicateIds() throws IOException {
+        final var id = new BookId(BookId.BookIdSchema.URL, "https://leanpub.com/book-0");
+        EpubFiles.epub(folder, "a-copy.epub", id.id(), "Copy of book 0", "Author 0", "A copy");
+        EpubFiles.epub(folder, "z-copy.epub", id.id(), "Another copy of book 0", "Author 0", "A copy");
+
+        final var repository = new FolderBookRepository(folder, FolderRepositoryOptions.defaults().withConcurrency(3));
+        assertAll(
+                () -> assertEquals(BOOK_COUNT + 2, repository.findBooks().size()),
+                () -> assertEquals("Copy of book 0", repository.findBookById(id).title()),
+                () -> assertEquals(5, repository.findAuthors().size())
+        );
+    }
+}
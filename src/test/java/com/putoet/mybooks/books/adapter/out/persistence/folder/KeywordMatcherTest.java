@@ -0,0 +1,63 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+    private static final String TEXT = "Machine learning in the Cloud. Cloud native machine learning, not cloudy.";
+
+    @Test
+    void findKeywords() {
+        final var matcher = new KeywordMatcher(List.of("cloud", "Machine Learning", "quantum", " "));
+
+        assertAll(
+                () -> assertEquals(Set.of("cloud", "machine learning", "quantum"), matcher.keywords()),
+                () -> assertEquals(Set.of("cloud", "machine learning"), matcher.findKeywords(TEXT))
+        );
+    }
+
+    @Test
+    void countMatches() {
+        final var matcher = new KeywordMatcher(List.of("cloud", "machine learning"));
+        final var counts = matcher.countMatches(TEXT);
+
+        assertAll(
+                () -> assertEquals(2, counts.get("cloud")),
+                () -> assertEquals(2, counts.get("machine learning"))
+        );
+    }
+
+    @Test
+    void scanner() {
+        final var matcher = new KeywordMatcher(List.of("cloud", "machine learning", "quantum"));
+        final var scanner = matcher.scanner();
+
+        // feed the text in small pieces, so keywords cross the boundaries of both the pieces and the scan window
+        final var text = ("filler text ".repeat(5_000) + "machine learning ").repeat(10) + " cloud";
+        for (int i = 0; i < text.length(); i += 7)
+            scanner.append(text.substring(i, Math.min(text.length(), i + 7)));
+
+        final var counts = scanner.finish();
+        assertAll(
+                () -> assertEquals(10, counts.get("machine learning")),
+                () -> assertEquals(1, counts.get("cloud")),
+                () -> assertFalse(counts.containsKey("quantum")),
+                () -> assertFalse(scanner.allFound())
+        );
+    }
+
+    @Test
+    void instance() {
+        final var matcher = KeywordMatcher.instance();
+
+        assertAll(
+                () -> assertSame(matcher, KeywordMatcher.instance()),
+                () -> assertFalse(KeywordMatcher.reload()),
+                () -> assertSame(matcher, KeywordMatcher.instance())
+        );
+    }
+}
@@ -1,18 +1,111 @@
 package com.putoet.mybooks.books.adapter.out.persistence.folder;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class RezipperTest {
+    @TempDir
+    Path folder;
+
     @Test
-    void bookForFile() {
+    void bookForFile() throws IOException {
         final var fileName = "/Users/renevanputten/OneDrive/Books/Manning Books/Advanced Algorithms and Data Structures/Advanced_Algorithms_and_Data_Structures.epub";
-        final var epub = Rezipper.repackage(fileName);
+        try (var repackaged = Rezipper.repair(fileName).orElseThrow(); var is = repackaged.open()) {
+            assertTrue(repackaged.size() > 0);
+            assertNotNull(new ZipInputStream(is).getNextEntry());
+        }
+    }
+
+    @Test
+    void repairInMemory() throws IOException {
+        final var damaged = damagedEpub();
+
+        try (var repackaged = Rezipper.repair(damaged.toString()).orElseThrow(); var is = repackaged.open()) {
+            assertTrue(repackaged.inMemory());
+            assertRebuilt(is);
+        }
+    }
+
+    @Test
+    void repairInTempFile() throws IOException {
+        final var damaged = damagedEpub();
+        final var tempFiles = tempEpubFiles();
+
+        try (var repackaged = Rezipper.repair(damaged.toString(), 0).orElseThrow()) {
+            assertFalse(repackaged.inMemory());
+            assertEquals(tempFiles + 1, tempEpubFiles());
+            try (var is = repackaged.open()) {
+                assertRebuilt(is);
+            }
+        }
+
+        assertEquals(tempFiles, tempEpubFiles());
+    }
+
+    @Test
+    void repairedBookCanBeLoaded() throws IOException {
+        final var epub = EpubFiles.epub(folder, "clean.epub", "https://leanpub.com/clean", "Clean Code",
+                "Robert Martin", "A book on refactoring");
+
+        try (var repackaged = Rezipper.repair(epub.toString()).orElseThrow()) {
+            final var repaired = folder.resolve("repaired.epub");
+            try (var is = repackaged.open()) {
+                Files.copy(is, repaired);
+            }
+
+            final var book = EpubBookLoader.bookForFile(repaired.toString());
+            assertEquals("Clean Code", book.title());
+        }
+    }
+
+    private Path damagedEpub() throws IOException {
+        final var file = folder.resolve("damaged.epub");
+        try (var zos = new ZipOutputStream(Files.newOutputStream(file))) {
+            zos.putNextEntry(new ZipEntry("META-INF/container.xml"));
+            zos.write("<container/>".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("mimetype"));
+            zos.write("application/epub+zip".getBytes(StandardCharsets.US_ASCII));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("OEBPS/"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("OEBPS/chapter1.xhtml"));
+            zos.write("<html/>".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+        return file;
+    }
+
+    private static void assertRebuilt(InputStream is) throws IOException {
+        final var names = new ArrayList<String>();
+        try (var zis = new ZipInputStream(is)) {
+            var entry = zis.getNextEntry();
+            assertEquals("mimetype", entry.getName());
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            assertEquals("application/epub+zip", new String(zis.readAllBytes(), StandardCharsets.US_ASCII));
+
+            while ((entry = zis.getNextEntry()) != null)
+                names.add(entry.getName());
+        }
+        assertEquals(List.of("META-INF/container.xml", "OEBPS/", "OEBPS/chapter1.xhtml"), names);
+    }
 
-        assertAll(
-                () -> assertTrue(epub.isPresent()),
-                () -> assertNotEquals(fileName, epub.orElseThrow())
-        );
+    private static long tempEpubFiles() throws IOException {
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("tmp_epub")).count();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.putoet.mybooks.books.adapter.out.persistence.folder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+    private static final List<String> WORDS = List.of("Clean", "Code", "Java", "Spring", "Boot", "Patterns",
+            "Domain", "Driven", "Design", "Microservices", "Kotlin", "Refactoring", "Architecture", "Testing");
+
+    private final TrigramIndex<Integer> index = TrigramIndex.of(Map.of(
+            1, "Clean Code",
+            2, "Clean Architecture",
+            3, "Refactoring",
+            4, "Java Concurrency in Practice"));
+
+    @Test
+    void search() {
+        assertAll(
+                () -> assertEquals(Set.of(1, 2), index.search("clean")),
+                () -> assertEquals(Set.of(2), index.search("ARCHITECT")),
+                () -> assertEquals(Set.of(1), index.search("n co")),
+                () -> assertEquals(Set.of(3, 4), index.search("ac")),
+                () -> assertEquals(Set.of(1, 2, 3, 4), index.search("")),
+                () -> assertEquals(Set.of(), index.search("kotlin"))
+        );
+    }
+
+    @Test
+    void searchVerifiesCandidates() {
+        // "abcab" contains all trigrams of "abcabc" (abc, bca, cab), but not the query itself
+        final var index = TrigramIndex.of(Map.of(1, "xabcabx", 2, "abcabc"));
+
+        assertEquals(Set.of(2), index.search("abcabc"));
+    }
+
+    @Test
+    void update() {
+        final var updated = index.update(Set.of(1, 3), Map.of(3, "Refactoring Databases", 5, "Clean Agile"));
+
+        assertAll(
+                () -> assertEquals(Set.of(2, 5), updated.search("clean")),
+                () -> assertEquals(Set.of(3), updated.search("databases")),
+                () -> assertEquals(4, updated.size()),
+                () -> assertEquals(Set.of(1, 2), index.search("clean")),
+                () -> assertEquals(Set.of(), index.search("databases"))
+        );
+    }
+
+    @Test
+    void searchLargeIndex() {
+        final var random = new Random(42);
+        final var texts = new HashMap<Integer, String>();
+        for (int i = 0; i < 100_000; i++)
+            texts.put(i, random.ints(4, 0, WORDS.size()).mapToObj(WORDS::get).collect(Collectors.joining(" ")) + " " + i);
+
+        final var large = TrigramIndex.of(texts);
+        assertEquals(texts.size(), large.size());
+
+        for (var query : List.of("ring boot", "microservices kotlin", "12345", "tern", "zz")) {
+            final var expected = texts.entrySet().stream()
+                    .filter(entry -> entry.getValue().toLowerCase().contains(query))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+
+            final var found = large.search(query);
+            assertEquals(expected, found);
+        }
+    }
+}
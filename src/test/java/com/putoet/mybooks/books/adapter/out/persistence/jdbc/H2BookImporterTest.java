@@ -0,0 +1,125 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
+
+import com.putoet.mybooks.books.domain.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import(SchemaMigrations.class)
+class H2BookImporterTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private H2BookRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new H2BookRepository(jdbcTemplate);
+    }
+
+    @Test
+    void importBooks() {
+        final var hombergs = new Author(AuthorId.withoutId(), "Tom Hombergs");
+        final var martin = new Author(AuthorId.withoutId(), "Martin, Robert C.");
+        final var books = IntStream.range(0, 7)
+                .mapToObj(i -> new Book(new BookId(BookId.BookIdSchema.UUID, "4b7a6f9e-0c1d-4e2f-8a3b-00000000000" + i),
+                        "Book " + i, Set.of(i % 2 == 0 ? hombergs : martin), Set.of("java", "book" + i),
+                        Set.of(MimeTypes.EPUB)))
+                .toList();
+
+        final var result = new H2BookImporter(jdbcTemplate, transactionManager, 3).importBooks(books);
+
+        assertAll(
+                () -> assertEquals(7, result.books()),
+                () -> assertEquals(1, result.authors()),
+                () -> assertEquals(0, result.skipped()),
+                () -> assertEquals(1 + 7 * 5, result.rows()),
+                () -> assertTrue(result.rowsPerSecond() > 0)
+        );
+
+        final var tom = repository.findAuthorsByName("hombergs").stream().findFirst().orElseThrow();
+        final var robert = repository.findAuthorsByName("martin").stream().findFirst().orElseThrow();
+        final var book = repository.findBookById(books.get(3).id());
+        assertAll(
+                () -> assertEquals(AuthorId.withId("531e071d-2ff7-4737-a2d8-c4e1e1d81f97"), tom.id()),
+                () -> assertEquals(4, repository.findBooksByAuthorId(tom.id()).size()),
+                () -> assertEquals(3, repository.findBooksByAuthorId(robert.id()).size()),
+                () -> assertEquals("Book 3", book.title()),
+                () -> assertEquals(Set.of("java", "book3"), book.keywords()),
+                () -> assertEquals(Set.of(MimeTypes.EPUB), book.formats())
+        );
+    }
+
+    @Test
+    void importBooksSkipsExistingBooks() {
+        final var importer = new H2BookImporter(jdbcTemplate, transactionManager);
+        final var book = new Book(new BookId(BookId.BookIdSchema.ISBN, "978-1-83921-196-6"), "Get Your Hands Dirty",
+                Set.of(new Author(AuthorId.withoutId(), "Hombergs, Tom")), Set.of(), Set.of(MimeTypes.EPUB));
+
+        importer.importBooks(List.of(book));
+        final var result = importer.importBooks(List.of(book));
+
+        assertAll(
+                () -> assertEquals(0, result.books()),
+                () -> assertEquals(1, result.skipped()),
+                () -> assertEquals(0, result.rows())
+        );
+    }
+
+    @Test
+    void replaceBooks() {
+        final var book = new Book(new BookId(BookId.BookIdSchema.ISBN, "978-1-83921-196-6"), "Get Your Hands Dirty",
+                Set.of(new Author(AuthorId.withoutId(), "Hombergs, Tom")), Set.of(), Set.of(MimeTypes.EPUB));
+
+        final var result = new H2BookImporter(jdbcTemplate, transactionManager).replaceBooks(Stream.of(book));
+
+        assertAll(
+                () -> assertEquals(1, result.books()),
+                () -> assertEquals(1, result.authors()),
+                () -> assertEquals(List.of(book.id()), repository.findBooks().stream().map(Book::id).toList()),
+                () -> assertEquals(1, repository.findAuthors().size())
+        );
+    }
+
+    // Runs without the test transaction, so the rollback of the failed replace is visible
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void replaceBooksRollsBackOnFailure() {
+        final var books = repository.findBooks();
+        final var authors = repository.findAuthors();
+        final var book = new Book(new BookId(BookId.BookIdSchema.ISBN, "978-1-83921-196-6"), "Get Your Hands Dirty",
+                Set.of(new Author(AuthorId.withoutId(), "Hombergs, Tom")), Set.of(), Set.of(MimeTypes.EPUB));
+        final var failing = Stream.<Supplier<Book>>of(() -> book, () -> { throw new IllegalStateException("folder"); })
+                .map(Supplier::get);
+
+        final var importer = new H2BookImporter(jdbcTemplate, transactionManager, 1);
+        assertThrows(IllegalStateException.class, () -> importer.replaceBooks(failing));
+        assertAll(
+                () -> assertEquals(books, repository.findBooks()),
+                () -> assertEquals(authors, repository.findAuthors())
+        );
+    }
+
+    @Test
+    void chunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new H2BookImporter(jdbcTemplate, transactionManager, 0));
+    }
+}
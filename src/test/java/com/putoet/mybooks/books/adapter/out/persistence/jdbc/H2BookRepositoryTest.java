@@ -1,7 +1,11 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
 
 import com.putoet.mybooks.books.application.port.in.ServiceException;
+import com.putoet.mybooks.books.domain.Author;
+import com.putoet.mybooks.books.domain.AuthorCursor;
 import com.putoet.mybooks.books.domain.AuthorId;
+import com.putoet.mybooks.books.domain.Book;
+import com.putoet.mybooks.books.domain.BookCursor;
 import com.putoet.mybooks.books.domain.BookId;
 import com.putoet.mybooks.books.domain.MimeTypes;
 import com.putoet.mybooks.books.domain.SiteType;
@@ -9,18 +13,29 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.test.autoconfigure.JdbcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
+@Import(SchemaMigrations.class)
 class H2BookRepositoryTest {
+    // Access of a table in an H2 query plan: a table scan, or an index with (':') or without (' */') a condition
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* PUBLIC\\.(\\w+)(\\.tableScan)?( \\*/|:)");
     private static final String NAME = "Author, Name";
     private static final SiteType TYPE = SiteType.HOMEPAGE;
     private static final URL SITE_URL;
@@ -37,10 +52,19 @@ class H2BookRepositoryTest {
     private JdbcTemplate jdbcTemplate;
 
     private H2BookRepository repository;
+    private StatementCounter counter;
+    private H2BookRepository counted;
 
     @BeforeEach
     void setup() {
         repository = new H2BookRepository(jdbcTemplate);
+        counter = new StatementCounter(jdbcTemplate.getDataSource());
+        counted = counted(false);
+    }
+
+    // A repository on the same database as the repository, with its statements counted by the counter
+    private H2BookRepository counted(boolean documents) {
+        return new H2BookRepository(new JdbcTemplate(counter.dataSource()), documents);
     }
 
     @Test
@@ -67,6 +91,17 @@ class H2BookRepositoryTest {
         }
     }
 
+    @Test
+    void authorIndex() {
+        final var index = repository.authorIndex();
+
+        assertAll(
+                () -> assertEquals(5, index.size()),
+                () -> assertTrue(index.find("Simon Brown").isPresent()),
+                () -> assertTrue(index.find("tom hombergs").isPresent())
+        );
+    }
+
     @Test
     void findAuthorById() {
         assertNull(repository.findAuthorById(AuthorId.withoutId()));
@@ -155,4 +190,272 @@ class H2BookRepositoryTest {
                 () -> assertEquals(keywords, book.keywords())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void findBooksQueryCount() {
+        final var authors = repository.findAuthors();
+
+        registerBooks(10, authors);
+        counter.reset();
+        final var ten = counted.findBooks();
+        final var queriesForTen = counter.count();
+
+        registerBooks(40, authors);
+        counter.reset();
+        final var fifty = counted.findBooks();
+        final var queriesForFifty = counter.count();
+
+        counter.reset();
+        final var byAuthor = counted.findBooksByAuthorId(authors.stream().findFirst().orElseThrow().id());
+        final var queriesByAuthor = counter.count();
+
+        assertAll(
+                () -> assertEquals(10, ten.size()),
+                () -> assertEquals(50, fifty.size()),
+                () -> assertEquals(5, queriesForTen),
+                () -> assertEquals(queriesForTen, queriesForFifty),
+                () -> assertEquals(5, queriesByAuthor),
+                () -> assertFalse(byAuthor.isEmpty()),
+                () -> assertEquals(fifty, repository.findBooks()),
+                () -> assertTrue(fifty.stream().allMatch(book -> book.authors().size() == 2)),
+                () -> assertTrue(fifty.stream().allMatch(book -> book.keywords().equals(Set.of("A", "B"))))
+        );
+    }
+
+    @Test
+    void findBooksByAuthorIds() {
+        final var authors = repository.findAuthors();
+        registerBooks(10, authors);
+        final var authorIds = authors.stream().map(Author::id).toList();
+        final var expected = authors.stream()
+                .flatMap(author -> repository.findBooksByAuthorId(author.id()).stream())
+                .collect(Collectors.toSet());
+
+        counter.reset();
+        final var books = counted.findBooksByAuthorIds(authorIds);
+        final var queries = counter.count();
+
+        assertAll(
+                () -> assertEquals(expected, books),
+                () -> assertEquals(5, queries),
+                () -> assertEquals(Set.of(), counted.findBooksByAuthorIds(List.of()))
+        );
+    }
+
+    @Test
+    void findAuthorsQueryCount() {
+
+        final var authors = counted.findAuthors();
+
+        assertAll(
+                () -> assertEquals(6, authors.size()),
+                () -> assertEquals(2, counter.count()),
+                () -> assertEquals(6, authors.stream()
+                        .filter(author -> author.name().equals("Hombergs, Tom"))
+                        .findFirst().orElseThrow().sites().size())
+        );
+    }
+
+    @Test
+    void hotQueriesUseIndexes() {
+        final var authors = repository.findAuthors();
+        registerBooks(10, authors);
+        final var author = authors.stream().findFirst().orElseThrow();
+        final var book = repository.findBooks().iterator().next();
+        final var firstBooks = repository.findBooks(null, 2);
+        final var firstAuthors = repository.findAuthors(null, 2);
+
+        counter.reset();
+        counted.findBookById(book.id());
+        counted.findBooksByAuthorId(author.id());
+        counted.findAuthorById(author.id());
+        final var byId = counter.statements();
+
+        counter.reset();
+        counted.findBooks(null, 2);
+        counted.findBooks(BookCursor.decode(firstBooks.next()), 2);
+        counted.findAuthors(null, 2);
+        counted.findAuthors(AuthorCursor.decode(firstAuthors.next()), 2);
+        final var pages = counter.statements();
+
+        counter.reset();
+        counted.findAuthorsByName("tom");
+        counted.findBooksByTitle("book");
+        final var searches = counter.statements();
+
+        final var selectAuthor = "select author_id, version, name from author where ";
+        final var selectBook = "select b.book_id_type, b.book_id, b.title from book b ";
+        assertAll(
+                () -> byId.forEach(sql -> assertEquals(Set.of(), fullScans(sql), sql)),
+                () -> assertTrue(explain(statement(byId, selectAuthor + "author_id = ?")).contains("AUTHOR_ID = ?1")),
+                () -> pages.forEach(sql -> assertTrue(Set.of("BOOK_TITLE_IDX", "AUTHOR_NAME_IDX").containsAll(fullScans(sql)), sql)),
+                () -> assertTrue(explain(statement(pages, selectBook + "order by title")).contains("index sorted")),
+                () -> assertTrue(explain(statement(pages, selectBook + "where (title"))
+                        .contains("BOOK_TITLE_IDX: TITLE >= ?1")),
+                () -> assertTrue(explain(statement(pages, selectAuthor + "(name"))
+                        .contains("AUTHOR_NAME_IDX: NAME >= ?1")),
+                // A search for a part of a name or title can't use an index, but compares the stored lower case value
+                () -> searches.forEach(sql -> assertFalse(explain(sql).contains("LOWER("), sql)),
+                () -> assertTrue(explain(statement(searches, selectAuthor + "name_lower"))
+                        .contains("\"NAME_LOWER\" LIKE ?1")),
+                () -> assertTrue(explain(statement(searches, selectBook + "where title_lower"))
+                        .contains("\"TITLE_LOWER\" LIKE ?1"))
+        );
+    }
+
+    /*
+     * The one statement that starts with the text.
+     */
+    private static String statement(List<String> statements, String text) {
+        final var matching = statements.stream().filter(sql -> sql.startsWith(text)).toList();
+        assertEquals(1, matching.size(), "Statements starting with '" + text + "' in " + statements);
+        return matching.get(0);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.query(connection -> connection.prepareStatement("explain " + sql),
+                (row, rowNum) -> row.getString(1)).get(0);
+    }
+
+    /*
+     * Tables or indexes in the plan of the statement that are read without a condition.
+     */
+    private Set<String> fullScans(String sql) {
+        final var matcher = TABLE_ACCESS.matcher(explain(sql));
+        final var scans = new HashSet<String>();
+        while (matcher.find()) {
+            if (matcher.group(2) != null)
+                scans.add(matcher.group(1) + matcher.group(2));
+            else if (!matcher.group(3).equals(":"))
+                scans.add(matcher.group(1));
+        }
+        return scans;
+    }
+
+    private void registerBooks(int count, Set<Author> authors) {
+        final var pair = authors.stream().limit(2).collect(Collectors.toSet());
+        final int start = repository.findBooks().size();
+        for (int i = start; i < start + count; i++) {
+            repository.registerBook(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                    "Book " + i, pair, Set.of(MimeTypes.EPUB), Set.of("A", "B"));
+        }
+    }
+
+    @Test
+    void registerBooks() {
+        final var authors = repository.findAuthors().stream().limit(2).collect(Collectors.toSet());
+        final var books = IntStream.range(0, 25)
+                .mapToObj(i -> new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                        "Book " + i, authors, Set.of("A", "B", "C"), Set.of(MimeTypes.EPUB, MimeTypes.PDF)))
+                .toList();
+
+        final var registered = counted.registerBooks(books);
+
+        assertAll(
+                () -> assertEquals(4, counter.count()),
+                () -> assertEquals(Set.copyOf(books), registered),
+                () -> assertEquals(Set.copyOf(books), repository.findBooksByAuthorId(authors.iterator().next().id()))
+        );
+    }
+
+    @Test
+    void registerAuthorStatements() {
+
+        final var author = counted.registerAuthor(NAME, Map.of(TYPE, SITE_URL, SiteType.GITHUB, SITE_URL));
+
+        assertAll(
+                () -> assertEquals(2, counter.count()),
+                () -> assertEquals(author, repository.findAuthorById(author.id()))
+        );
+    }
+
+    @Test
+    void findAuthorsPage() {
+        final var first = repository.findAuthors(null, 4);
+        final var second = repository.findAuthors(AuthorCursor.decode(first.next()), 4);
+
+        final var pages = new ArrayList<>(first.items());
+        pages.addAll(second.items());
+        assertAll(
+                () -> assertEquals(4, first.items().size()),
+                () -> assertTrue(first.hasNext()),
+                () -> assertEquals(2, second.items().size()),
+                () -> assertFalse(second.hasNext()),
+                () -> assertEquals(List.copyOf(repository.findAuthors()), pages)
+        );
+    }
+
+    @Test
+    void findBooksPage() {
+        registerBooks(7, repository.findAuthors());
+
+        final var books = new ArrayList<Book>();
+        String next = null;
+        do {
+            final var page = repository.findBooks(BookCursor.decode(next), 3);
+            books.addAll(page.items());
+            next = page.next();
+        } while (next != null);
+
+        assertEquals(List.copyOf(repository.findBooks()), books);
+    }
+
+    @Test
+    void bookDocuments() {
+        final var documented = counted(true);
+        final var authors = repository.findAuthors().stream().limit(2).collect(Collectors.toSet());
+        final var author = authors.iterator().next();
+        documented.registerBooks(IntStream.range(0, 5)
+                .mapToObj(i -> new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                        "Document " + i, authors, Set.of("A"), Set.of(MimeTypes.EPUB)))
+                .toList());
+        final var book = repository.findBooksByTitle("document 3").iterator().next();
+
+        counter.reset();
+        final var byId = documented.findBookById(book.id());
+        final var all = documented.findBooks();
+        final var statements = counter.statements();
+
+        assertAll(
+                () -> assertEquals(book, byId),
+                () -> assertEquals(repository.findBooks(), all),
+                () -> assertEquals(2, statements.size()),
+                () -> assertEquals(Set.of(), fullScans(statements.get(0))),
+                () -> assertEquals(repository.findBooksByAuthorId(author.id()), documented.findBooksByAuthorId(author.id())),
+                () -> assertEquals(repository.findBooksByTitle("document"), documented.findBooksByTitle("document")),
+                () -> assertEquals(repository.findBooks(null, 3), documented.findBooks(null, 3)),
+                () -> assertNull(documented.findBookById(new BookId()))
+        );
+    }
+
+    @Test
+    void bookDocumentsFollowAuthor() throws MalformedURLException {
+        final var documented = new H2BookRepository(jdbcTemplate, true);
+        final var original = documented.registerAuthor("Old, Name", Map.of());
+        final var book = documented.registerBook(new BookId(), "Documented", Set.of(original), Set.of(MimeTypes.EPUB), Set.of());
+
+        final var renamed = documented.updateAuthor(original.id(), original.version(), "New, Name");
+        assertEquals(Set.of(renamed), documented.findBookById(book.id()).authors());
+
+        final var withSite = documented.setAuthorSite(original.id(), SiteType.GITHUB, new URL("https://github.com"));
+        assertAll(
+                () -> assertEquals(Set.of(withSite), documented.findBookById(book.id()).authors()),
+                () -> assertEquals(repository.findBookById(book.id()), documented.findBookById(book.id()))
+        );
+    }
+
+    @Test
+    void rebuildBookDocuments() {
+        final var documented = new H2BookRepository(jdbcTemplate, true);
+        registerBooks(7, repository.findAuthors());
+        final var books = repository.findBooks();
+
+        assertAll(
+                () -> assertEquals(Set.of(), documented.findBooks()),
+                () -> assertFalse(documented.bookDocumentsComplete()),
+                () -> assertEquals(books.size(), documented.rebuildBookDocuments()),
+                () -> assertTrue(documented.bookDocumentsComplete()),
+                () -> assertEquals(books, documented.findBooks())
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import(SchemaMigrations.class)
+class SchemaMigrationsTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrations migrations;
+
+    @Test
+    void migrate() {
+        final var available = migrations.migrations();
+
+        assertAll(
+                () -> assertEquals(2, available.get(0).version()),
+                () -> assertEquals("search columns and indexes", available.get(0).description()),
+                () -> assertEquals(available.get(available.size() - 1).version(), migrations.version()),
+                () -> assertEquals(available.size() + 1,
+                        jdbcTemplate.queryForObject("select count(*) from schema_version", Integer.class)),
+                // Applied on startup, so nothing left to do
+                () -> assertTrue(migrations.migrate().isEmpty())
+        );
+    }
+
+    @Test
+    void searchColumns() {
+        final var id = UUID.randomUUID().toString();
+        jdbcTemplate.update("insert into author (author_id, version, name) values (?, ?, ?)",
+                id, Timestamp.from(Instant.now()), "Évans, Eric");
+        jdbcTemplate.update("insert into book (book_id_type, book_id, title) values (?, ?, ?)",
+                "UUID", id, "Domain-Driven Design");
+
+        assertAll(
+                () -> assertEquals("évans, eric",
+                        jdbcTemplate.queryForObject("select name_lower from author where author_id = ?", String.class, id)),
+                () -> assertEquals("domain-driven design",
+                        jdbcTemplate.queryForObject("select title_lower from book where book_id = ?", String.class, id))
+        );
+    }
+
+    @Test
+    void prefixSearchUsesIndex() {
+        final var plan = jdbcTemplate.queryForObject("explain select author_id from author where name_lower like 'hom%'", String.class);
+
+        assertNotNull(plan);
+        assertTrue(plan.contains("AUTHOR_NAME_LOWER_IDX: NAME_LOWER >= 'hom'"), plan);
+    }
+}
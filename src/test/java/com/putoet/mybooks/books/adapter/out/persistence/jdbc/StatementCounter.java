@@ -0,0 +1,77 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jdbc;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class StatementCounter
+ * DataSource proxy that counts the statements prepared or created on its connections, and records the SQL of the
+ * prepared statements. Connections take part in the current (test) transaction of the target DataSource, so the
+ * counted statements see the same data as the test.
+ */
+final class StatementCounter {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final DataSource dataSource;
+
+    StatementCounter(DataSource target) {
+        final var transactionAware = new TransactionAwareDataSourceProxy(target);
+        this.dataSource = proxy(DataSource.class, (proxy, method, args) -> {
+            final var result = invoke(transactionAware, method, args);
+            return result instanceof Connection connection ? counting(connection) : result;
+        });
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    int count() {
+        return count.get();
+    }
+
+    List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    void reset() {
+        count.set(0);
+        statements.clear();
+    }
+
+    private Connection counting(Connection target) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            if (STATEMENT_METHODS.contains(method.getName())) {
+                count.incrementAndGet();
+                if (args != null && args.length > 0 && args[0] instanceof String sql)
+                    statements.add(sql);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exc) {
+            throw exc.getCause();
+        }
+    }
+}
@@ -1,12 +1,35 @@
 package com.putoet.mybooks.books.adapter.out.persistence.jpa;
 
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
+import com.putoet.mybooks.books.application.port.in.ServiceException;
+import com.putoet.mybooks.books.domain.Author;
+import com.putoet.mybooks.books.domain.AuthorCursor;
+import com.putoet.mybooks.books.domain.AuthorId;
+import com.putoet.mybooks.books.domain.Book;
+import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.domain.MimeTypes;
+import com.putoet.mybooks.books.domain.SiteType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 
 @DataJpaTest
@@ -17,13 +40,19 @@ class JpaBookRepositoryTest {
     @Autowired
     private BookJpaRepository bookRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private final DomainMapper mapper = new DomainMapper();
 
     private BookPersistenceUpdatePort repository;
 
     @BeforeEach
     void setup() {
-        repository = new JpaBookRepository(mapper, authorRepository, bookRepository);
+        repository = new JpaBookRepository(mapper, authorRepository, bookRepository, entityManager.getEntityManager(), JpaBookRepository.DEFAULT_BATCH_SIZE);
     }
 
     @Test
@@ -37,4 +66,152 @@ class JpaBookRepositoryTest {
         final var books = repository.findBooks();
         assertNotNull(books);
     }
+
+    @Test
+    void registerBooks() {
+        final var authors = Set.of(repository.registerAuthor("Hombergs, Tom", Map.of()));
+        final var books = IntStream.range(0, 5)
+                .mapToObj(i -> new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                        "Book " + i, authors, Set.of("A"), Set.of(MimeTypes.EPUB)))
+                .toList();
+
+        final var registered = repository.registerBooks(books);
+
+        assertAll(
+                () -> assertEquals(Set.copyOf(books), registered),
+                () -> assertEquals(5, repository.findBooksByAuthorId(authors.iterator().next().id()).size())
+        );
+    }
+
+    @Test
+    void findBooksByAuthorIds() {
+        final var tom = repository.registerAuthor("Hombergs, Tom", Map.of());
+        final var simon = repository.registerAuthor("Brown, Simon", Map.of());
+        final var unknown = AuthorId.withId(UUID.randomUUID().toString());
+        repository.registerBooks(books(tom, 3));
+        repository.registerBooks(books(simon, 2));
+        repository.registerBooks(List.of(new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                "Both", Set.of(tom, simon), Set.of(), Set.of(MimeTypes.EPUB))));
+
+        final var expected = new HashSet<>(repository.findBooksByAuthorId(tom.id()));
+        expected.addAll(repository.findBooksByAuthorId(simon.id()));
+        final var books = new ArrayList<Set<Book>>();
+        final var queries = statements(() -> books.add(repository.findBooksByAuthorIds(List.of(tom.id(), simon.id(), unknown))));
+
+        assertAll(
+                () -> assertEquals(6, books.get(0).size()),
+                () -> assertEquals(expected, books.get(0)),
+                // The books with their authors, then the sites, keywords and formats in a batch each
+                () -> assertEquals(4, queries),
+                () -> assertEquals(Set.of(), repository.findBooksByAuthorIds(List.of()))
+        );
+    }
+
+    @Test
+    void findAuthorsPage() {
+        for (var name : List.of("Brown, Simon", "Adzic, Gojko", "Brown, Simon", "Gunter, Stuart"))
+            repository.registerAuthor(name, Map.of());
+
+        final var all = List.copyOf(repository.findAuthors());
+        final var first = repository.findAuthors(null, 2);
+        final var second = repository.findAuthors(AuthorCursor.decode(first.next()), all.size());
+
+        assertAll(
+                () -> assertEquals(all.subList(0, 2), first.items()),
+                () -> assertEquals(all.subList(2, all.size()), second.items()),
+                () -> assertFalse(second.hasNext())
+        );
+    }
+
+    private void registerBooks(int count) throws MalformedURLException {
+        final var author = repository.registerAuthor(UUID.randomUUID().toString(),
+                Map.of(SiteType.HOMEPAGE, new URL("https://example.com")));
+        repository.registerBooks(IntStream.range(0, count)
+                .mapToObj(i -> new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                        "Book " + UUID.randomUUID(), Set.of(author), Set.of("A", "B"), Set.of(MimeTypes.EPUB, MimeTypes.PDF)))
+                .toList());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // The number of statements prepared by the action, with an empty persistence context
+    private long statements(Runnable action) {
+        entityManager.clear();
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Long> statementCounts() {
+        return List.of(
+                statements(repository::findBooks),
+                statements(() -> repository.findBooks(null, 100)),
+                statements(repository::findAuthors),
+                statements(() -> repository.findAuthors(null, 100)),
+                statements(() -> repository.findBooksByTitle("book"))
+        );
+    }
+
+    @Test
+    void constantStatementCount() throws MalformedURLException {
+        registerBooks(5);
+        final var few = statementCounts();
+
+        registerBooks(40);
+        final var many = statementCounts();
+
+        assertAll(
+                () -> assertEquals(few, many),
+                () -> assertEquals(45, repository.findBooks().size()),
+                () -> assertEquals(List.of(6L, 6L, 2L, 2L, 4L), many)
+        );
+    }
+
+    private List<Book> books(Author author, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Book(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                        "Book " + i, Set.of(author), Set.of("A", "B"), Set.of(MimeTypes.EPUB, MimeTypes.PDF)))
+                .toList();
+    }
+
+    @Test
+    void registerBooksInBatches() {
+        final var author = repository.registerAuthor("Hombergs, Tom", Map.of());
+        final var count = 500;
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Single-book path, flushed per book like a transaction per book
+        statistics.clear();
+        for (var book : books(author, count)) {
+            repository.registerBook(book.id(), book.title(), book.authors(), book.formats(), book.keywords());
+            entityManager.flush();
+            entityManager.clear();
+        }
+        final var singleStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        final var registered = repository.registerBooks(books(author, count));
+        final var bulkStatements = statistics.getPrepareStatementCount();
+        final var bulkFlushes = statistics.getFlushCount();
+        final var bulkLoads = statistics.getEntityLoadCount();
+
+        assertAll(
+                () -> assertEquals(count, registered.size()),
+                () -> assertEquals(2 * count, repository.findBooksByAuthorId(author.id()).size()),
+                () -> assertTrue(bulkStatements < singleStatements),
+                // The author is read once per batch, the books are flushed per batch
+                () -> assertEquals(count / JpaBookRepository.DEFAULT_BATCH_SIZE, bulkLoads),
+                () -> assertEquals(count / JpaBookRepository.DEFAULT_BATCH_SIZE, bulkFlushes)
+        );
+    }
+
+    @Test
+    void registerBooksOfUnknownAuthor() {
+        final var unknown = new Author(AuthorId.withId(UUID.randomUUID().toString()), Instant.now(), "Unknown", Map.of());
+
+        assertThrows(ServiceException.class, () -> repository.registerBooks(books(unknown, 3)));
+    }
 }
@@ -0,0 +1,163 @@
+package com.putoet.mybooks.books.adapter.out.persistence.jpa;
+
+import com.putoet.mybooks.books.domain.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Every call runs in a transaction of its own, as the cache is filled and invalidated when a transaction completes.
+ */
+@DataJpaTest(properties = "mybooks.jpa.second-level-cache.enabled=true")
+@Import(SecondLevelCacheConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+    @Autowired
+    private AuthorJpaRepository authorRepository;
+
+    @Autowired
+    private BookJpaRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JpaBookRepository repository;
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        repository = new JpaBookRepository(new DomainMapper(), authorRepository, bookRepository, entityManager,
+                JpaBookRepository.DEFAULT_BATCH_SIZE);
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        transaction.executeWithoutResult(status -> {
+            bookRepository.deleteAll();
+            authorRepository.deleteAll();
+        });
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return transaction.execute(status -> action.get());
+    }
+
+    // The number of statements prepared by the action, in a transaction of its own
+    private long statements(Supplier<?> action) {
+        statistics.clear();
+        inTransaction(action);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Book registerBook(Author author) {
+        return inTransaction(() -> repository.registerBook(new BookId(BookId.BookIdSchema.UUID, UUID.randomUUID().toString()),
+                "Clean Architecture", Set.of(author), Set.of(MimeTypes.EPUB), Set.of("architecture")));
+    }
+
+    @Test
+    void findById() {
+        final var author = inTransaction(() -> repository.registerAuthor("Martin, Robert", Map.of()));
+        final var book = registerBook(author);
+
+        inTransaction(() -> repository.findBookById(book.id()));
+        assertAll(
+                () -> assertEquals(0, statements(() -> repository.findAuthorById(author.id()))),
+                () -> assertEquals(0, statements(() -> repository.findBookById(book.id()))),
+                () -> assertTrue(statistics.getSecondLevelCacheHitCount() > 0)
+        );
+    }
+
+    @Test
+    void findByName() {
+        inTransaction(() -> repository.registerAuthor("Martin, Robert", Map.of()));
+
+        assertEquals(1, inTransaction(() -> repository.findAuthorsByName("martin")).size());
+        assertEquals(0, statements(() -> repository.findAuthorsByName("martin")));
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        // A write to the author table invalidates the cached results
+        inTransaction(() -> repository.registerAuthor("Martin, Micah", Map.of()));
+        assertEquals(2, inTransaction(() -> repository.findAuthorsByName("martin")).size());
+    }
+
+    @Test
+    void findByTitle() {
+        final var author = inTransaction(() -> repository.registerAuthor("Martin, Robert", Map.of()));
+        registerBook(author);
+
+        assertEquals(1, inTransaction(() -> repository.findBooksByTitle("clean")).size());
+        assertEquals(0, statements(() -> repository.findBooksByTitle("clean")));
+
+        registerBook(author);
+        assertEquals(2, inTransaction(() -> repository.findBooksByTitle("clean")).size());
+    }
+
+    @Test
+    void writesUpdateTheCache() throws MalformedURLException {
+        final var author = inTransaction(() -> repository.registerAuthor("Martin, Robert", Map.of()));
+        final var book = registerBook(author);
+        inTransaction(() -> repository.findBookById(book.id()));
+
+        final var updated = inTransaction(() -> repository.updateAuthor(author.id(), author.version(), "Martin, Robert C."));
+        final var site = new URL("https://github.com/unclebob");
+        inTransaction(() -> repository.setAuthorSite(author.id(), SiteType.GITHUB, site));
+
+        final var cached = inTransaction(() -> repository.findBookById(book.id())).authors().iterator().next();
+        assertAll(
+                () -> assertEquals("Martin, Robert C.", cached.name()),
+                () -> assertEquals(updated.version(), cached.version()),
+                () -> assertEquals(Map.of(SiteType.GITHUB, site), cached.sites()),
+                () -> assertEquals(cached, inTransaction(() -> repository.findAuthorById(author.id())))
+        );
+    }
+
+    @Test
+    void metrics() {
+        final var author = inTransaction(() -> repository.registerAuthor("Martin, Robert", Map.of()));
+        statistics.clear();
+        inTransaction(() -> repository.findAuthorById(author.id()));
+        inTransaction(() -> repository.findAuthorsByName("martin"));
+        inTransaction(() -> repository.findAuthorsByName("martin"));
+
+        final var registry = new SimpleMeterRegistry();
+        new SecondLevelCacheMetrics(statistics).bindTo(registry);
+
+        assertAll(
+                () -> assertEquals(1.0, registry.get("hibernate.second.level.cache.requests")
+                        .tags("region", AuthorEntity.class.getName(), "result", "hit").functionCounter().count()),
+                () -> assertEquals(1.0, registry.get("hibernate.cache.query.requests")
+                        .tags("result", "hit").functionCounter().count()),
+                () -> assertEquals(1.0, registry.get("hibernate.cache.query.puts").functionCounter().count())
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaLagGuardTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+    private static final Duration INTERVAL = Duration.ofSeconds(1);
+
+    @TempDir
+    private Path folder;
+
+    private final MutableClock clock = new MutableClock();
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagGuard guard;
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2024-01-01T12:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+    }
+
+    private JdbcTemplate database(String name) {
+        final var template = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:file:" + folder.resolve(name) + ";time zone=UTC", "sa", ""));
+        template.execute("create table replication_heartbeat (id int not null, beat timestamp not null, primary key (id))");
+        return template;
+    }
+
+    // Copies the heartbeat from the primary database to the replica
+    private void replicate() {
+        final var beat = primary.queryForObject("select beat from replication_heartbeat where id = 1", Timestamp.class);
+        replica.update("merge into replication_heartbeat (id, beat) values (1, ?)", beat);
+    }
+
+    @BeforeEach
+    void setup() {
+        primary = database("primary");
+        replica = database("replica");
+        guard = new ReplicaLagGuard(primary, replica, MAX_LAG, INTERVAL, clock);
+    }
+
+    @Test
+    void lag() {
+        assertTrue(guard.lag().isEmpty());
+
+        guard.beat();
+        replicate();
+        clock.advance(Duration.ofSeconds(3));
+
+        assertEquals(Duration.ofSeconds(3), guard.lag().orElseThrow());
+    }
+
+    @Test
+    void isReplicaCurrent() {
+        // No heartbeat replicated yet
+        assertFalse(guard.isReplicaCurrent());
+
+        guard.beat();
+        replicate();
+        clock.advance(INTERVAL);
+        assertTrue(guard.isReplicaCurrent());
+
+        // Replication stopped, the lag grows with every check
+        clock.advance(MAX_LAG);
+        assertFalse(guard.isReplicaCurrent());
+
+        guard.beat();
+        replicate();
+        assertFalse(guard.isReplicaCurrent(), "checked at most once per interval");
+        clock.advance(INTERVAL);
+        assertTrue(guard.isReplicaCurrent());
+    }
+
+    @Test
+    void replicaUnavailable() {
+        guard.beat();
+        replicate();
+        replica.execute("drop table replication_heartbeat");
+
+        assertAll(
+                () -> assertTrue(guard.lag().isEmpty()),
+                () -> assertFalse(guard.isReplicaCurrent())
+        );
+    }
+
+    @Test
+    void heartbeat() throws InterruptedException {
+        final var scheduled = new ReplicaLagGuard(primary, replica, MAX_LAG, Duration.ofMillis(10), Clock.systemUTC());
+        scheduled.afterPropertiesSet();
+        try {
+            for (int i = 0; i < 100 && primary.queryForObject("select count(*) from replication_heartbeat", Integer.class) == 0; i++)
+                Thread.sleep(10);
+        } finally {
+            scheduled.destroy();
+        }
+
+        assertEquals(1, primary.queryForObject("select count(*) from replication_heartbeat", Integer.class));
+    }
+}
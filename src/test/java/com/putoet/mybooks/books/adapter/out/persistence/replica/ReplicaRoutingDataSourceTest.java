@@ -0,0 +1,156 @@
+package com.putoet.mybooks.books.adapter.out.persistence.replica;
+
+import com.putoet.mybooks.books.adapter.out.persistence.cache.CachingBookRepository;
+import com.putoet.mybooks.books.application.port.in.BookManagementInquiryPort;
+import com.putoet.mybooks.books.application.port.in.BookManagementUpdatePort;
+import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
+import com.putoet.mybooks.books.domain.Author;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Two H2 databases in files, where the replica is a copy of the primary database made by replicate().
+ */
+@SpringBootTest
+class ReplicaRoutingDataSourceTest {
+    @TempDir
+    private static Path folder;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + folder.resolve("primary") + ";time zone=UTC");
+        registry.add("spring.sql.init.mode", () -> "always");
+        registry.add("mybooks.datasource.replica.url", () -> "jdbc:h2:file:" + folder.resolve("replica") + ";time zone=UTC");
+        registry.add("mybooks.datasource.replica.max-lag", () -> "1h");
+        registry.add("mybooks.datasource.replica.heartbeat-interval", () -> "100ms");
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagGuard guard;
+
+    @Autowired
+    private BookManagementInquiryPort bookManagementInquiryPort;
+
+    @Autowired
+    private BookManagementUpdatePort bookManagementUpdatePort;
+
+    @Autowired
+    private BookPersistenceUpdatePort bookPersistenceUpdatePort;
+
+    private void replicate() {
+        final var snapshot = folder.resolve("snapshot.sql").toString();
+        new JdbcTemplate(primaryDataSource).execute("script to '" + snapshot + "'");
+
+        final var replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("drop all objects");
+        replica.execute("runscript from '" + snapshot + "'");
+    }
+
+    @BeforeEach
+    void setup() {
+        ReadYourWrites.clear();
+        replicate();
+
+        // The lag is checked once per heartbeat interval
+        for (int i = 0; i < 30 && !guard.isReplicaCurrent(); i++)
+            sleep();
+    }
+
+    @AfterEach
+    void cleanup() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void configuration() {
+        assertAll(
+                () -> assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource),
+                () -> assertInstanceOf(ReplicaRoutingDataSource.class, ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource())
+        );
+    }
+
+    @Test
+    void readsFromReplica() {
+        new JdbcTemplate(replicaDataSource).update("insert into author (author_id, version, name) values (random_uuid(), now(), 'Replica, Only')");
+
+        assertEquals(1, bookManagementInquiryPort.authorsByName("replica, only").size());
+    }
+
+    @Test
+    void readYourWrites() {
+        final Author author = bookManagementUpdatePort.registerAuthor("Primary, Only", Map.of());
+
+        // The request that wrote reads from the primary database
+        assertEquals(1, bookManagementInquiryPort.authorsByName("primary, only").size());
+
+        // Other requests read from the replica, until the author is replicated
+        ReadYourWrites.clear();
+        assertEquals(0, bookManagementInquiryPort.authorsByName("primary, only").size());
+        replicate();
+        assertEquals(1, bookManagementInquiryPort.authorsByName("primary, only").size());
+
+        bookManagementUpdatePort.forgetAuthor(author.id());
+    }
+
+    @Test
+    void cacheIgnoresReplicaReads() {
+        assertInstanceOf(CachingBookRepository.class, bookPersistenceUpdatePort);
+
+        final Author author = bookManagementUpdatePort.registerAuthor("Cached, Before", Map.of());
+        replicate();
+        ReadYourWrites.clear();
+        bookManagementUpdatePort.updateAuthor(author.id(), author.version(), "Cached, After");
+
+        // Another request reads the old author from the replica, which must not stay in the cache
+        ReadYourWrites.clear();
+        assertEquals("Cached, Before", bookManagementInquiryPort.authorById(author.id()).orElseThrow().name());
+        replicate();
+        assertEquals("Cached, After", bookManagementInquiryPort.authorById(author.id()).orElseThrow().name());
+
+        bookManagementUpdatePort.forgetAuthor(author.id());
+    }
+
+    @Test
+    void replicaLags() {
+        new JdbcTemplate(primaryDataSource).update("insert into author (author_id, version, name) values (random_uuid(), now(), 'Not, Replicated')");
+        new JdbcTemplate(replicaDataSource).update("update replication_heartbeat set beat = dateadd(hour, -2, beat)");
+        for (int i = 0; i < 30 && guard.isReplicaCurrent(); i++)
+            sleep();
+
+        assertEquals(1, bookManagementInquiryPort.authorsByName("not, replicated").size());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.putoet.mybooks.books.adapter.out.search;
+
+import com.putoet.mybooks.books.domain.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryBookSearchIndexTest {
+    private static final Author MARTIN = new Author(AuthorId.withoutId(), "Martin, Robert C.");
+    private static final Author FOWLER = new Author(AuthorId.withoutId(), "Fowler, Martin");
+    private static final Author GOETZ = new Author(AuthorId.withoutId(), "Goetz, Brian");
+
+    private static final Book CLEAN_CODE = book("Clean Code", Set.of(MARTIN), Set.of("java", "refactoring"));
+    private static final Book CLEAN_ARCHITECTURE = book("Clean Architecture", Set.of(MARTIN), Set.of("architecture"));
+    private static final Book REFACTORING = book("Refactoring", Set.of(FOWLER), Set.of("java", "clean code"));
+    private static final Book CONCURRENCY = book("Java Concurrency in Practice", Set.of(GOETZ), Set.of("java", "threads"));
+    private static final Book MICROSERVICES = book("Microservices Patterns", Set.of(), Set.of("architecture"));
+
+    private final InMemoryBookSearchIndex index = new InMemoryBookSearchIndex();
+
+    private static Book book(String title, Set<Author> authors, Set<String> keywords) {
+        return new Book(new BookId(), title, authors, keywords, Set.of(MimeTypes.EPUB));
+    }
+
+    private List<Book> search(String query) {
+        return index.search(query, 10).stream().map(BookSearchResult::book).toList();
+    }
+
+    @BeforeEach
+    void setup() {
+        index.index(List.of(CLEAN_CODE, CLEAN_ARCHITECTURE, REFACTORING, CONCURRENCY, MICROSERVICES));
+    }
+
+    @Test
+    void tokens() {
+        assertAll(
+                () -> assertEquals(List.of("cafe", "creme", "2nd", "edition"), InMemoryBookSearchIndex.tokens("Café-Crème, 2nd Edition!")),
+                () -> assertEquals(List.of(), InMemoryBookSearchIndex.tokens(" -- ")),
+                () -> assertEquals(List.of(), InMemoryBookSearchIndex.tokens(null))
+        );
+    }
+
+    @Test
+    void searchTitle() {
+        assertAll(
+                () -> assertEquals(List.of(CONCURRENCY), search("concurrency")),
+                () -> assertEquals(Set.of(CLEAN_CODE, CLEAN_ARCHITECTURE, REFACTORING), Set.copyOf(search("CLEAN"))),
+                () -> assertEquals(List.of(), search("kotlin")),
+                () -> assertEquals(List.of(), search(" "))
+        );
+    }
+
+    @Test
+    void searchRanksByField() {
+        // A title match ranks above a keyword match, for the same term
+        final var found = search("clean");
+        assertEquals(REFACTORING, found.get(found.size() - 1));
+
+        // Martin is an author name of three books, and a first name of Fowler
+        assertEquals(Set.of(CLEAN_CODE, CLEAN_ARCHITECTURE, REFACTORING), Set.copyOf(search("martin")));
+    }
+
+    @Test
+    void searchRanksAllWordsFirst() {
+        final var found = search("clean architecture");
+
+        assertAll(
+                () -> assertEquals(CLEAN_ARCHITECTURE, found.get(0)),
+                () -> assertTrue(found.containsAll(List.of(CLEAN_CODE, MICROSERVICES)))
+        );
+    }
+
+    @Test
+    void searchPrefix() {
+        final var coders = book("Coders at Work", Set.of(), Set.of());
+        index.index(List.of(coders));
+        final var found = search("code");
+
+        assertAll(
+                () -> assertEquals(List.of(MICROSERVICES), search("micro")),
+                () -> assertEquals(List.of(CONCURRENCY), search("goe")),
+                () -> assertEquals(List.of(), search("m")),
+                // An exact match in the title ranks above a prefix match in the title
+                () -> assertEquals(CLEAN_CODE, found.get(0)),
+                () -> assertTrue(found.indexOf(coders) > 0)
+        );
+    }
+
+    @Test
+    void searchLimit() {
+        final var found = index.search("java", 2);
+
+        assertAll(
+                () -> assertEquals(2, found.size()),
+                () -> assertTrue(found.get(0).score() >= found.get(1).score()),
+                () -> assertEquals(List.of(), index.search("java", 0))
+        );
+    }
+
+    @Test
+    void update() {
+        final var renamed = new Book(CLEAN_CODE.id(), "Clean Coder", CLEAN_CODE.authors(), Set.of(), CLEAN_CODE.formats());
+        index.index(List.of(renamed));
+        index.remove(List.of(REFACTORING.id(), new BookId()));
+
+        assertAll(
+                () -> assertEquals(4, index.size()),
+                () -> assertEquals(List.of(renamed), search("coder")),
+                () -> assertEquals(List.of(), search("refactoring")),
+                () -> assertEquals(List.of(), search("fowler"))
+        );
+    }
+
+    @Test
+    void searchLargeIndex() {
+        final var words = List.of("Clean", "Code", "Java", "Spring", "Boot", "Patterns", "Domain", "Driven",
+                "Design", "Microservices", "Kotlin", "Refactoring", "Architecture", "Testing");
+        final var random = new Random(42);
+        final var books = new ArrayList<Book>();
+        for (int i = 0; i < 100_000; i++) {
+            final var title = String.join(" ", random.ints(4, 0, words.size()).mapToObj(words::get).toList());
+            books.add(book(title + " " + i, Set.of(MARTIN), Set.of(words.get(random.nextInt(words.size())))));
+        }
+
+        final var large = new InMemoryBookSearchIndex();
+        large.index(books);
+        final var found = large.search("kotlin testing 4711", 10);
+
+        assertAll(
+                () -> assertEquals(books.size(), large.size()),
+                () -> assertEquals(10, found.size()),
+                () -> assertTrue(found.get(0).book().title().endsWith(" 4711")),
+                () -> assertTrue(large.search("microserv", 10).stream().allMatch(result -> result.book().title().contains("Microservices")
+                        || result.book().keywords().contains("Microservices")))
+        );
+    }
+}
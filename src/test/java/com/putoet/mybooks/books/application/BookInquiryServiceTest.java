@@ -2,16 +2,15 @@ package com.putoet.mybooks.books.application;
 
 import com.putoet.mybooks.books.application.port.in.ServiceException;
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceQueryPort;
-import com.putoet.mybooks.books.domain.Author;
-import com.putoet.mybooks.books.domain.AuthorId;
-import com.putoet.mybooks.books.domain.AuthorTest;
-import com.putoet.mybooks.books.domain.BookId;
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
+import com.putoet.mybooks.books.domain.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -29,6 +28,9 @@ class BookInquiryServiceTest {
     @Mock
     private BookPersistenceQueryPort bookPersistenceQueryPort;
 
+    @Mock
+    private BookSearchPort bookSearchPort;
+
     @InjectMocks
     private BookInquiryService bookManagementInquiryPort;
 
@@ -174,13 +176,17 @@ class BookInquiryServiceTest {
     @Test
     void bookByAuthorName() {
         when(bookPersistenceQueryPort.findAuthorsByName("tom")).thenReturn(Set.of(AuthorTest.AUTHOR));
-        when(bookPersistenceQueryPort.findBooksByAuthorId(AuthorTest.AUTHOR.id())).thenReturn(Set.of());
+        when(bookPersistenceQueryPort.findAuthorsByName("nobody")).thenReturn(Set.of());
+        when(bookPersistenceQueryPort.findBooksByAuthorIds(List.of(AuthorTest.AUTHOR.id()))).thenReturn(Set.of());
         final var books = bookManagementInquiryPort.booksByAuthorName("tom");
+        final var none = bookManagementInquiryPort.booksByAuthorName("nobody");
 
         assertAll(
                 () -> verify(bookPersistenceQueryPort, times(1)).findAuthorsByName("tom"),
-                () -> verify(bookPersistenceQueryPort, times(1)).findBooksByAuthorId(AuthorTest.AUTHOR.id()),
+                () -> verify(bookPersistenceQueryPort, times(1)).findBooksByAuthorIds(List.of(AuthorTest.AUTHOR.id())),
+                () -> verify(bookPersistenceQueryPort, never()).findBooksByAuthorId(any()),
                 () -> assertEquals(0, books.size()),
+                () -> assertEquals(0, none.size()),
 
                 () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.booksByAuthorName(null)),
                 () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.booksByAuthorName(" "))
@@ -192,4 +198,43 @@ class BookInquiryServiceTest {
         final var types = bookManagementInquiryPort.authorSiteTypes();
         assertEquals(7, types.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void booksPage() {
+        final var page = new Page<Book>(List.of(), null);
+        when(bookPersistenceQueryPort.findBooks(null, 10)).thenReturn(page);
+
+        assertAll(
+                () -> assertSame(page, bookManagementInquiryPort.books(null, 10)),
+                () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.books(null, 0)),
+                () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.books(null, Page.MAX_SIZE + 1)),
+                () -> verify(bookPersistenceQueryPort, times(1)).findBooks(any(), anyInt())
+        );
+    }
+
+    @Test
+    void authorsPage() {
+        final var cursor = AuthorCursor.of(AUTHOR);
+        final var page = new Page<>(List.of(AUTHOR), null);
+        when(bookPersistenceQueryPort.findAuthors(cursor, 1)).thenReturn(page);
+
+        assertAll(
+                () -> assertSame(page, bookManagementInquiryPort.authors(cursor, 1)),
+                () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.authors(cursor, -1))
+        );
+    }
+
+    @Test
+    void searchBooks() {
+        final var results = List.<BookSearchResult>of();
+        when(bookSearchPort.search("clean code", 10)).thenReturn(results);
+
+        assertAll(
+                () -> assertSame(results, bookManagementInquiryPort.searchBooks("clean code", 10)),
+                () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.searchBooks(null, 10)),
+                () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.searchBooks(" ", 10)),
+                () -> assertThrows(ServiceException.class, () -> bookManagementInquiryPort.searchBooks("clean", 0)),
+                () -> verify(bookSearchPort, times(1)).search(any(), anyInt())
+        );
+    }
+}
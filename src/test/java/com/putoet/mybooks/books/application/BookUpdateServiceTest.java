@@ -2,6 +2,7 @@ package com.putoet.mybooks.books.application;
 
 import com.putoet.mybooks.books.application.port.in.ServiceException;
 import com.putoet.mybooks.books.application.port.out.persistence.BookPersistenceUpdatePort;
+import com.putoet.mybooks.books.application.port.out.search.BookSearchPort;
 import com.putoet.mybooks.books.domain.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,15 +10,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +37,9 @@ class BookUpdateServiceTest {
     @Mock
     private ApplicationEventPublisher applicationEventPublisher;
 
+    @Mock
+    private BookSearchPort bookSearchPort;
+
     @InjectMocks
     private BookUpdateService bookManagementUpdatePort;
 
@@ -69,6 +77,7 @@ class BookUpdateServiceTest {
         final var id = AuthorId.withoutId();
         bookManagementUpdatePort.forgetAuthor(id);
         verify(bookPersistenceUpdatePort).forgetAuthor(id);
+        verifyNoInteractions(bookSearchPort);
     }
 
     @Test
@@ -77,11 +86,14 @@ class BookUpdateServiceTest {
         final var name = "New, Name";
         final var version = Instant.now();
         final var author = new Author(id, version, name, Map.of());
+        final var books = Set.of(new Book(new BookId(), "Title", Set.of(author), Set.of(), Set.of(MimeTypes.EPUB)));
         when(bookPersistenceUpdatePort.updateAuthor(id, version, name)).thenReturn(author);
+        when(bookPersistenceUpdatePort.findBooksByAuthorId(id)).thenReturn(books);
 
         final var updated = bookManagementUpdatePort.updateAuthor(id, version, name);
         assertAll(
                 () -> verify(bookPersistenceUpdatePort).updateAuthor(id, version, name),
+                () -> verify(bookSearchPort).index(books),
                 () -> assertEquals(author, updated),
 
                 // error conditions
@@ -127,6 +139,7 @@ class BookUpdateServiceTest {
 
         assertAll(
                 () -> verify(bookPersistenceUpdatePort).registerBook(bookId, title, authors, formats, Set.of()),
+                () -> verify(bookSearchPort).index(List.of(book)),
                 () -> assertNotNull(created),
                 () -> assertEquals(book, created),
 
@@ -138,4 +151,22 @@ class BookUpdateServiceTest {
                 () -> assertThrows(ServiceException.class, () -> bookManagementUpdatePort.registerBook(bookId, title, authors, null, null))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void registerBookIndexedAfterCommit() {
+        final var bookId = new BookId(BookId.BookIdSchema.ISBN, "978-1839211966");
+        final var book = new Book(bookId, "Clean Architecture", Set.of(), Set.of(), Set.of(MimeTypes.EPUB));
+        when(bookPersistenceUpdatePort.registerBook(bookId, book.title(), Set.of(), book.formats(), Set.of())).thenReturn(book);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookManagementUpdatePort.registerBook(bookId, book.title(), Set.of(), book.formats(), Set.of());
+            verifyNoInteractions(bookSearchPort);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(bookSearchPort).index(List.of(book));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
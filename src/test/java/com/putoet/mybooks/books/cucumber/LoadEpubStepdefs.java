@@ -3,6 +3,7 @@ package com.putoet.mybooks.books.cucumber;
 import com.putoet.mybooks.books.adapter.out.persistence.folder.FolderBookRepository;
 import com.putoet.mybooks.books.adapter.out.persistence.jdbc.H2BookRepository;
 import com.putoet.mybooks.books.adapter.out.persistence.folder.Rezipper;
+import com.putoet.mybooks.books.adapter.out.search.InMemoryBookSearchIndex;
 import com.putoet.mybooks.books.application.BookInquiryService;
 import com.putoet.mybooks.books.application.BookUpdateService;
 import com.putoet.mybooks.books.domain.Author;
@@ -48,8 +49,10 @@ public class LoadEpubStepdefs extends MyBooksE2EBase {
         final var database = new H2BookRepository(jdbcTemplate);
         final var folder = new FolderBookRepository(Paths.get(context.get(ROOT_FOLDER, String.class)));
 
-        final var inputBookManagementInquiryPort = new BookInquiryService(folder);
-        final var outputBookManagementUpdatePort = new BookUpdateService(database, applicationEventPublisher);
+        final var search = new InMemoryBookSearchIndex();
+
+        final var inputBookManagementInquiryPort = new BookInquiryService(folder, search);
+        final var outputBookManagementUpdatePort = new BookUpdateService(database, applicationEventPublisher, search);
 
         final var storedAuthors = new HashMap<String, Author>();
         final var storedBooks = new HashSet<Book>();
@@ -0,0 +1,33 @@
+package com.putoet.mybooks.books.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorCursorTest {
+    private final Author author = new Author(AuthorId.withId("531e071d-2ff7-4737-a2d8-c4e1e1d81f97"), "Hombergs, Tom");
+
+    @Test
+    void encodeDecode() {
+        final var cursor = AuthorCursor.encode(author);
+
+        assertAll(
+                () -> assertEquals(AuthorCursor.of(author), AuthorCursor.decode(cursor)),
+                () -> assertNull(AuthorCursor.decode(null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> AuthorCursor.decode("not a cursor")),
+                () -> assertThrows(IllegalArgumentException.class, () -> AuthorCursor.decode("YXV0aG9y"))
+        );
+    }
+
+    @Test
+    void isBefore() {
+        final var cursor = AuthorCursor.of(author);
+
+        assertAll(
+                () -> assertFalse(cursor.isBefore(author)),
+                () -> assertFalse(cursor.isBefore(new Author(AuthorId.withId("431e071d-2ff7-4737-a2d8-c4e1e1d81f97"), "Hombergs, Tom"))),
+                () -> assertTrue(cursor.isBefore(new Author(AuthorId.withId("f31e071d-2ff7-4737-a2d8-c4e1e1d81f97"), "Hombergs, Tom"))),
+                () -> assertTrue(cursor.isBefore(new Author(AuthorId.withoutId(), "Martin, Robert")))
+        );
+    }
+}
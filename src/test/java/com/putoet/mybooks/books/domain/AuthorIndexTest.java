@@ -0,0 +1,62 @@
+package com.putoet.mybooks.books.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorIndexTest {
+    @Test
+    void key() {
+        assertAll(
+                () -> assertEquals(AuthorIndex.key("Martin, Robert C."), AuthorIndex.key("Robert C. Martin")),
+                () -> assertEquals(AuthorIndex.key("Martin, Robert C."), AuthorIndex.key("  robert   c martin ")),
+                () -> assertEquals(AuthorIndex.key("Brontë, Emily"), AuthorIndex.key("Emily Bronte")),
+                () -> assertNotEquals(AuthorIndex.key("Martin, Robert"), AuthorIndex.key("Martin, Robert C."))
+        );
+    }
+
+    @Test
+    void canonical() {
+        final var index = new AuthorIndex();
+        final var first = index.canonical("Martin, Robert C.");
+
+        assertAll(
+                () -> assertSame(first, index.canonical("Robert C. Martin")),
+                () -> assertSame(first, index.canonical(new Author(AuthorId.withoutId(), "robert c martin"))),
+                () -> assertNotSame(first, index.canonical("Fowler, Martin")),
+                () -> assertEquals(2, index.size())
+        );
+    }
+
+    @Test
+    void canonicalBook() {
+        final var index = new AuthorIndex(List.of(new Author(AuthorId.withoutId(), "Martin, Robert")));
+        final var known = index.find("Robert Martin").orElseThrow();
+
+        final var book = new Book(new BookId(), "Clean Code",
+                Set.of(new Author(AuthorId.withoutId(), "Robert Martin")), Set.of(), Set.of(MimeTypes.EPUB));
+        final var canonical = index.canonical(book);
+
+        assertAll(
+                () -> assertEquals(Set.of(known), canonical.authors()),
+                () -> assertSame(canonical, index.canonical(canonical))
+        );
+    }
+
+    @Test
+    void concurrent() {
+        final var index = new AuthorIndex();
+        final var authors = ConcurrentHashMap.<Author>newKeySet();
+
+        IntStream.range(0, 10_000).parallel()
+                .forEach(i -> authors.add(index.canonical((i % 2 == 0 ? "Author, " : "") + (i % 100))));
+
+        assertEquals(100, index.size());
+        assertEquals(100, authors.size());
+    }
+}
@@ -0,0 +1,45 @@
+package com.putoet.mybooks.books.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCursorTest {
+    private final Book book = new Book(new BookId(BookId.BookIdSchema.ISBN, "978-1-83921-196-6"),
+            "Get Your Hands Dirty\u0000on Clean Architecture", Set.of(), Set.of(), Set.of(MimeTypes.EPUB));
+
+    @Test
+    void encodeDecode() {
+        final var cursor = BookCursor.encode(book);
+
+        assertAll(
+                () -> assertEquals(BookCursor.of(book), BookCursor.decode(cursor)),
+                () -> assertTrue(cursor.matches("[A-Za-z0-9_-]+")),
+                () -> assertNull(BookCursor.decode(null)),
+                () -> assertNull(BookCursor.decode(" ")),
+                () -> assertThrows(IllegalArgumentException.class, () -> BookCursor.decode("not a cursor")),
+                () -> assertThrows(IllegalArgumentException.class, () -> BookCursor.decode("Ym9vaw"))
+        );
+    }
+
+    @Test
+    void isBefore() {
+        final var books = List.of(
+                new Book(new BookId(BookId.BookIdSchema.UUID, "2b8a1f9e-0c1d-4e2f-8a3b-000000000001"), "A", Set.of(), Set.of(), Set.of()),
+                new Book(new BookId(BookId.BookIdSchema.ISBN, "978-1-83921-196-6"), "B", Set.of(), Set.of(), Set.of()),
+                new Book(new BookId(BookId.BookIdSchema.UUID, "2b8a1f9e-0c1d-4e2f-8a3b-000000000002"), "B", Set.of(), Set.of(), Set.of()),
+                new Book(new BookId(BookId.BookIdSchema.UUID, "2b8a1f9e-0c1d-4e2f-8a3b-000000000003"), "B", Set.of(), Set.of(), Set.of()));
+        final var cursor = BookCursor.of(books.get(2));
+
+        assertAll(
+                () -> assertEquals(books, List.copyOf(Books.ordered(books))),
+                () -> assertFalse(cursor.isBefore(books.get(0))),
+                () -> assertFalse(cursor.isBefore(books.get(1))),
+                () -> assertFalse(cursor.isBefore(books.get(2))),
+                () -> assertTrue(cursor.isBefore(books.get(3)))
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package com.putoet.mybooks.books.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTest {
+    private final List<Integer> items = IntStream.rangeClosed(1, 7).boxed().toList();
+    private final List<String> fetched = new ArrayList<>();
+
+    private Page<Integer> fetch(String after, int limit) {
+        fetched.add(after);
+        final int from = after == null ? 0 : Integer.parseInt(after);
+        return Page.of(items.subList(from, Math.min(from + limit + 1, items.size())), limit, String::valueOf);
+    }
+
+    @Test
+    void of() {
+        final var first = fetch(null, 3);
+        final var last = fetch("6", 3);
+
+        assertAll(
+                () -> assertEquals(List.of(1, 2, 3), first.items()),
+                () -> assertEquals("3", first.next()),
+                () -> assertEquals(List.of(7), last.items()),
+                () -> assertFalse(last.hasNext())
+        );
+    }
+
+    @Test
+    void stream() {
+        assertAll(
+                () -> assertEquals(items, Page.stream(after -> fetch(after, 3)).toList()),
+                () -> assertEquals(java.util.Arrays.asList(null, "3", "6"), fetched)
+        );
+    }
+
+    @Test
+    void streamIsLazy() {
+        final var stream = Page.stream(after -> fetch(after, 3));
+        assertTrue(fetched.isEmpty());
+
+        assertEquals(List.of(1, 2, 3, 4), stream.limit(4).toList());
+        assertEquals(2, fetched.size());
+    }
+
+    @Test
+    void streamEmpty() {
+        assertEquals(List.of(), Page.stream(after -> new Page<>(List.of(), null)).toList());
+    }
+}